@@ -0,0 +1,78 @@
+package com.interiordesign.auth_service.benchmark;
+
+import com.fasterxml.jackson.databind.JsonNode;
+import com.fasterxml.jackson.databind.ObjectMapper;
+
+import java.io.File;
+import java.io.IOException;
+import java.util.Iterator;
+import java.util.LinkedHashMap;
+import java.util.Map;
+
+/**
+ * Compares a JMH JSON result with a baseline from an earlier release and fails when a
+ * benchmark got slower by more than the threshold.
+ * <p>
+ * Arguments: {@code <current.json> <threshold-percent> [<baseline.json>]}. Without a baseline
+ * it only reports where the results were written.
+ */
+public final class BenchmarkComparison {
+
+    private BenchmarkComparison() {
+    }
+
+    public static void main(String[] args) throws IOException {
+        File current = new File(args[0]);
+        double threshold = Double.parseDouble(args[1]);
+        if (args.length < 3 || args[2].isBlank()) {
+            System.out.println("Benchmark results written to " + current
+                    + "; pass -Djmh.baseline=<file> to compare against an earlier run");
+            return;
+        }
+
+        Map<String, JsonNode> baseline = load(new File(args[2]));
+        int regressions = 0;
+        for (Map.Entry<String, JsonNode> entry : load(current).entrySet()) {
+            JsonNode before = baseline.get(entry.getKey());
+            if (before == null) {
+                System.out.printf("%-90s new%n", entry.getKey());
+                continue;
+            }
+            double change = slowdownPercent(before, entry.getValue());
+            boolean regressed = change > threshold;
+            if (regressed) {
+                regressions++;
+            }
+            System.out.printf("%-90s %+7.1f%% %s%n", entry.getKey(), change, regressed ? "REGRESSION" : "");
+        }
+
+        if (regressions > 0) {
+            System.err.printf("%d benchmark(s) regressed by more than %.1f%%%n", regressions, threshold);
+            System.exit(1);
+        }
+    }
+
+    // Positive when the current run is slower, whatever the benchmark mode
+    private static double slowdownPercent(JsonNode before, JsonNode after) {
+        double baseScore = before.path("primaryMetric").path("score").asDouble();
+        double score = after.path("primaryMetric").path("score").asDouble();
+        double change = (score - baseScore) / baseScore * 100;
+        return "thrpt".equals(after.path("mode").asText()) ? -change : change;
+    }
+
+    // Keyed by benchmark name, mode and parameters
+    private static Map<String, JsonNode> load(File file) throws IOException {
+        Map<String, JsonNode> results = new LinkedHashMap<>();
+        for (JsonNode result : new ObjectMapper().readTree(file)) {
+            StringBuilder key = new StringBuilder(result.path("benchmark").asText())
+                    .append(" [").append(result.path("mode").asText());
+            Iterator<Map.Entry<String, JsonNode>> params = result.path("params").fields();
+            while (params.hasNext()) {
+                Map.Entry<String, JsonNode> param = params.next();
+                key.append(", ").append(param.getKey()).append('=').append(param.getValue().asText());
+            }
+            results.put(key.append(']').toString(), result);
+        }
+        return results;
+    }
+}
@@ -0,0 +1,43 @@
+package com.interiordesign.auth_service.benchmark;
+
+import com.fasterxml.jackson.databind.ObjectMapper;
+import com.interiordesign.auth_service.model.Role;
+import com.interiordesign.auth_service.model.User;
+import com.interiordesign.auth_service.security.JwtUtil;
+import com.interiordesign.auth_service.security.SigningKey;
+import com.interiordesign.auth_service.security.SigningKeyRing;
+
+import java.time.Instant;
+import java.util.List;
+
+final class BenchmarkFixtures {
+
+    static final String SECRET = "mQyYfZBE4k4sFd89lNm2nJPMSt0kHwFodCiZuRGLpVxA7eDU6j";
+
+    private BenchmarkFixtures() {
+    }
+
+    static JwtUtil jwtUtil() {
+        SigningKeyRing signingKeyRing = new SigningKeyRing(new ObjectMapper());
+        signingKeyRing.update(List.of(SigningKey.generate(1, 2048, Instant.now())));
+        return new JwtUtil(signingKeyRing, SECRET, 86400000L, true);
+    }
+
+    static User user() {
+        Instant now = Instant.now();
+        return User.builder()
+                .id(42L)
+                .email("jane.doe@example.com")
+                .password("$2a$10$7EqJtq98hPqEX7fNZaFWoOhi5BWX4Z8mJ9n9sKJ3XH8qY5O1G7z9e")
+                .firstName("Jane")
+                .lastName("Doe")
+                .role(Role.CLIENT)
+                .enabled(true)
+                .accountNonExpired(true)
+                .accountNonLocked(true)
+                .credentialsNonExpired(true)
+                .createdAt(now)
+                .updatedAt(now)
+                .build();
+    }
+}
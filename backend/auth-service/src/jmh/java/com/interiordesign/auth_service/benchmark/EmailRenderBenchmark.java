@@ -0,0 +1,51 @@
+package com.interiordesign.auth_service.benchmark;
+
+import com.interiordesign.auth_service.AuthServiceApplication;
+import com.interiordesign.auth_service.service.EmailService;
+import com.interiordesign.auth_service.service.EmailTemplateRenderer;
+import org.openjdk.jmh.annotations.Benchmark;
+import org.openjdk.jmh.annotations.BenchmarkMode;
+import org.openjdk.jmh.annotations.Fork;
+import org.openjdk.jmh.annotations.Measurement;
+import org.openjdk.jmh.annotations.Mode;
+import org.openjdk.jmh.annotations.OutputTimeUnit;
+import org.openjdk.jmh.annotations.Param;
+import org.openjdk.jmh.annotations.Scope;
+import org.openjdk.jmh.annotations.Setup;
+import org.openjdk.jmh.annotations.State;
+import org.openjdk.jmh.annotations.Warmup;
+
+import java.util.Locale;
+import java.util.Map;
+import java.util.concurrent.TimeUnit;
+
+/**
+ * Password reset email renders per second. {@code cached=false} is the hot-reload mode, which
+ * re-reads and re-parses the template on every render as the service did before.
+ */
+@State(Scope.Benchmark)
+@BenchmarkMode(Mode.Throughput)
+@OutputTimeUnit(TimeUnit.SECONDS)
+@Warmup(iterations = 3, time = 2)
+@Measurement(iterations = 5, time = 2)
+@Fork(1)
+public class EmailRenderBenchmark {
+
+    @Param({"true", "false"})
+    public boolean cached;
+
+    private EmailTemplateRenderer renderer;
+    private Map<String, Object> variables;
+
+    @Setup
+    public void setUp() {
+        renderer = new EmailTemplateRenderer(new AuthServiceApplication().emailTemplateEngine(cached, 50), cached);
+        renderer.warmUp();
+        variables = Map.of("resetUrl", "http://localhost:3000/reset-password?token=" + BenchmarkFixtures.user().getId());
+    }
+
+    @Benchmark
+    public String renderPasswordResetEmail() {
+        return renderer.render(EmailService.PASSWORD_RESET_TEMPLATE, Locale.ENGLISH, variables);
+    }
+}
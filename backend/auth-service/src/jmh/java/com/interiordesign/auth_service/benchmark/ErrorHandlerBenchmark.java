@@ -0,0 +1,68 @@
+package com.interiordesign.auth_service.benchmark;
+
+import com.fasterxml.jackson.databind.ObjectMapper;
+import com.interiordesign.auth_service.exception.GlobalErrorHandler;
+import org.openjdk.jmh.annotations.Benchmark;
+import org.openjdk.jmh.annotations.BenchmarkMode;
+import org.openjdk.jmh.annotations.Fork;
+import org.openjdk.jmh.annotations.Measurement;
+import org.openjdk.jmh.annotations.Mode;
+import org.openjdk.jmh.annotations.OutputTimeUnit;
+import org.openjdk.jmh.annotations.Param;
+import org.openjdk.jmh.annotations.Scope;
+import org.openjdk.jmh.annotations.Setup;
+import org.openjdk.jmh.annotations.State;
+import org.openjdk.jmh.annotations.Warmup;
+import org.springframework.http.HttpStatus;
+import org.springframework.mock.http.server.reactive.MockServerHttpRequest;
+import org.springframework.mock.http.server.reactive.MockServerHttpResponse;
+import org.springframework.mock.web.server.MockServerWebExchange;
+import org.springframework.security.authentication.BadCredentialsException;
+import org.springframework.web.server.ResponseStatusException;
+import org.springframework.web.server.ServerWebExchange;
+import org.springframework.web.server.ServerWebExchangeDecorator;
+
+import java.util.concurrent.TimeUnit;
+
+/**
+ * JSON error bodies written by {@link GlobalErrorHandler} for the common error types.
+ */
+@State(Scope.Benchmark)
+@BenchmarkMode(Mode.AverageTime)
+@OutputTimeUnit(TimeUnit.NANOSECONDS)
+@Warmup(iterations = 3, time = 2)
+@Measurement(iterations = 5, time = 2)
+@Fork(1)
+public class ErrorHandlerBenchmark {
+
+    @Param({"bad-credentials", "response-status", "unexpected"})
+    public String error;
+
+    private GlobalErrorHandler errorHandler;
+    private Throwable exception;
+    private ServerWebExchange template;
+
+    @Setup
+    public void setUp() {
+        errorHandler = new GlobalErrorHandler(new ObjectMapper());
+        template = MockServerWebExchange.from(MockServerHttpRequest.get("/api/auth/user"));
+        exception = switch (error) {
+            case "bad-credentials" -> new BadCredentialsException("Invalid credentials");
+            case "response-status" -> new ResponseStatusException(HttpStatus.TOO_MANY_REQUESTS, "Slow down");
+            default -> new IllegalStateException("Unexpected");
+        };
+    }
+
+    @Benchmark
+    public MockServerHttpResponse handleError() {
+        // A fresh response per call without paying for a whole mock exchange
+        MockServerHttpResponse response = new MockServerHttpResponse();
+        errorHandler.handle(new ServerWebExchangeDecorator(template) {
+            @Override
+            public MockServerHttpResponse getResponse() {
+                return response;
+            }
+        }, exception).block();
+        return response;
+    }
+}
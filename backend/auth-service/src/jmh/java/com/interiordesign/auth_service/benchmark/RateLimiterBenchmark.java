@@ -0,0 +1,72 @@
+package com.interiordesign.auth_service.benchmark;
+
+import com.interiordesign.auth_service.security.StripedRateLimiter;
+import org.openjdk.jmh.annotations.Benchmark;
+import org.openjdk.jmh.annotations.BenchmarkMode;
+import org.openjdk.jmh.annotations.Fork;
+import org.openjdk.jmh.annotations.Measurement;
+import org.openjdk.jmh.annotations.Mode;
+import org.openjdk.jmh.annotations.OutputTimeUnit;
+import org.openjdk.jmh.annotations.Param;
+import org.openjdk.jmh.annotations.Scope;
+import org.openjdk.jmh.annotations.Setup;
+import org.openjdk.jmh.annotations.State;
+import org.openjdk.jmh.annotations.Threads;
+import org.openjdk.jmh.annotations.Warmup;
+
+import java.time.Duration;
+import java.util.concurrent.TimeUnit;
+
+/**
+ * Cost of one rate limit check, uncontended and with several threads hitting the limiter.
+ * The limit is high enough that every request is allowed, which is the common path.
+ */
+@State(Scope.Benchmark)
+@BenchmarkMode(Mode.AverageTime)
+@OutputTimeUnit(TimeUnit.NANOSECONDS)
+@Warmup(iterations = 3, time = 2)
+@Measurement(iterations = 5, time = 2)
+@Fork(1)
+public class RateLimiterBenchmark {
+
+    private static final StripedRateLimiter.Limit LIMIT =
+            new StripedRateLimiter.Limit(1_000_000, Duration.ofSeconds(1));
+
+    @Param({"1000", "100000"})
+    public int keys;
+
+    private StripedRateLimiter limiter;
+    private String[] keyNames;
+
+    @State(Scope.Thread)
+    public static class Cursor {
+        private int next;
+    }
+
+    @Setup
+    public void setUp() {
+        limiter = new StripedRateLimiter(64, 4096, Duration.ofMinutes(10));
+        keyNames = new String[keys];
+        for (int i = 0; i < keys; i++) {
+            keyNames[i] = "login|email|user-" + i + "@example.com";
+        }
+    }
+
+    @Benchmark
+    @Threads(1)
+    public long tryAcquire(Cursor cursor) {
+        return limiter.tryAcquire(nextKey(cursor), LIMIT);
+    }
+
+    @Benchmark
+    @Threads(4)
+    public long tryAcquireContended(Cursor cursor) {
+        return limiter.tryAcquire(nextKey(cursor), LIMIT);
+    }
+
+    private String nextKey(Cursor cursor) {
+        String key = keyNames[cursor.next];
+        cursor.next = cursor.next + 1 == keyNames.length ? 0 : cursor.next + 1;
+        return key;
+    }
+}
@@ -0,0 +1,73 @@
+package com.interiordesign.auth_service.benchmark;
+
+import com.interiordesign.auth_service.security.AccessTokenDenyList;
+import com.interiordesign.auth_service.security.AuthenticationManager;
+import com.interiordesign.auth_service.security.AuthenticationMode;
+import com.interiordesign.auth_service.security.JwtUtil;
+import com.interiordesign.auth_service.security.SecurityContextRepository;
+import com.interiordesign.auth_service.security.TokenVersionCache;
+import com.interiordesign.auth_service.security.VerifiedTokenCache;
+import io.micrometer.core.instrument.simple.SimpleMeterRegistry;
+import org.openjdk.jmh.annotations.Benchmark;
+import org.openjdk.jmh.annotations.BenchmarkMode;
+import org.openjdk.jmh.annotations.Fork;
+import org.openjdk.jmh.annotations.Measurement;
+import org.openjdk.jmh.annotations.Mode;
+import org.openjdk.jmh.annotations.OutputTimeUnit;
+import org.openjdk.jmh.annotations.Param;
+import org.openjdk.jmh.annotations.Scope;
+import org.openjdk.jmh.annotations.Setup;
+import org.openjdk.jmh.annotations.State;
+import org.openjdk.jmh.annotations.Warmup;
+import org.springframework.http.HttpHeaders;
+import org.springframework.mock.http.server.reactive.MockServerHttpRequest;
+import org.springframework.mock.web.server.MockServerWebExchange;
+import org.springframework.security.core.context.SecurityContext;
+
+import java.time.Duration;
+import java.util.concurrent.TimeUnit;
+
+/**
+ * Bearer-token authentication throughput with and without the verified-token cache.
+ * Claims mode is used so the numbers reflect token handling only, with no database.
+ */
+@State(Scope.Benchmark)
+@BenchmarkMode(Mode.Throughput)
+@OutputTimeUnit(TimeUnit.MILLISECONDS)
+@Warmup(iterations = 3, time = 2)
+@Measurement(iterations = 5, time = 2)
+@Fork(1)
+public class TokenAuthenticationBenchmark {
+
+    @Param({"true", "false"})
+    public boolean cached;
+
+    private SecurityContextRepository securityContextRepository;
+    private MockServerWebExchange exchange;
+
+    @Setup
+    public void setUp() {
+        JwtUtil jwtUtil = BenchmarkFixtures.jwtUtil();
+        // Empty, as in production; the lookup is the cost being measured
+        AccessTokenDenyList denyList = new AccessTokenDenyList(new SimpleMeterRegistry());
+        // Holds the user's version, as it does for any recently active user
+        TokenVersionCache tokenVersionCache =
+                new TokenVersionCache(new SimpleMeterRegistry(), 10_000, Duration.ofMinutes(15));
+        tokenVersionCache.observe(BenchmarkFixtures.user().getId(), 0);
+        AuthenticationManager authenticationManager = new AuthenticationManager(jwtUtil, denyList,
+                tokenVersionCache, null, AuthenticationMode.CLAIMS, new SimpleMeterRegistry());
+        VerifiedTokenCache verifiedTokenCache = new VerifiedTokenCache(new SimpleMeterRegistry(),
+                AuthenticationMode.CLAIMS, cached, 10_000, Duration.ofMinutes(15));
+        securityContextRepository = new SecurityContextRepository(authenticationManager, verifiedTokenCache,
+                denyList, tokenVersionCache);
+
+        String token = jwtUtil.generateToken(BenchmarkFixtures.user());
+        exchange = MockServerWebExchange.from(MockServerHttpRequest.get("/api/auth/user")
+                .header(HttpHeaders.AUTHORIZATION, "Bearer " + token));
+    }
+
+    @Benchmark
+    public SecurityContext loadSecurityContext() {
+        return securityContextRepository.load(exchange).block();
+    }
+}
@@ -0,0 +1,160 @@
+package com.interiordesign.auth_service.loadtest;
+
+import com.interiordesign.auth_service.dto.request.LoginRequest;
+import com.interiordesign.auth_service.dto.request.RefreshTokenRequest;
+import com.interiordesign.auth_service.dto.request.RegisterRequest;
+import com.interiordesign.auth_service.dto.response.TokenResponse;
+import com.interiordesign.auth_service.model.Role;
+import org.springframework.http.HttpHeaders;
+import org.springframework.web.reactive.function.client.WebClient;
+import reactor.core.publisher.Flux;
+import reactor.core.publisher.Mono;
+
+import java.util.List;
+import java.util.Map;
+import java.util.Queue;
+import java.util.UUID;
+import java.util.concurrent.ConcurrentLinkedQueue;
+import java.util.concurrent.CopyOnWriteArrayList;
+import java.util.concurrent.ThreadLocalRandom;
+import java.util.function.Function;
+
+/**
+ * The requests the load test sends. Login and refresh each check out a session for the duration
+ * of the call, because both replace the session's refresh token and would otherwise race.
+ */
+final class AuthScenario {
+
+    enum Endpoint {
+        LOGIN, REFRESH, USER, REGISTER
+    }
+
+    private static final String PASSWORD = "load-test-password";
+
+    private final WebClient client;
+    private final Endpoint[] endpoints;
+    private final int[] cumulativeWeights;
+    private final List<Session> sessions = new CopyOnWriteArrayList<>();
+    private final Queue<Session> idleSessions = new ConcurrentLinkedQueue<>();
+
+    AuthScenario(WebClient client, Map<Endpoint, Integer> mix) {
+        this.client = client;
+        this.endpoints = mix.keySet().toArray(new Endpoint[0]);
+        this.cumulativeWeights = new int[endpoints.length];
+        int total = 0;
+        for (int i = 0; i < endpoints.length; i++) {
+            total += mix.get(endpoints[i]);
+            cumulativeWeights[i] = total;
+        }
+    }
+
+    /**
+     * Registers the users that login, refresh and /user requests act on.
+     */
+    void seed(int users) {
+        Flux.range(0, users)
+                .flatMap(i -> register(), 16)
+                .filter(session -> session.accessToken != null)
+                .doOnNext(session -> {
+                    sessions.add(session);
+                    idleSessions.add(session);
+                })
+                .blockLast();
+        if (sessions.isEmpty()) {
+            throw new IllegalStateException("Could not register any load test users");
+        }
+    }
+
+    Endpoint nextEndpoint() {
+        int pick = ThreadLocalRandom.current().nextInt(cumulativeWeights[cumulativeWeights.length - 1]);
+        for (int i = 0; i < cumulativeWeights.length; i++) {
+            if (pick < cumulativeWeights[i]) {
+                return endpoints[i];
+            }
+        }
+        return endpoints[endpoints.length - 1];
+    }
+
+    /**
+     * Sends one request; emits whether it succeeded, or nothing when no idle session was free.
+     */
+    Mono<Boolean> execute(Endpoint endpoint) {
+        return switch (endpoint) {
+            case LOGIN -> withIdleSession(this::login);
+            case REFRESH -> withIdleSession(this::refresh);
+            case USER -> currentUser();
+            case REGISTER -> register().map(session -> session.accessToken != null);
+        };
+    }
+
+    private Mono<Boolean> withIdleSession(Function<Session, Mono<Boolean>> request) {
+        Session session = idleSessions.poll();
+        if (session == null) {
+            // Every seeded user is busy: the run needs more users for this rate
+            return Mono.empty();
+        }
+        return request.apply(session).doFinally(signal -> idleSessions.offer(session));
+    }
+
+    private Mono<Session> register() {
+        String email = "load-" + UUID.randomUUID() + "@example.com";
+        RegisterRequest request = RegisterRequest.builder()
+                .email(email)
+                .password(PASSWORD)
+                .firstName("Load")
+                .lastName("Test")
+                .role(Role.CLIENT)
+                .build();
+        return client.post().uri("/register")
+                .bodyValue(request)
+                .retrieve()
+                .bodyToMono(TokenResponse.class)
+                .map(response -> new Session(email).update(response))
+                .onErrorResume(e -> Mono.just(new Session(email)));
+    }
+
+    private Mono<Boolean> login(Session session) {
+        return client.post().uri("/login")
+                .bodyValue(LoginRequest.builder().email(session.email).password(PASSWORD).build())
+                .retrieve()
+                .bodyToMono(TokenResponse.class)
+                .map(response -> session.update(response) != null)
+                .onErrorReturn(false);
+    }
+
+    private Mono<Boolean> refresh(Session session) {
+        return client.post().uri("/refresh-token")
+                .bodyValue(RefreshTokenRequest.builder().refreshToken(session.refreshToken).build())
+                .retrieve()
+                .bodyToMono(TokenResponse.class)
+                .map(response -> session.update(response) != null)
+                .onErrorReturn(false);
+    }
+
+    private Mono<Boolean> currentUser() {
+        Session session = sessions.get(ThreadLocalRandom.current().nextInt(sessions.size()));
+        return client.get().uri("/user")
+                .header(HttpHeaders.AUTHORIZATION, "Bearer " + session.accessToken)
+                .retrieve()
+                .toBodilessEntity()
+                .map(response -> true)
+                .onErrorReturn(false);
+    }
+
+    private static final class Session {
+
+        private final String email;
+        private volatile String accessToken;
+        private volatile String refreshToken;
+
+        private Session(String email) {
+            this.email = email;
+        }
+
+        private Session update(TokenResponse response) {
+            accessToken = response.getToken();
+            refreshToken = response.getRefreshToken();
+            return this;
+        }
+    }
+}
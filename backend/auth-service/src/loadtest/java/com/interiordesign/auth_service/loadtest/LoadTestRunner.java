@@ -0,0 +1,255 @@
+package com.interiordesign.auth_service.loadtest;
+
+import com.fasterxml.jackson.databind.ObjectMapper;
+import com.fasterxml.jackson.databind.SerializationFeature;
+import com.interiordesign.auth_service.AuthServiceApplication;
+import io.zonky.test.db.postgres.embedded.EmbeddedPostgres;
+import jdk.jfr.Configuration;
+import jdk.jfr.Recording;
+import org.HdrHistogram.ConcurrentHistogram;
+import org.HdrHistogram.Histogram;
+import org.springframework.boot.builder.SpringApplicationBuilder;
+import org.springframework.boot.web.reactive.context.ReactiveWebServerApplicationContext;
+import org.springframework.context.ConfigurableApplicationContext;
+import org.springframework.http.client.reactive.ReactorClientHttpConnector;
+import org.springframework.web.reactive.function.client.WebClient;
+import reactor.core.publisher.Mono;
+import reactor.netty.http.client.HttpClient;
+import reactor.netty.resources.ConnectionProvider;
+
+import java.io.IOException;
+import java.lang.management.ManagementFactory;
+import java.nio.file.Files;
+import java.nio.file.Path;
+import java.text.ParseException;
+import java.time.Duration;
+import java.time.LocalDateTime;
+import java.time.format.DateTimeFormatter;
+import java.util.EnumMap;
+import java.util.LinkedHashMap;
+import java.util.Map;
+import java.util.concurrent.TimeUnit;
+import java.util.concurrent.atomic.AtomicInteger;
+import java.util.concurrent.atomic.LongAdder;
+import java.util.concurrent.locks.LockSupport;
+
+/**
+ * Boots the service against an embedded Postgres and drives the auth endpoints with an open-model
+ * load: requests are sent at a fixed arrival rate whether or not earlier ones have completed, and
+ * latency is measured from each request's scheduled send time, so a stalled server shows up as
+ * latency instead of a lower request rate.
+ * <p>
+ * Every run writes a JSON summary and a JFR recording of the measured phase to the output
+ * directory. Client and server share the JVM, so allocation and CPU per request include the load
+ * generator; that share is the same from commit to commit, which is what the numbers are for.
+ */
+public final class LoadTestRunner {
+
+    private static final long HIGHEST_TRACKABLE_MICROS = TimeUnit.MINUTES.toMicros(1);
+
+    private LoadTestRunner() {
+    }
+
+    public static void main(String[] args) throws Exception {
+        LoadTestSettings settings = LoadTestSettings.parse(args);
+        Files.createDirectories(settings.output());
+        String runId = LocalDateTime.now().format(DateTimeFormatter.ofPattern("yyyyMMdd-HHmmss"));
+
+        try (EmbeddedPostgres postgres = EmbeddedPostgres.builder().start();
+             ConfigurableApplicationContext application = startApplication(postgres.getPort())) {
+            int port = ((ReactiveWebServerApplicationContext) application).getWebServer().getPort();
+            AuthScenario scenario = new AuthScenario(webClient(port, settings.maxInFlight()), settings.mix());
+
+            System.out.printf("Seeding %d users%n", settings.users());
+            scenario.seed(settings.users());
+
+            System.out.printf("Warming up for %ds at %d req/s%n", settings.warmup().toSeconds(), settings.rate());
+            drive(scenario, settings, settings.warmup());
+
+            System.out.printf("Measuring for %ds at %d req/s%n", settings.duration().toSeconds(), settings.rate());
+            Recording recording = startRecording(settings.jfrSettings());
+            RunResult result = drive(scenario, settings, settings.duration());
+            if (recording != null) {
+                recording.stop();
+                recording.dump(settings.output().resolve(runId + ".jfr"));
+                recording.close();
+            }
+
+            report(result, settings, settings.output().resolve(runId + ".json"));
+        }
+    }
+
+    private static ConfigurableApplicationContext startApplication(int databasePort) {
+        // Command line arguments take precedence over application.yml
+        return new SpringApplicationBuilder(AuthServiceApplication.class).run(
+                "--server.port=0",
+                "--spring.r2dbc.url=r2dbc:postgresql://localhost:" + databasePort + "/postgres",
+                "--spring.r2dbc.username=postgres",
+                "--spring.r2dbc.password=postgres",
+                "--spring.sql.init.mode=always",
+                "--token.cleanup.enabled=false",
+                "--email.outbox.enabled=false",
+                "--rate-limit.enabled=false",
+                "--server.shutdown=immediate",
+                "--logging.level.org.springframework.r2dbc=WARN",
+                "--logging.level.com.interiordesign=WARN");
+    }
+
+    private static WebClient webClient(int port, int maxConnections) {
+        ConnectionProvider connections = ConnectionProvider.builder("load-test")
+                .maxConnections(maxConnections)
+                .pendingAcquireMaxCount(-1)
+                .build();
+        return WebClient.builder()
+                .baseUrl("http://localhost:" + port + "/api/auth")
+                .clientConnector(new ReactorClientHttpConnector(HttpClient.create(connections)))
+                .build();
+    }
+
+    private static Recording startRecording(String jfrSettings) throws IOException, ParseException {
+        if ("none".equals(jfrSettings)) {
+            return null;
+        }
+        Recording recording = new Recording(Configuration.getConfiguration(jfrSettings));
+        recording.setName("auth-load-test");
+        recording.start();
+        return recording;
+    }
+
+    private static RunResult drive(AuthScenario scenario, LoadTestSettings settings, Duration length)
+            throws InterruptedException {
+        Map<AuthScenario.Endpoint, EndpointStats> stats = new EnumMap<>(AuthScenario.Endpoint.class);
+        for (AuthScenario.Endpoint endpoint : AuthScenario.Endpoint.values()) {
+            stats.put(endpoint, new EndpointStats());
+        }
+        AtomicInteger inFlight = new AtomicInteger();
+        ResourceUsage before = ResourceUsage.now();
+
+        long interval = TimeUnit.SECONDS.toNanos(1) / settings.rate();
+        long start = System.nanoTime();
+        long end = start + length.toNanos();
+        long scheduled = 0;
+        long now;
+        while ((now = System.nanoTime()) < end) {
+            long due = (now - start) / interval + 1;
+            for (; scheduled < due; scheduled++) {
+                long intendedStart = start + scheduled * interval;
+                AuthScenario.Endpoint endpoint = scenario.nextEndpoint();
+                EndpointStats endpointStats = stats.get(endpoint);
+                if (inFlight.incrementAndGet() > settings.maxInFlight()) {
+                    // Too many outstanding requests: the server has fallen behind the arrival rate
+                    inFlight.decrementAndGet();
+                    endpointStats.dropped.increment();
+                    continue;
+                }
+                scenario.execute(endpoint)
+                        .onErrorReturn(false)
+                        .switchIfEmpty(Mono.fromRunnable(endpointStats.skipped::increment))
+                        .doFinally(signal -> inFlight.decrementAndGet())
+                        .subscribe(success -> endpointStats.record(System.nanoTime() - intendedStart, success));
+            }
+            LockSupport.parkNanos(Math.min(interval, TimeUnit.MILLISECONDS.toNanos(1)));
+        }
+
+        long drainDeadline = System.nanoTime() + TimeUnit.SECONDS.toNanos(30);
+        while (inFlight.get() > 0 && System.nanoTime() < drainDeadline) {
+            Thread.sleep(10);
+        }
+        return new RunResult(stats, Duration.ofNanos(System.nanoTime() - start), ResourceUsage.now().minus(before));
+    }
+
+    private static void report(RunResult result, LoadTestSettings settings, Path file) throws IOException {
+        Map<String, Object> summary = new LinkedHashMap<>();
+        summary.put("rate", settings.rate());
+        summary.put("durationSeconds", result.elapsed().toMillis() / 1000.0);
+        summary.put("mix", settings.mix());
+
+        Histogram total = new Histogram(HIGHEST_TRACKABLE_MICROS, 3);
+        long completed = 0;
+        Map<String, Object> endpoints = new LinkedHashMap<>();
+        System.out.printf("%n%-10s %9s %8s %8s %8s %9s %9s %9s %9s%n",
+                "endpoint", "requests", "errors", "skipped", "dropped", "p50 ms", "p99 ms", "p999 ms", "max ms");
+        for (Map.Entry<AuthScenario.Endpoint, EndpointStats> entry : result.stats().entrySet()) {
+            EndpointStats stats = entry.getValue();
+            Histogram latency = stats.latencyMicros.copy();
+            total.add(latency);
+            completed += latency.getTotalCount();
+            endpoints.put(entry.getKey().name().toLowerCase(), stats.toMap(latency));
+            System.out.printf("%-10s %9d %8d %8d %8d %9.2f %9.2f %9.2f %9.2f%n", entry.getKey().name().toLowerCase(),
+                    latency.getTotalCount(), stats.failed.sum(), stats.skipped.sum(), stats.dropped.sum(),
+                    millis(latency, 50), millis(latency, 99), millis(latency, 99.9), latency.getMaxValue() / 1000.0);
+        }
+
+        double seconds = result.elapsed().toNanos() / 1e9;
+        double throughput = completed / seconds;
+        ResourceUsage usage = result.usage();
+        summary.put("throughput", throughput);
+        summary.put("latencyMs", Map.of("p50", millis(total, 50), "p99", millis(total, 99),
+                "p999", millis(total, 99.9), "max", total.getMaxValue() / 1000.0));
+        summary.put("allocatedBytesPerRequest", completed == 0 ? 0 : usage.allocatedBytes() / completed);
+        summary.put("cpuMicrosPerRequest", completed == 0 ? 0 : usage.cpuNanos() / 1000.0 / completed);
+        summary.put("endpoints", endpoints);
+
+        System.out.printf("%nThroughput %.1f req/s, p50 %.2f ms, p99 %.2f ms, p999 %.2f ms%n",
+                throughput, millis(total, 50), millis(total, 99), millis(total, 99.9));
+        System.out.printf("Allocated %d bytes and %.1f us CPU per request%n",
+                summary.get("allocatedBytesPerRequest"), summary.get("cpuMicrosPerRequest"));
+
+        new ObjectMapper().enable(SerializationFeature.INDENT_OUTPUT).writeValue(file.toFile(), summary);
+        System.out.println("Results written to " + file);
+    }
+
+    private static double millis(Histogram histogram, double percentile) {
+        return histogram.getValueAtPercentile(percentile) / 1000.0;
+    }
+
+    private record RunResult(Map<AuthScenario.Endpoint, EndpointStats> stats, Duration elapsed, ResourceUsage usage) {
+    }
+
+    private static final class EndpointStats {
+
+        private final ConcurrentHistogram latencyMicros = new ConcurrentHistogram(HIGHEST_TRACKABLE_MICROS, 3);
+        private final LongAdder failed = new LongAdder();
+        private final LongAdder skipped = new LongAdder();
+        private final LongAdder dropped = new LongAdder();
+
+        private void record(long latencyNanos, boolean success) {
+            latencyMicros.recordValue(Math.min(TimeUnit.NANOSECONDS.toMicros(latencyNanos), HIGHEST_TRACKABLE_MICROS));
+            if (!success) {
+                failed.increment();
+            }
+        }
+
+        private Map<String, Object> toMap(Histogram latency) {
+            Map<String, Object> values = new LinkedHashMap<>();
+            values.put("requests", latency.getTotalCount());
+            values.put("errors", failed.sum());
+            values.put("skipped", skipped.sum());
+            values.put("dropped", dropped.sum());
+            values.put("p50Ms", millis(latency, 50));
+            values.put("p99Ms", millis(latency, 99));
+            values.put("p999Ms", millis(latency, 99.9));
+            values.put("maxMs", latency.getMaxValue() / 1000.0);
+            return values;
+        }
+    }
+
+    private record ResourceUsage(long allocatedBytes, long cpuNanos) {
+
+        static ResourceUsage now() {
+            com.sun.management.ThreadMXBean threads = (com.sun.management.ThreadMXBean) ManagementFactory.getThreadMXBean();
+            com.sun.management.OperatingSystemMXBean os =
+                    (com.sun.management.OperatingSystemMXBean) ManagementFactory.getOperatingSystemMXBean();
+            // Live threads only; the event loop and worker threads that carry the load are long-lived
+            long allocated = 0;
+            for (long bytes : threads.getThreadAllocatedBytes(threads.getAllThreadIds())) {
+                allocated += Math.max(bytes, 0);
+            }
+            return new ResourceUsage(allocated, os.getProcessCpuTime());
+        }
+
+        ResourceUsage minus(ResourceUsage earlier) {
+            return new ResourceUsage(allocatedBytes - earlier.allocatedBytes, cpuNanos - earlier.cpuNanos);
+        }
+    }
+}
@@ -0,0 +1,52 @@
+package com.interiordesign.auth_service.loadtest;
+
+import java.nio.file.Path;
+import java.time.Duration;
+import java.util.EnumMap;
+import java.util.HashMap;
+import java.util.Map;
+
+/**
+ * Load test settings, given as {@code key=value} arguments. Every setting has a default.
+ */
+record LoadTestSettings(int rate,
+                        Duration warmup,
+                        Duration duration,
+                        int users,
+                        int maxInFlight,
+                        Map<AuthScenario.Endpoint, Integer> mix,
+                        String jfrSettings,
+                        Path output) {
+
+    static LoadTestSettings parse(String[] args) {
+        Map<String, String> values = new HashMap<>();
+        for (String arg : args) {
+            int separator = arg.indexOf('=');
+            if (separator < 1) {
+                throw new IllegalArgumentException("Expected key=value but got '" + arg + "'");
+            }
+            values.put(arg.substring(0, separator), arg.substring(separator + 1));
+        }
+
+        return new LoadTestSettings(
+                Integer.parseInt(values.getOrDefault("rate", "50")),
+                Duration.ofSeconds(Long.parseLong(values.getOrDefault("warmup", "15"))),
+                Duration.ofSeconds(Long.parseLong(values.getOrDefault("duration", "60"))),
+                Integer.parseInt(values.getOrDefault("users", "200")),
+                Integer.parseInt(values.getOrDefault("max-in-flight", "512")),
+                parseMix(values.getOrDefault("mix", "login=20,refresh=20,user=55,register=5")),
+                values.getOrDefault("jfr", "profile"),
+                Path.of(values.getOrDefault("output", "target/loadtest")));
+    }
+
+    // e.g. login=20,refresh=20,user=55,register=5; weights need not add up to 100
+    private static Map<AuthScenario.Endpoint, Integer> parseMix(String mix) {
+        Map<AuthScenario.Endpoint, Integer> weights = new EnumMap<>(AuthScenario.Endpoint.class);
+        for (String entry : mix.split(",")) {
+            String[] parts = entry.split(":|=");
+            weights.put(AuthScenario.Endpoint.valueOf(parts[0].trim().toUpperCase().replace('-', '_')),
+                    Integer.parseInt(parts[1].trim()));
+        }
+        return weights;
+    }
+}
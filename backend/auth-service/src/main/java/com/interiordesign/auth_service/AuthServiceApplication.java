@@ -1,11 +1,15 @@
 package com.interiordesign.auth_service;
 
+import com.interiordesign.auth_service.service.EmailTemplateRenderer;
+import org.springframework.beans.factory.annotation.Value;
 import org.springframework.boot.SpringApplication;
 import org.springframework.boot.autoconfigure.SpringBootApplication;
 import org.springframework.context.annotation.Bean;
 import org.springframework.data.r2dbc.repository.config.EnableR2dbcRepositories;
+import org.springframework.scheduling.annotation.EnableScheduling;
 import org.springframework.web.reactive.config.EnableWebFlux;
 import org.thymeleaf.TemplateEngine;
+import org.thymeleaf.cache.StandardCacheManager;
 import org.thymeleaf.spring6.SpringTemplateEngine;
 import org.thymeleaf.templatemode.TemplateMode;
 import org.thymeleaf.templateresolver.ClassLoaderTemplateResolver;
@@ -14,6 +18,7 @@ import org.thymeleaf.templateresolver.ITemplateResolver;
 @SpringBootApplication
 @EnableWebFlux
 @EnableR2dbcRepositories
+@EnableScheduling
 public class AuthServiceApplication {
 
 	public static void main(String[] args) {
@@ -21,19 +26,25 @@ public class AuthServiceApplication {
 	}
 
 	@Bean
-	public TemplateEngine emailTemplateEngine() {
+	public TemplateEngine emailTemplateEngine(@Value("${email.templates.cache:true}") boolean cacheable,
+											  @Value("${email.templates.cache-max-size:50}") int cacheMaxSize) {
+		final StandardCacheManager cacheManager = new StandardCacheManager();
+		cacheManager.setTemplateCacheMaxSize(cacheMaxSize);
+
 		final SpringTemplateEngine templateEngine = new SpringTemplateEngine();
-		templateEngine.addTemplateResolver(htmlTemplateResolver());
+		templateEngine.setCacheManager(cacheManager);
+		templateEngine.addTemplateResolver(htmlTemplateResolver(cacheable));
 		return templateEngine;
 	}
 
-	private ITemplateResolver htmlTemplateResolver() {
+	private ITemplateResolver htmlTemplateResolver(boolean cacheable) {
 		final ClassLoaderTemplateResolver templateResolver = new ClassLoaderTemplateResolver();
-		templateResolver.setPrefix("templates/email/");
-		templateResolver.setSuffix(".html");
+		templateResolver.setPrefix(EmailTemplateRenderer.TEMPLATE_PREFIX);
+		templateResolver.setSuffix(EmailTemplateRenderer.TEMPLATE_SUFFIX);
 		templateResolver.setTemplateMode(TemplateMode.HTML);
 		templateResolver.setCharacterEncoding("UTF-8");
-		templateResolver.setCacheable(false);
+		// Parsed templates stay cached until evicted; turn off in development for hot reload
+		templateResolver.setCacheable(cacheable);
 		return templateResolver;
 	}
 }
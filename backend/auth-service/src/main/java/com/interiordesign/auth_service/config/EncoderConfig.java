@@ -1,15 +1,75 @@
 package com.interiordesign.auth_service.config;
 
+import io.micrometer.core.instrument.Gauge;
+import io.micrometer.core.instrument.MeterRegistry;
+import lombok.extern.slf4j.Slf4j;
+import org.springframework.beans.factory.annotation.Value;
 import org.springframework.context.annotation.Bean;
 import org.springframework.context.annotation.Configuration;
 import org.springframework.security.crypto.bcrypt.BCryptPasswordEncoder;
 import org.springframework.security.crypto.password.PasswordEncoder;
 
+import java.time.Duration;
+
+@Slf4j
 @Configuration
 public class EncoderConfig {
 
+    /**
+     * BCrypt at {@code password.bcrypt.strength}, or, when that is 0, at the cost calibrated for this
+     * machine. Hashes are written without a {@code {bcrypt}} prefix, so nodes still running the
+     * previous release verify them during a rolling deploy. {@link PasswordEncoder#upgradeEncoding}
+     * reports hashes below the current cost; hashes above it are left alone.
+     */
     @Bean
-    public PasswordEncoder passwordEncoder() {
-        return new BCryptPasswordEncoder();
+    public PasswordEncoder passwordEncoder(MeterRegistry meterRegistry,
+                                           @Value("${password.bcrypt.strength:10}") int strength,
+                                           @Value("${password.bcrypt.target-latency:250ms}") Duration targetLatency,
+                                           @Value("${password.bcrypt.min-strength:10}") int minStrength,
+                                           @Value("${password.bcrypt.max-strength:14}") int maxStrength) {
+        int cost = strength > 0 ? strength : calibrate(targetLatency, minStrength, maxStrength);
+        Gauge.builder("auth.password.bcrypt.strength", () -> cost)
+                .description("BCrypt cost used for new password hashes")
+                .register(meterRegistry);
+
+        return new BCryptPasswordEncoder(cost);
+    }
+
+    /**
+     * Picks the highest cost whose hash time stays within the target. Each step doubles the work,
+     * so the search stops as soon as the next step is predicted to overshoot; it never goes below
+     * the minimum, however slow the machine.
+     */
+    static int calibrate(Duration targetLatency, int minStrength, int maxStrength) {
+        long target = targetLatency.toNanos();
+        timeHash(minStrength);
+
+        int chosen = minStrength;
+        long elapsed = 0;
+        for (int cost = minStrength; cost <= maxStrength; cost++) {
+            elapsed = timeHash(cost);
+            if (elapsed > target && cost > minStrength) {
+                break;
+            }
+            chosen = cost;
+            if (elapsed * 2 > target) {
+                break;
+            }
+        }
+
+        if (chosen == minStrength && elapsed > target) {
+            log.warn("BCrypt cost {} takes {} ms, above the {} ms target; using it as the minimum",
+                    minStrength, elapsed / 1_000_000, targetLatency.toMillis());
+        } else {
+            log.info("Calibrated BCrypt cost {} for a {} ms target", chosen, targetLatency.toMillis());
+        }
+        return chosen;
+    }
+
+    private static long timeHash(int cost) {
+        BCryptPasswordEncoder encoder = new BCryptPasswordEncoder(cost);
+        long start = System.nanoTime();
+        encoder.encode("calibration");
+        return System.nanoTime() - start;
     }
 }
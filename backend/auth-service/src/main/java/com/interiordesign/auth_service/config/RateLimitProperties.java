@@ -0,0 +1,40 @@
+package com.interiordesign.auth_service.config;
+
+import lombok.Data;
+import org.springframework.boot.context.properties.ConfigurationProperties;
+import org.springframework.stereotype.Component;
+
+import java.time.Duration;
+import java.util.LinkedHashMap;
+import java.util.Map;
+
+/**
+ * Per-endpoint request limits, checked by client IP and by the email in the request body.
+ * Bound from {@code rate-limit.*}; a map of endpoints does not fit individual {@code @Value}s.
+ */
+@Data
+@Component
+@ConfigurationProperties(prefix = "rate-limit")
+public class RateLimitProperties {
+
+    private boolean enabled = true;
+    private int stripes = 64;
+    private int maxKeysPerStripe = 4096;
+    private Duration idleTimeout = Duration.ofMinutes(10);
+    private Map<String, Endpoint> endpoints = new LinkedHashMap<>();
+
+    @Data
+    public static class Endpoint {
+        private String method = "POST";
+        private String path;
+        private Limit perIp;
+        private Limit perEmail;
+    }
+
+    @Data
+    public static class Limit {
+        // Burst size; the bucket refills at capacity tokens per period
+        private int capacity;
+        private Duration period;
+    }
+}
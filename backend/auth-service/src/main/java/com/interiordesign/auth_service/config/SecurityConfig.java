@@ -1,14 +1,19 @@
 package com.interiordesign.auth_service.config;
 
 import com.interiordesign.auth_service.security.AuthenticationManager;
+import com.interiordesign.auth_service.security.GatewayClientAuthenticationManager;
 import com.interiordesign.auth_service.security.SecurityContextRepository;
+import org.springframework.beans.factory.annotation.Value;
 import org.springframework.context.annotation.Bean;
 import org.springframework.context.annotation.Configuration;
+import org.springframework.core.Ordered;
+import org.springframework.core.annotation.Order;
 import org.springframework.http.HttpMethod;
 import org.springframework.http.HttpStatus;
 import org.springframework.security.config.annotation.web.reactive.EnableWebFluxSecurity;
 import org.springframework.security.config.web.server.ServerHttpSecurity;
 import org.springframework.security.web.server.SecurityWebFilterChain;
+import org.springframework.security.web.server.context.NoOpServerSecurityContextRepository;
 import org.springframework.security.web.server.util.matcher.ServerWebExchangeMatchers;
 import reactor.core.publisher.Mono;
 
@@ -25,6 +30,38 @@ public class SecurityConfig {
         this.securityContextRepository = securityContextRepository;
     }
 
+    /**
+     * Token introspection is for the gateway only: it authenticates with HTTP Basic client
+     * credentials rather than a user's bearer token, and holds no session.
+     */
+    @Bean
+    @Order(Ordered.HIGHEST_PRECEDENCE)
+    public SecurityWebFilterChain introspectionWebFilterChain(
+            ServerHttpSecurity http,
+            @Value("${introspection.client-id:gateway}") String clientId,
+            @Value("${introspection.client-secret:}") String clientSecret) {
+
+        return http
+                .securityMatcher(ServerWebExchangeMatchers.pathMatchers(HttpMethod.POST, "/api/auth/introspect/batch"))
+                .authorizeExchange(exchange -> exchange
+                        .anyExchange().hasRole(GatewayClientAuthenticationManager.ROLE)
+                )
+                .csrf(csrf -> csrf.disable())
+                .formLogin(formLoginSpec -> formLoginSpec.disable())
+                .httpBasic(httpBasicSpec -> httpBasicSpec
+                        .authenticationManager(new GatewayClientAuthenticationManager(clientId, clientSecret)))
+                .securityContextRepository(NoOpServerSecurityContextRepository.getInstance())
+                .exceptionHandling(exceptionHandlingSpec -> exceptionHandlingSpec
+                        .authenticationEntryPoint((swe, e) ->
+                                Mono.fromRunnable(() ->
+                                        swe.getResponse().setStatusCode(HttpStatus.UNAUTHORIZED)))
+                        .accessDeniedHandler((swe, e) ->
+                                Mono.fromRunnable(() ->
+                                        swe.getResponse().setStatusCode(HttpStatus.FORBIDDEN)))
+                )
+                .build();
+    }
+
     @Bean
     public SecurityWebFilterChain securityWebFilterChain(ServerHttpSecurity http) {
 
@@ -34,6 +71,10 @@ public class SecurityConfig {
                         .pathMatchers(HttpMethod.OPTIONS).permitAll()
                         .pathMatchers("/api/auth/login", "/api/auth/register", "/api/auth/refresh-token",
                                 "/api/auth/reset-password", "/api/auth/reset-password/**").permitAll()
+                        .pathMatchers(HttpMethod.GET, "/.well-known/jwks.json").permitAll()
+                        // Probes for the orchestrator; they report a status and nothing else
+                        .pathMatchers(HttpMethod.GET, "/actuator/health/liveness", "/actuator/health/readiness")
+                        .permitAll()
                         .pathMatchers("/api/auth/user").authenticated()
                         .pathMatchers("/api/auth/admin/**").hasRole("ADMIN")
                         .anyExchange().authenticated()
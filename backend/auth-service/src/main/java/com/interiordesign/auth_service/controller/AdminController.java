@@ -0,0 +1,106 @@
+package com.interiordesign.auth_service.controller;
+
+import com.interiordesign.auth_service.dto.response.MessageResponse;
+import com.interiordesign.auth_service.dto.response.UserImportResult;
+import com.interiordesign.auth_service.dto.response.UserPageResponse;
+import com.interiordesign.auth_service.model.Role;
+import com.interiordesign.auth_service.repository.UserQueryRepository.UserFilter;
+import com.interiordesign.auth_service.service.UserExportService;
+import com.interiordesign.auth_service.service.UserImportService;
+import com.interiordesign.auth_service.service.UserListingService;
+import com.interiordesign.auth_service.service.UserService;
+import lombok.RequiredArgsConstructor;
+import org.springframework.http.MediaType;
+import org.springframework.http.ResponseEntity;
+import org.springframework.http.server.reactive.ServerHttpResponse;
+import org.springframework.web.bind.annotation.GetMapping;
+import org.springframework.web.bind.annotation.PathVariable;
+import org.springframework.web.bind.annotation.PostMapping;
+import org.springframework.web.bind.annotation.RequestBody;
+import org.springframework.web.bind.annotation.RequestMapping;
+import org.springframework.web.bind.annotation.RequestParam;
+import org.springframework.web.bind.annotation.RestController;
+import org.springframework.web.reactive.accept.HeaderContentTypeResolver;
+import org.springframework.web.server.ServerWebExchange;
+import reactor.core.publisher.Flux;
+import reactor.core.publisher.Mono;
+
+import java.time.Instant;
+
+/**
+ * Administration endpoints; access is restricted to admins by the /api/auth/admin/** rule.
+ */
+@RestController
+@RequestMapping("/api/auth/admin")
+@RequiredArgsConstructor
+public class AdminController {
+
+    static final String TEXT_CSV = "text/csv";
+
+    private final UserImportService userImportService;
+    private final UserListingService userListingService;
+    private final UserExportService userExportService;
+    private final UserService userService;
+    private final HeaderContentTypeResolver contentTypeResolver = new HeaderContentTypeResolver();
+
+    // Dates are ISO-8601 instants; createdFrom is inclusive and createdTo exclusive
+    @GetMapping("/users")
+    public Mono<UserPageResponse> listUsers(@RequestParam(required = false) Role role,
+                                            @RequestParam(required = false) Boolean enabled,
+                                            @RequestParam(required = false) Instant createdFrom,
+                                            @RequestParam(required = false) Instant createdTo,
+                                            @RequestParam(required = false) String cursor,
+                                            @RequestParam(required = false) Integer limit) {
+        return userListingService.listUsers(new UserFilter(role, enabled, createdFrom, createdTo), cursor, limit);
+    }
+
+    // The body is decoded line by line as it arrives, and results stream back per row
+    @PostMapping(value = "/users/import", consumes = MediaType.APPLICATION_NDJSON_VALUE,
+            produces = MediaType.APPLICATION_NDJSON_VALUE)
+    public Flux<UserImportResult> importUsersFromNdjson(@RequestBody Flux<String> lines) {
+        return userImportService.importUsers(lines, UserImportService.Format.NDJSON);
+    }
+
+    @PostMapping(value = "/users/import", consumes = TEXT_CSV, produces = MediaType.APPLICATION_NDJSON_VALUE)
+    public Flux<UserImportResult> importUsersFromCsv(@RequestBody Flux<String> lines) {
+        return userImportService.importUsers(lines, UserImportService.Format.CSV);
+    }
+
+    // Logs the user out of every device: all access and refresh tokens stop working on every node
+    @PostMapping("/users/{id}/logout")
+    public Mono<ResponseEntity<MessageResponse>> logoutEverywhere(@PathVariable Long id) {
+        return userService.endAllSessions(id)
+                .map(user -> ResponseEntity.ok(MessageResponse.builder()
+                        .success(true)
+                        .message("All sessions of the user have been ended")
+                        .build()))
+                .defaultIfEmpty(ResponseEntity.notFound().build());
+    }
+
+    // Resume a broken download with after=<id of the last row received>
+    @GetMapping(value = "/users/export", produces = {MediaType.APPLICATION_NDJSON_VALUE, TEXT_CSV})
+    public Mono<Void> exportUsers(@RequestParam(required = false) Long after, ServerWebExchange exchange) {
+        MediaType contentType = exportContentType(exchange);
+        UserExportService.Format format = contentType.getSubtype().equals("csv")
+                ? UserExportService.Format.CSV
+                : UserExportService.Format.NDJSON;
+
+        ServerHttpResponse response = exchange.getResponse();
+        response.getHeaders().setContentType(contentType);
+        return response.writeWith(userExportService.export(format, after, response.bufferFactory()));
+    }
+
+    // The first of the two formats in the client's order of preference, NDJSON by default
+    private MediaType exportContentType(ServerWebExchange exchange) {
+        MediaType csv = MediaType.parseMediaType(TEXT_CSV);
+        for (MediaType accepted : contentTypeResolver.resolveMediaTypes(exchange)) {
+            if (accepted.includes(MediaType.APPLICATION_NDJSON)) {
+                return MediaType.APPLICATION_NDJSON;
+            }
+            if (accepted.includes(csv)) {
+                return csv;
+            }
+        }
+        return MediaType.APPLICATION_NDJSON;
+    }
+}
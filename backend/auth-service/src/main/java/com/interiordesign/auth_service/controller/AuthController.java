@@ -1,19 +1,26 @@
 package com.interiordesign.auth_service.controller;
 
 import com.interiordesign.auth_service.dto.request.*;
+import com.interiordesign.auth_service.dto.response.BatchIntrospectionResponse;
 import com.interiordesign.auth_service.dto.response.MessageResponse;
 import com.interiordesign.auth_service.dto.response.TokenResponse;
 import com.interiordesign.auth_service.dto.response.UserResponse;
 import com.interiordesign.auth_service.model.User;
+import com.interiordesign.auth_service.security.AuthenticationMode;
+import com.interiordesign.auth_service.security.TokenClaims;
+import com.interiordesign.auth_service.service.AccessTokenRevocationService;
 import com.interiordesign.auth_service.service.AuthService;
 import com.interiordesign.auth_service.service.RefreshTokenService;
+import com.interiordesign.auth_service.service.TokenIntrospectionService;
 import com.interiordesign.auth_service.service.UserService;
 import jakarta.validation.Valid;
 import lombok.RequiredArgsConstructor;
+import org.springframework.beans.factory.annotation.Value;
 import org.springframework.http.HttpStatus;
 import org.springframework.http.ResponseEntity;
 import org.springframework.security.core.Authentication;
 import org.springframework.web.bind.annotation.*;
+import org.springframework.web.server.ServerWebExchange;
 import reactor.core.publisher.Mono;
 
 @RestController
@@ -24,6 +31,11 @@ public class AuthController {
     private final AuthService authService;
     private final UserService userService;
     private final RefreshTokenService refreshTokenService;
+    private final TokenIntrospectionService tokenIntrospectionService;
+    private final AccessTokenRevocationService accessTokenRevocationService;
+
+    @Value("${jwt.authentication-mode:database}")
+    private AuthenticationMode authenticationMode;
 
     @PostMapping("/login")
     public Mono<ResponseEntity<TokenResponse>> login(@Valid @RequestBody LoginRequest request) {
@@ -33,8 +45,15 @@ public class AuthController {
     }
 
     @PostMapping("/logout")
-    public Mono<ResponseEntity<MessageResponse>> logout(@RequestBody RefreshTokenRequest request) {
+    public Mono<ResponseEntity<MessageResponse>> logout(@RequestBody RefreshTokenRequest request,
+                                                        Authentication authentication) {
+        // The access token the request was made with stops working on every node, not just the refresh token
+        Mono<Void> revokeAccessToken =
+                authentication != null && authentication.getDetails() instanceof TokenClaims claims
+                        ? accessTokenRevocationService.revoke(claims)
+                        : Mono.empty();
         return refreshTokenService.deleteByToken(request.getRefreshToken())
+                .then(revokeAccessToken)
                 .then(Mono.just(ResponseEntity.ok(
                         MessageResponse.builder()
                                 .success(true)
@@ -53,23 +72,33 @@ public class AuthController {
     @GetMapping("/user")
     public Mono<ResponseEntity<UserResponse>> getCurrentUser(Authentication authentication) {
         User user = (User) authentication.getPrincipal();
-        return Mono.just(ResponseEntity.ok(mapUserToResponse(user)));
+        // In claims mode the principal only carries id, email and role, so load the full profile
+        Mono<User> currentUser = authenticationMode == AuthenticationMode.CLAIMS
+                ? userService.findById(user.getId())
+                : Mono.just(user);
+        return currentUser
+                .map(UserResponse::from)
+                .map(ResponseEntity::ok)
+                .defaultIfEmpty(ResponseEntity.notFound().build());
     }
 
+    // A new email ends every session, this one included; the client logs in again with it
     @PutMapping("/user")
     public Mono<ResponseEntity<UserResponse>> updateUser(
             @Valid @RequestBody UpdateUserRequest request,
             Authentication authentication) {
         User user = (User) authentication.getPrincipal();
         return userService.updateUser(user.getId(), request)
-                .map(this::mapUserToResponse)
+                .map(UserResponse::from)
                 .map(ResponseEntity::ok)
                 .defaultIfEmpty(ResponseEntity.notFound().build());
     }
 
     @PostMapping("/reset-password")
-    public Mono<ResponseEntity<MessageResponse>> requestPasswordReset(@Valid @RequestBody PasswordResetRequest request) {
-        return authService.initiatePasswordReset(request.getEmail())
+    public Mono<ResponseEntity<MessageResponse>> requestPasswordReset(@Valid @RequestBody PasswordResetRequest request,
+                                                                      ServerWebExchange exchange) {
+        // The Accept-Language locale selects the localized email template, if there is one
+        return authService.initiatePasswordReset(request.getEmail(), exchange.getLocaleContext().getLocale())
                 .then(Mono.just(ResponseEntity.ok(
                         MessageResponse.builder()
                                 .success(true)
@@ -109,15 +138,10 @@ public class AuthController {
                 .defaultIfEmpty(ResponseEntity.status(HttpStatus.UNAUTHORIZED).build());
     }
 
-    private UserResponse mapUserToResponse(User user) {
-        return UserResponse.builder()
-                .id(user.getId())
-                .email(user.getEmail())
-                .firstName(user.getFirstName())
-                .lastName(user.getLastName())
-                .role(user.getRole())
-                .createdAt(user.getCreatedAt())
-                .updatedAt(user.getUpdatedAt())
-                .build();
+    @PostMapping("/introspect/batch")
+    public Mono<ResponseEntity<BatchIntrospectionResponse>> introspectBatch(
+            @Valid @RequestBody IntrospectBatchRequest request) {
+        return tokenIntrospectionService.introspect(request.getTokens())
+                .map(results -> ResponseEntity.ok(BatchIntrospectionResponse.builder().results(results).build()));
     }
-}
\ No newline at end of file
+}
@@ -0,0 +1,48 @@
+package com.interiordesign.auth_service.controller;
+
+import com.interiordesign.auth_service.security.SigningKeyRing;
+import org.springframework.beans.factory.annotation.Value;
+import org.springframework.http.CacheControl;
+import org.springframework.http.HttpStatus;
+import org.springframework.http.MediaType;
+import org.springframework.http.ResponseEntity;
+import org.springframework.web.bind.annotation.GetMapping;
+import org.springframework.web.bind.annotation.RestController;
+import org.springframework.web.server.ResponseStatusException;
+
+import java.time.Duration;
+
+/**
+ * Publishes the token verification keys. Responses carry an ETag, so a verifier revalidating its
+ * cached copy gets a 304 without a body, and may keep using a stale copy while this service is down.
+ */
+@RestController
+public class JwksController {
+
+    static final MediaType JWK_SET = MediaType.parseMediaType("application/jwk-set+json");
+
+    private final SigningKeyRing signingKeyRing;
+    private final CacheControl cacheControl;
+
+    public JwksController(SigningKeyRing signingKeyRing,
+                          @Value("${jwt.signing.jwks-max-age:10m}") Duration maxAge,
+                          @Value("${jwt.signing.jwks-stale-if-error:1d}") Duration staleIfError) {
+        this.signingKeyRing = signingKeyRing;
+        this.cacheControl = CacheControl.maxAge(maxAge).cachePublic().staleIfError(staleIfError);
+    }
+
+    @GetMapping("/.well-known/jwks.json")
+    public ResponseEntity<byte[]> jwks() {
+        SigningKeyRing.Jwks jwks = signingKeyRing.jwks();
+        if (jwks == null) {
+            // Never let a verifier cache an empty set
+            throw new ResponseStatusException(HttpStatus.SERVICE_UNAVAILABLE, "Signing keys are not loaded yet");
+        }
+        // The result handler answers If-None-Match with a 304 from the ETag
+        return ResponseEntity.ok()
+                .eTag(jwks.etag())
+                .cacheControl(cacheControl)
+                .contentType(JWK_SET)
+                .body(jwks.document());
+    }
+}
@@ -0,0 +1,19 @@
+package com.interiordesign.auth_service.dto.request;
+
+import jakarta.validation.constraints.NotEmpty;
+import lombok.AllArgsConstructor;
+import lombok.Builder;
+import lombok.Data;
+import lombok.NoArgsConstructor;
+
+import java.util.List;
+
+@Data
+@Builder
+@NoArgsConstructor
+@AllArgsConstructor
+public class IntrospectBatchRequest {
+
+    @NotEmpty(message = "At least one token is required")
+    private List<String> tokens;
+}
@@ -0,0 +1,17 @@
+package com.interiordesign.auth_service.dto.response;
+
+import lombok.AllArgsConstructor;
+import lombok.Builder;
+import lombok.Data;
+import lombok.NoArgsConstructor;
+
+import java.util.List;
+
+@Data
+@Builder
+@NoArgsConstructor
+@AllArgsConstructor
+public class BatchIntrospectionResponse {
+    // In the order of the tokens in the request
+    private List<IntrospectionResponse> results;
+}
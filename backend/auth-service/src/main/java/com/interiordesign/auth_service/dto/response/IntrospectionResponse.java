@@ -0,0 +1,31 @@
+package com.interiordesign.auth_service.dto.response;
+
+import com.fasterxml.jackson.annotation.JsonInclude;
+import com.interiordesign.auth_service.model.Role;
+import lombok.AllArgsConstructor;
+import lombok.Builder;
+import lombok.Data;
+import lombok.NoArgsConstructor;
+
+/**
+ * The state of one access token, after RFC 7662: an inactive token carries nothing but
+ * {@code active: false}, whatever the reason. Times are seconds since the epoch.
+ */
+@Data
+@Builder
+@JsonInclude(JsonInclude.Include.NON_NULL)
+@NoArgsConstructor
+@AllArgsConstructor
+public class IntrospectionResponse {
+
+    private boolean active;
+    private String sub;
+    private Long userId;
+    private Role role;
+    private Long iat;
+    private Long exp;
+
+    public static IntrospectionResponse inactive() {
+        return IntrospectionResponse.builder().active(false).build();
+    }
+}
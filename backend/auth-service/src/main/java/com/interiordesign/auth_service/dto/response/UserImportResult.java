@@ -0,0 +1,29 @@
+package com.interiordesign.auth_service.dto.response;
+
+import lombok.AllArgsConstructor;
+import lombok.Builder;
+import lombok.Data;
+import lombok.NoArgsConstructor;
+
+/**
+ * The outcome of one row of a bulk import; {@code line} is the row's line number in the upload.
+ */
+@Data
+@Builder
+@NoArgsConstructor
+@AllArgsConstructor
+public class UserImportResult {
+
+    public enum Status {
+        CREATED,
+        DUPLICATE,
+        INVALID,
+        FAILED
+    }
+
+    private long line;
+    private Status status;
+    private String email;
+    private Long id;
+    private String error;
+}
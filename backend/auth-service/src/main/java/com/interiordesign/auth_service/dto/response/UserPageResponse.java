@@ -0,0 +1,21 @@
+package com.interiordesign.auth_service.dto.response;
+
+import lombok.AllArgsConstructor;
+import lombok.Builder;
+import lombok.Data;
+import lombok.NoArgsConstructor;
+
+import java.util.List;
+
+/**
+ * One page of users, newest first; {@code nextCursor} fetches the following page and is null on
+ * the last one.
+ */
+@Data
+@Builder
+@NoArgsConstructor
+@AllArgsConstructor
+public class UserPageResponse {
+    private List<UserSummary> users;
+    private String nextCursor;
+}
@@ -1,6 +1,7 @@
 package com.interiordesign.auth_service.dto.response;
 
 import com.interiordesign.auth_service.model.Role;
+import com.interiordesign.auth_service.model.User;
 import lombok.AllArgsConstructor;
 import lombok.Builder;
 import lombok.Data;
@@ -20,4 +21,16 @@ public class UserResponse {
     private Role role;
     private Instant createdAt;
     private Instant updatedAt;
-}
\ No newline at end of file
+
+    public static UserResponse from(User user) {
+        return UserResponse.builder()
+                .id(user.getId())
+                .email(user.getEmail())
+                .firstName(user.getFirstName())
+                .lastName(user.getLastName())
+                .role(user.getRole())
+                .createdAt(user.getCreatedAt())
+                .updatedAt(user.getUpdatedAt())
+                .build();
+    }
+}
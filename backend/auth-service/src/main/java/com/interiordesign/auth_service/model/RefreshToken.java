@@ -8,6 +8,7 @@ import org.springframework.data.annotation.Id;
 import org.springframework.data.relational.core.mapping.Table;
 
 import java.time.Instant;
+import java.util.UUID;
 
 @Data
 @Builder
@@ -18,9 +19,13 @@ public class RefreshToken {
 
     @Id
     private Long id;
-    private String token;
+    private byte[] tokenHash;
     private Long userId;
+    // Every token rotated from the same login shares a family; replaying a rotated token revokes it
+    private UUID familyId;
     private Instant expiryDate;
     private boolean revoked;
+    // When it was revoked or rotated; revoked rows are kept for a while after this to detect replays
+    private Instant revokedAt;
     private Instant createdAt;
 }
\ No newline at end of file
@@ -15,7 +15,7 @@ import java.util.Collection;
 import java.util.List;
 
 @Data
-@Builder
+@Builder(toBuilder = true)
 @NoArgsConstructor
 @AllArgsConstructor
 @Table("users")
@@ -32,6 +32,8 @@ public class User implements UserDetails {
     private boolean accountNonExpired;
     private boolean accountNonLocked;
     private boolean credentialsNonExpired;
+    // Access tokens issued with an older version are no longer accepted
+    private int tokenVersion;
     private Instant createdAt;
     private Instant updatedAt;
 
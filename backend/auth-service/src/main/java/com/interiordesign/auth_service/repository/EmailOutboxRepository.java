@@ -0,0 +1,42 @@
+package com.interiordesign.auth_service.repository;
+
+import com.interiordesign.auth_service.model.EmailOutboxMessage;
+import org.springframework.data.r2dbc.repository.Modifying;
+import org.springframework.data.r2dbc.repository.Query;
+import org.springframework.data.repository.reactive.ReactiveCrudRepository;
+import org.springframework.stereotype.Repository;
+import reactor.core.publisher.Flux;
+import reactor.core.publisher.Mono;
+
+import java.time.Instant;
+
+@Repository
+public interface EmailOutboxRepository extends ReactiveCrudRepository<EmailOutboxMessage, Long> {
+
+    // Leases due messages to this worker. Rows left in SENDING by a crashed worker become due
+    // again once their lease runs out; SKIP LOCKED keeps concurrent workers apart.
+    @Query("""
+            UPDATE email_outbox SET status = 'SENDING', attempts = attempts + 1, next_attempt_at = :leaseUntil
+            WHERE id IN (
+                SELECT id FROM email_outbox
+                WHERE status IN ('PENDING', 'SENDING') AND next_attempt_at <= now()
+                ORDER BY next_attempt_at
+                LIMIT :limit
+                FOR UPDATE SKIP LOCKED
+            )
+            RETURNING *
+            """)
+    Flux<EmailOutboxMessage> claimDue(int limit, Instant leaseUntil);
+
+    @Modifying
+    @Query("UPDATE email_outbox SET status = 'SENT', sent_at = now(), last_error = NULL WHERE id = ANY(:ids)")
+    Mono<Integer> markSent(Long[] ids);
+
+    @Modifying
+    @Query("UPDATE email_outbox SET status = :status, next_attempt_at = :nextAttemptAt, last_error = :lastError WHERE id = :id")
+    Mono<Integer> markFailed(Long id, String status, Instant nextAttemptAt, String lastError);
+
+    @Query("SELECT COALESCE(EXTRACT(EPOCH FROM now() - MIN(created_at)), 0) FROM email_outbox "
+            + "WHERE status IN ('PENDING', 'SENDING')")
+    Mono<Double> oldestPendingAgeSeconds();
+}
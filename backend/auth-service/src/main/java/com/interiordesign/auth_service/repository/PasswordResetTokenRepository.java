@@ -1,12 +1,45 @@
 package com.interiordesign.auth_service.repository;
 
 import com.interiordesign.auth_service.model.PasswordResetToken;
+import org.springframework.data.r2dbc.repository.Query;
 import org.springframework.data.repository.reactive.ReactiveCrudRepository;
 import org.springframework.stereotype.Repository;
 import reactor.core.publisher.Mono;
 
+import java.time.Instant;
+
 @Repository
 public interface PasswordResetTokenRepository extends ReactiveCrudRepository<PasswordResetToken, Long> {
     Mono<PasswordResetToken> findByToken(String token);
     Mono<Void> deleteByUserId(Long userId);
-}
\ No newline at end of file
+
+    // Resolves the user, clears earlier tokens, stores the new one and queues the reset email
+    // in a single statement, so the token and its email are written atomically; empty when no
+    // user has that email
+    @Query("""
+            WITH target AS (
+                SELECT id, email FROM users WHERE email = :email
+            ), cleared AS (
+                DELETE FROM password_reset_tokens WHERE user_id IN (SELECT id FROM target)
+            ), created AS (
+                INSERT INTO password_reset_tokens (token, user_id, expiry_date, used, created_at)
+                SELECT :token, id, :expiryDate, false, now() FROM target
+                RETURNING user_id
+            )
+            INSERT INTO email_outbox (recipient, subject, template, variables, locale, status, attempts, next_attempt_at, created_at)
+            SELECT target.email, :subject, :template, :variables, :locale, 'PENDING', 0, now(), now()
+            FROM created JOIN target ON target.id = created.user_id
+            RETURNING id
+            """)
+    Mono<Long> replaceTokenAndQueueEmail(String email, String token, Instant expiryDate,
+                                         String subject, String template, String variables,
+                                         String locale);
+
+    // Marks the token used only if it is still valid; concurrent callers cannot both succeed
+    @Query("""
+            UPDATE password_reset_tokens SET used = true
+            WHERE token = :token AND used = false AND expiry_date > now()
+            RETURNING user_id
+            """)
+    Mono<Long> consumeToken(String token);
+}
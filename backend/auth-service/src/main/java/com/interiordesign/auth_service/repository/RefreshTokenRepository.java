@@ -1,14 +1,51 @@
 package com.interiordesign.auth_service.repository;
 
 import com.interiordesign.auth_service.model.RefreshToken;
+import org.springframework.data.r2dbc.repository.Modifying;
+import org.springframework.data.r2dbc.repository.Query;
 import org.springframework.data.repository.reactive.ReactiveCrudRepository;
 import org.springframework.stereotype.Repository;
 import reactor.core.publisher.Flux;
 import reactor.core.publisher.Mono;
 
+import java.time.Instant;
+
 @Repository
 public interface RefreshTokenRepository extends ReactiveCrudRepository<RefreshToken, Long> {
-    Mono<RefreshToken> findByToken(String token);
-    Flux<RefreshToken> findByUserId(Long userId);
-    Mono<Void> deleteByUserId(Long userId);
-}
\ No newline at end of file
+
+    @Modifying
+    @Query("UPDATE refresh_tokens SET revoked = true, revoked_at = now() WHERE user_id = :userId AND revoked = false")
+    Mono<Integer> revokeAllByUserId(Long userId);
+
+    @Query("UPDATE refresh_tokens SET revoked = true, revoked_at = now() "
+            + "WHERE token_hash = :tokenHash AND revoked = false RETURNING user_id")
+    Mono<Long> revokeByTokenHash(byte[] tokenHash);
+
+    // Consumes the presented token and inserts its successor in one statement. Concurrent callers
+    // serialise on the row lock, so only one of them sees revoked = false and gets a user id back.
+    @Query("""
+            WITH consumed AS (
+                UPDATE refresh_tokens SET revoked = true, revoked_at = now()
+                WHERE token_hash = :presentedHash AND revoked = false AND expiry_date > now()
+                RETURNING user_id, family_id
+            )
+            INSERT INTO refresh_tokens (token_hash, user_id, family_id, expiry_date, revoked, created_at)
+            SELECT :newHash, user_id, COALESCE(family_id, gen_random_uuid()), :expiryDate, false, now()
+            FROM consumed
+            RETURNING user_id
+            """)
+    Mono<Long> rotate(byte[] presentedHash, byte[] newHash, Instant expiryDate);
+
+    // Acts only when the presented token is on record as revoked: rotated, logged out or caught
+    // before. Unknown and expired tokens match nothing. Legacy rows predate families, so replaying
+    // one deliberately logs the user out on every device, as there is no narrower set to revoke.
+    @Query("""
+            UPDATE refresh_tokens t SET revoked = true, revoked_at = now()
+            FROM (SELECT user_id, family_id FROM refresh_tokens WHERE token_hash = :tokenHash AND revoked) reused
+            WHERE t.revoked = false
+              AND t.user_id = reused.user_id
+              AND (reused.family_id IS NULL OR t.family_id = reused.family_id)
+            RETURNING t.user_id
+            """)
+    Flux<Long> revokeFamilyOfReusedToken(byte[] tokenHash);
+}
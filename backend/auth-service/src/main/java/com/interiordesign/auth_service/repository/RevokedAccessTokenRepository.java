@@ -0,0 +1,61 @@
+package com.interiordesign.auth_service.repository;
+
+import lombok.RequiredArgsConstructor;
+import org.springframework.r2dbc.core.DatabaseClient;
+import org.springframework.stereotype.Repository;
+import reactor.core.publisher.Flux;
+import reactor.core.publisher.Mono;
+
+import java.time.Instant;
+import java.util.UUID;
+
+/**
+ * The revoked_access_tokens table, from which nodes rebuild their deny list at startup, and the
+ * notification channel that tells running nodes about each new revocation.
+ */
+@Repository
+@RequiredArgsConstructor
+public class RevokedAccessTokenRepository {
+
+    public static final String CHANNEL = "access_token_revoked";
+
+    private final DatabaseClient databaseClient;
+
+    public record RevokedToken(String tokenId, Instant expiresAt) {
+    }
+
+    /**
+     * Records the revocation and notifies every listening node, in one statement. The
+     * notification is only delivered once the row is committed, so a node that reloads the table
+     * after missing it still finds the row. False when the token was already revoked.
+     */
+    public Mono<Boolean> revoke(String tokenId, Instant expiresAt) {
+        return databaseClient.sql("WITH revoked AS ("
+                        + "INSERT INTO revoked_access_tokens (jti, expires_at) VALUES (:jti, :expiresAt) "
+                        + "ON CONFLICT (jti) DO NOTHING RETURNING jti, expires_at) "
+                        + "SELECT pg_notify('" + CHANNEL + "', "
+                        + "jti::text || ' ' || floor(extract(epoch FROM expires_at))::bigint) FROM revoked")
+                .bind("jti", UUID.fromString(tokenId))
+                .bind("expiresAt", expiresAt)
+                .map(row -> Boolean.TRUE)
+                .one()
+                .defaultIfEmpty(false);
+    }
+
+    public Flux<RevokedToken> findUnexpired(Instant now) {
+        return databaseClient.sql("SELECT jti, expires_at FROM revoked_access_tokens WHERE expires_at > :now")
+                .bind("now", now)
+                .map(row -> new RevokedToken(row.get("jti", UUID.class).toString(),
+                        row.get("expires_at", Instant.class)))
+                .all();
+    }
+
+    /**
+     * Parses a notification payload, {@code "<jti> <expiry in epoch seconds>"}.
+     */
+    public static RevokedToken parseNotification(String payload) {
+        int separator = payload.indexOf(' ');
+        return new RevokedToken(payload.substring(0, separator),
+                Instant.ofEpochSecond(Long.parseLong(payload.substring(separator + 1))));
+    }
+}
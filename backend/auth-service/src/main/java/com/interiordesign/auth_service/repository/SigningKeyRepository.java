@@ -0,0 +1,63 @@
+package com.interiordesign.auth_service.repository;
+
+import com.interiordesign.auth_service.security.SigningKey;
+import lombok.RequiredArgsConstructor;
+import org.springframework.r2dbc.core.DatabaseClient;
+import org.springframework.stereotype.Repository;
+import reactor.core.publisher.Flux;
+import reactor.core.publisher.Mono;
+
+import java.time.Instant;
+
+/**
+ * Storage for the token signing keys shared by all nodes. A key is retired once a newer one has
+ * been active for longer than any token lives, because nothing it signed can still be valid.
+ */
+@Repository
+@RequiredArgsConstructor
+public class SigningKeyRepository {
+
+    private static final String NOT_RETIRED = "NOT EXISTS (SELECT 1 FROM signing_keys n "
+            + "WHERE n.generation > k.generation AND n.activates_at <= :retiredBefore)";
+
+    private final DatabaseClient databaseClient;
+
+    public Flux<SigningKey> findUnretired(Instant retiredBefore) {
+        return databaseClient.sql("SELECT generation, kid, private_key, public_key, activates_at "
+                        + "FROM signing_keys k WHERE " + NOT_RETIRED + " ORDER BY generation")
+                .bind("retiredBefore", retiredBefore)
+                .map(row -> SigningKey.decode(
+                        row.get("generation", Integer.class),
+                        row.get("kid", String.class),
+                        row.get("private_key", byte[].class),
+                        row.get("public_key", byte[].class),
+                        row.get("activates_at", Instant.class)))
+                .all();
+    }
+
+    /**
+     * Stores the key unless another node already created this generation; true when it was stored.
+     */
+    public Mono<Boolean> insertIfAbsent(SigningKey key) {
+        return databaseClient.sql("INSERT INTO signing_keys "
+                        + "(generation, kid, algorithm, private_key, public_key, activates_at, created_at) "
+                        + "VALUES (:generation, :kid, :algorithm, :privateKey, :publicKey, :activatesAt, now()) "
+                        + "ON CONFLICT (generation) DO NOTHING")
+                .bind("generation", key.generation())
+                .bind("kid", key.kid())
+                .bind("algorithm", SigningKey.ALGORITHM)
+                .bind("privateKey", key.privateKey().getEncoded())
+                .bind("publicKey", key.publicKey().getEncoded())
+                .bind("activatesAt", key.activatesAt())
+                .fetch()
+                .rowsUpdated()
+                .map(inserted -> inserted > 0);
+    }
+
+    public Mono<Long> deleteRetired(Instant retiredBefore) {
+        return databaseClient.sql("DELETE FROM signing_keys k WHERE NOT (" + NOT_RETIRED + ")")
+                .bind("retiredBefore", retiredBefore)
+                .fetch()
+                .rowsUpdated();
+    }
+}
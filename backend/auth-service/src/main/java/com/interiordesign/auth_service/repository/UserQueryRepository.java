@@ -0,0 +1,338 @@
+package com.interiordesign.auth_service.repository;
+
+import com.interiordesign.auth_service.dto.response.UserResponse;
+import com.interiordesign.auth_service.dto.response.UserSummary;
+import com.interiordesign.auth_service.model.Role;
+import com.interiordesign.auth_service.model.User;
+import io.r2dbc.spi.Readable;
+import lombok.RequiredArgsConstructor;
+import org.springframework.r2dbc.core.DatabaseClient;
+import org.springframework.stereotype.Repository;
+import reactor.core.publisher.Flux;
+import reactor.core.publisher.Mono;
+
+import java.time.Instant;
+import java.util.Collection;
+import java.util.List;
+
+/**
+ * Hand-written statements for the user write paths and set-based reads: each call is exactly
+ * one round trip.
+ */
+@Repository
+@RequiredArgsConstructor
+public class UserQueryRepository {
+
+    static final String USER_COLUMNS = "id, email, password, first_name, last_name, role, enabled, "
+            + "account_non_expired, account_non_locked, credentials_non_expired, token_version, "
+            + "created_at, updated_at";
+
+    public static final String TOKEN_VERSION_CHANNEL = "token_version_bumped";
+
+    private static final String SUMMARY_COLUMNS = "id, email, first_name, last_name, role, enabled, "
+            + "account_non_expired, account_non_locked, credentials_non_expired, created_at, updated_at";
+
+    private static final String REVOKE_REFRESH_TOKENS = "revoked AS ("
+            + "UPDATE refresh_tokens SET revoked = true, revoked_at = now() WHERE user_id = :id AND revoked = false) ";
+
+    private final DatabaseClient databaseClient;
+
+    public record ProfileUpdate(User user, String previousEmail) {
+    }
+
+    /**
+     * Listing filters; null fields do not filter. {@code createdFrom} is inclusive and
+     * {@code createdTo} exclusive.
+     */
+    public record UserFilter(Role role, Boolean enabled, Instant createdFrom, Instant createdTo) {
+    }
+
+    /**
+     * The position of the last user of a page in the listing order.
+     */
+    public record PagePosition(Instant createdAt, long id) {
+    }
+
+    public record TokenVersionBump(Long userId, int tokenVersion) {
+    }
+
+    /**
+     * Inserts the user unless the email is taken; empty when it already exists.
+     */
+    public Mono<User> insertIfAbsent(User user) {
+        return databaseClient.sql("INSERT INTO users (email, password, first_name, last_name, role, enabled, "
+                        + "account_non_expired, account_non_locked, credentials_non_expired, created_at, updated_at) "
+                        + "VALUES (:email, :password, :firstName, :lastName, :role, :enabled, "
+                        + ":accountNonExpired, :accountNonLocked, :credentialsNonExpired, :createdAt, :updatedAt) "
+                        + "ON CONFLICT (email) DO NOTHING "
+                        + "RETURNING " + USER_COLUMNS)
+                .bind("email", user.getEmail())
+                .bind("password", user.getPassword())
+                .bind("firstName", user.getFirstName())
+                .bind("lastName", user.getLastName())
+                .bind("role", user.getRole().name())
+                .bind("enabled", user.isEnabled())
+                .bind("accountNonExpired", user.isAccountNonExpired())
+                .bind("accountNonLocked", user.isAccountNonLocked())
+                .bind("credentialsNonExpired", user.isCredentialsNonExpired())
+                .bind("createdAt", user.getCreatedAt())
+                .bind("updatedAt", user.getUpdatedAt())
+                .map(UserQueryRepository::mapUser)
+                .one();
+    }
+
+    /**
+     * Inserts the users in one statement, skipping emails that are taken, including by an earlier
+     * user in the same list; returns the inserted rows.
+     */
+    public Flux<User> insertAllIfAbsent(List<User> users, Instant createdAt) {
+        int size = users.size();
+        String[] emails = new String[size];
+        String[] passwords = new String[size];
+        String[] firstNames = new String[size];
+        String[] lastNames = new String[size];
+        String[] roles = new String[size];
+        for (int i = 0; i < size; i++) {
+            User user = users.get(i);
+            emails[i] = user.getEmail();
+            passwords[i] = user.getPassword();
+            firstNames[i] = user.getFirstName();
+            lastNames[i] = user.getLastName();
+            roles[i] = user.getRole().name();
+        }
+        return databaseClient.sql("INSERT INTO users (email, password, first_name, last_name, role, enabled, "
+                        + "account_non_expired, account_non_locked, credentials_non_expired, created_at, updated_at) "
+                        + "SELECT email, password, first_name, last_name, role, TRUE, TRUE, TRUE, TRUE, "
+                        + ":createdAt, :createdAt "
+                        + "FROM unnest(CAST(:emails AS varchar[]), CAST(:passwords AS varchar[]), "
+                        + "CAST(:firstNames AS varchar[]), CAST(:lastNames AS varchar[]), CAST(:roles AS varchar[])) "
+                        + "AS rows(email, password, first_name, last_name, role) "
+                        + "ON CONFLICT (email) DO NOTHING "
+                        + "RETURNING " + USER_COLUMNS)
+                .bind("emails", emails)
+                .bind("passwords", passwords)
+                .bind("firstNames", firstNames)
+                .bind("lastNames", lastNames)
+                .bind("roles", roles)
+                .bind("createdAt", createdAt)
+                .map(UserQueryRepository::mapUser)
+                .all();
+    }
+
+    /**
+     * Sets the password and ends every session of the user: the token version is bumped, the
+     * refresh tokens are revoked and the other nodes are notified, all in one statement.
+     */
+    public Mono<User> updatePassword(Long id, String encodedPassword, Instant updatedAt) {
+        return databaseClient.sql("WITH updated AS ("
+                        + "UPDATE users SET password = :password, updated_at = :updatedAt, "
+                        + "token_version = token_version + 1 "
+                        + "WHERE id = :id RETURNING " + USER_COLUMNS + "), "
+                        + REVOKE_REFRESH_TOKENS
+                        + "SELECT updated.*, " + notifyTokenVersion("updated") + " FROM updated")
+                .bind("password", encodedPassword)
+                .bind("updatedAt", updatedAt)
+                .bind("id", id)
+                .map(UserQueryRepository::mapUser)
+                .one();
+    }
+
+    /**
+     * Swaps in a new hash of the same password; empty if the password was changed in the meantime.
+     */
+    public Mono<User> replacePasswordHash(Long id, String currentHash, String newHash) {
+        return databaseClient.sql("UPDATE users SET password = :newHash "
+                        + "WHERE id = :id AND password = :currentHash RETURNING " + USER_COLUMNS)
+                .bind("newHash", newHash)
+                .bind("id", id)
+                .bind("currentHash", currentHash)
+                .map(UserQueryRepository::mapUser)
+                .one();
+    }
+
+    /**
+     * Ends every session of the user in one statement, as {@link #updatePassword} does, without
+     * changing anything else; empty if there is no such user.
+     */
+    public Mono<User> bumpTokenVersion(Long id, Instant updatedAt) {
+        return databaseClient.sql("WITH updated AS ("
+                        + "UPDATE users SET token_version = token_version + 1, updated_at = :updatedAt "
+                        + "WHERE id = :id RETURNING " + USER_COLUMNS + "), "
+                        + REVOKE_REFRESH_TOKENS
+                        + "SELECT updated.*, " + notifyTokenVersion("updated") + " FROM updated")
+                .bind("updatedAt", updatedAt)
+                .bind("id", id)
+                .map(UserQueryRepository::mapUser)
+                .one();
+    }
+
+    public Mono<Integer> findTokenVersion(Long id) {
+        return databaseClient.sql("SELECT token_version FROM users WHERE id = :id")
+                .bind("id", id)
+                .map(row -> row.get("token_version", Integer.class))
+                .one();
+    }
+
+    /**
+     * Applies the non-null fields and returns the updated row together with the email it had before.
+     * A new email ends every session of the user, as {@link #updatePassword} does: the token version
+     * is bumped and the refresh tokens are revoked, so no token issued to the old address keeps working.
+     */
+    public Mono<ProfileUpdate> updateProfile(Long id, String firstName, String lastName, String email,
+                                             Instant updatedAt) {
+        DatabaseClient.GenericExecuteSpec spec = databaseClient.sql("WITH previous AS ("
+                        + "SELECT id, email FROM users WHERE id = :id FOR UPDATE), "
+                        + "updated AS (UPDATE users u SET "
+                        + "first_name = COALESCE(:firstName, u.first_name), "
+                        + "last_name = COALESCE(:lastName, u.last_name), "
+                        + "email = COALESCE(:email, u.email), "
+                        + "token_version = CASE WHEN COALESCE(:email, u.email) <> u.email "
+                        + "THEN u.token_version + 1 ELSE u.token_version END, "
+                        + "updated_at = :updatedAt "
+                        + "FROM previous WHERE u.id = previous.id "
+                        + "RETURNING " + prefixed("u", USER_COLUMNS) + ", previous.email AS previous_email), "
+                        + "revoked AS (UPDATE refresh_tokens SET revoked = true, revoked_at = now() "
+                        + "WHERE user_id IN (SELECT id FROM updated WHERE email <> previous_email) "
+                        + "AND revoked = false) "
+                        + "SELECT updated.*, (SELECT " + notifyTokenVersion("updated")
+                        + " WHERE updated.email <> updated.previous_email) FROM updated")
+                .bind("id", id)
+                .bind("updatedAt", updatedAt);
+        spec = bindNullable(spec, "firstName", firstName);
+        spec = bindNullable(spec, "lastName", lastName);
+        spec = bindNullable(spec, "email", email);
+
+        return spec.map(row -> new ProfileUpdate(mapUser(row), row.get("previous_email", String.class)))
+                .one();
+    }
+
+    /**
+     * Loads every listed user in one statement, whatever the number of ids; missing ids are skipped.
+     */
+    public Flux<User> findAllById(Collection<Long> ids) {
+        return databaseClient.sql("SELECT " + USER_COLUMNS + " FROM users WHERE id = ANY(:ids)")
+                .bind("ids", ids.toArray(new Long[0]))
+                .map(UserQueryRepository::mapUser)
+                .all();
+    }
+
+    /**
+     * Up to {@code limit} users matching the filter, newest first, starting after {@code after}
+     * (or from the newest when null). Seeks on {@code (created_at, id)} instead of skipping rows,
+     * so every page costs the same index range scan however deep it is.
+     */
+    public Flux<UserSummary> findPage(UserFilter filter, PagePosition after, int limit) {
+        StringBuilder sql = new StringBuilder("SELECT ").append(SUMMARY_COLUMNS).append(" FROM users WHERE TRUE");
+        // Only the filters in use go into the statement, so the planner can match them to an index
+        if (filter.role() != null) {
+            sql.append(" AND role = :role");
+        }
+        if (filter.enabled() != null) {
+            sql.append(filter.enabled() ? " AND enabled" : " AND NOT enabled");
+        }
+        if (filter.createdFrom() != null) {
+            sql.append(" AND created_at >= :createdFrom");
+        }
+        if (filter.createdTo() != null) {
+            sql.append(" AND created_at < :createdTo");
+        }
+        if (after != null) {
+            sql.append(" AND (created_at, id) < (:afterCreatedAt, :afterId)");
+        }
+        sql.append(" ORDER BY created_at DESC, id DESC LIMIT :limit");
+
+        DatabaseClient.GenericExecuteSpec spec = databaseClient.sql(sql.toString()).bind("limit", limit);
+        if (filter.role() != null) {
+            spec = spec.bind("role", filter.role().name());
+        }
+        if (filter.createdFrom() != null) {
+            spec = spec.bind("createdFrom", filter.createdFrom());
+        }
+        if (filter.createdTo() != null) {
+            spec = spec.bind("createdTo", filter.createdTo());
+        }
+        if (after != null) {
+            spec = spec.bind("afterCreatedAt", after.createdAt()).bind("afterId", after.id());
+        }
+        return spec.map(UserQueryRepository::mapSummary).all();
+    }
+
+    /**
+     * Every user with an id above {@code afterId}, in id order. Rows are read through a portal
+     * {@code fetchSize} at a time as the subscriber asks for them, so the result set is never
+     * held in memory; the call keeps one connection for as long as the stream runs.
+     */
+    public Flux<UserResponse> streamAll(long afterId, int fetchSize) {
+        return databaseClient.sql("SELECT id, email, first_name, last_name, role, created_at, updated_at "
+                        + "FROM users WHERE id > :afterId ORDER BY id")
+                .bind("afterId", afterId)
+                .filter(statement -> statement.fetchSize(fetchSize))
+                .map(row -> UserResponse.builder()
+                        .id(row.get("id", Long.class))
+                        .email(row.get("email", String.class))
+                        .firstName(row.get("first_name", String.class))
+                        .lastName(row.get("last_name", String.class))
+                        .role(Role.valueOf(row.get("role", String.class)))
+                        .createdAt(row.get("created_at", Instant.class))
+                        .updatedAt(row.get("updated_at", Instant.class))
+                        .build())
+                .all();
+    }
+
+    static User mapUser(Readable row) {
+        return User.builder()
+                .id(row.get("id", Long.class))
+                .email(row.get("email", String.class))
+                .password(row.get("password", String.class))
+                .firstName(row.get("first_name", String.class))
+                .lastName(row.get("last_name", String.class))
+                .role(Role.valueOf(row.get("role", String.class)))
+                .enabled(Boolean.TRUE.equals(row.get("enabled", Boolean.class)))
+                .accountNonExpired(Boolean.TRUE.equals(row.get("account_non_expired", Boolean.class)))
+                .accountNonLocked(Boolean.TRUE.equals(row.get("account_non_locked", Boolean.class)))
+                .credentialsNonExpired(Boolean.TRUE.equals(row.get("credentials_non_expired", Boolean.class)))
+                .tokenVersion(row.get("token_version", Integer.class))
+                .createdAt(row.get("created_at", Instant.class))
+                .updatedAt(row.get("updated_at", Instant.class))
+                .build();
+    }
+
+    private static UserSummary mapSummary(Readable row) {
+        return UserSummary.builder()
+                .id(row.get("id", Long.class))
+                .email(row.get("email", String.class))
+                .firstName(row.get("first_name", String.class))
+                .lastName(row.get("last_name", String.class))
+                .role(Role.valueOf(row.get("role", String.class)))
+                .enabled(Boolean.TRUE.equals(row.get("enabled", Boolean.class)))
+                .accountNonExpired(Boolean.TRUE.equals(row.get("account_non_expired", Boolean.class)))
+                .accountNonLocked(Boolean.TRUE.equals(row.get("account_non_locked", Boolean.class)))
+                .credentialsNonExpired(Boolean.TRUE.equals(row.get("credentials_non_expired", Boolean.class)))
+                .createdAt(row.get("created_at", Instant.class))
+                .updatedAt(row.get("updated_at", Instant.class))
+                .build();
+    }
+
+    /**
+     * Parses a {@link #TOKEN_VERSION_CHANNEL} payload, {@code "<user id> <new token version>"}.
+     */
+    public static TokenVersionBump parseTokenVersionNotification(String payload) {
+        int separator = payload.indexOf(' ');
+        return new TokenVersionBump(Long.parseLong(payload.substring(0, separator)),
+                Integer.parseInt(payload.substring(separator + 1)));
+    }
+
+    // Delivered when the bumping transaction commits
+    private static String notifyTokenVersion(String alias) {
+        return "pg_notify('" + TOKEN_VERSION_CHANNEL + "', " + alias + ".id || ' ' || " + alias + ".token_version)";
+    }
+
+    private static DatabaseClient.GenericExecuteSpec bindNullable(DatabaseClient.GenericExecuteSpec spec,
+                                                                  String name, String value) {
+        return value != null ? spec.bind(name, value) : spec.bindNull(name, String.class);
+    }
+
+    private static String prefixed(String alias, String columns) {
+        return alias + "." + columns.replace(", ", ", " + alias + ".");
+    }
+}
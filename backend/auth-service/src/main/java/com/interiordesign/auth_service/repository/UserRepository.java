@@ -8,5 +8,4 @@ import reactor.core.publisher.Mono;
 @Repository
 public interface UserRepository extends ReactiveCrudRepository<User, Long> {
     Mono<User> findByEmail(String email);
-    Mono<Boolean> existsByEmail(String email);
 }
\ No newline at end of file
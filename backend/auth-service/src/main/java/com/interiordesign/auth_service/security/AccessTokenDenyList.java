@@ -0,0 +1,72 @@
+package com.interiordesign.auth_service.security;
+
+import com.github.benmanes.caffeine.cache.Cache;
+import com.github.benmanes.caffeine.cache.Caffeine;
+import com.github.benmanes.caffeine.cache.Expiry;
+import com.github.benmanes.caffeine.cache.Scheduler;
+import io.micrometer.core.instrument.Gauge;
+import io.micrometer.core.instrument.MeterRegistry;
+import org.springframework.stereotype.Component;
+
+import java.time.Duration;
+import java.time.Instant;
+
+/**
+ * The ids of revoked access tokens that have not expired yet, held in memory on every node so a
+ * bearer token is checked without any I/O. An entry is dropped once its token expires, since the
+ * signature check rejects the token from then on; the set therefore never outgrows the revocations
+ * of one access token lifetime. Kept in step with the database by AccessTokenRevocationService.
+ */
+@Component
+public class AccessTokenDenyList {
+
+    private final Cache<String, Instant> revoked;
+
+    public AccessTokenDenyList(MeterRegistry meterRegistry) {
+        // Never size-bounded: evicting a live revocation would let the token back in
+        this.revoked = Caffeine.newBuilder()
+                .expireAfter(new UntilTokenExpiry())
+                .scheduler(Scheduler.systemScheduler())
+                .build();
+
+        Gauge.builder("auth.tokens.denied", revoked, Cache::estimatedSize)
+                .description("Revoked access tokens that have not expired yet")
+                .register(meterRegistry);
+    }
+
+    public void add(String tokenId, Instant expiresAt) {
+        if (tokenId != null && expiresAt.isAfter(Instant.now())) {
+            revoked.put(tokenId, expiresAt);
+        }
+    }
+
+    public boolean isRevoked(String tokenId) {
+        return tokenId != null && revoked.getIfPresent(tokenId) != null;
+    }
+
+    public boolean isRevoked(TokenClaims claims) {
+        return isRevoked(claims.getTokenId());
+    }
+
+    public long size() {
+        return revoked.estimatedSize();
+    }
+
+    private static class UntilTokenExpiry implements Expiry<String, Instant> {
+
+        @Override
+        public long expireAfterCreate(String tokenId, Instant expiresAt, long currentTime) {
+            return Math.max(0, Duration.between(Instant.now(), expiresAt).toNanos());
+        }
+
+        @Override
+        public long expireAfterUpdate(String tokenId, Instant expiresAt, long currentTime, long currentDuration) {
+            return expireAfterCreate(tokenId, expiresAt, currentTime);
+        }
+
+        @Override
+        public long expireAfterRead(String tokenId, Instant expiresAt, long currentTime, long currentDuration) {
+            return currentDuration;
+        }
+    }
+}
@@ -1,41 +1,148 @@
 package com.interiordesign.auth_service.security;
 
+import com.interiordesign.auth_service.model.Role;
+import com.interiordesign.auth_service.model.User;
 import com.interiordesign.auth_service.service.UserService;
+import io.jsonwebtoken.ExpiredJwtException;
+import io.jsonwebtoken.security.SignatureException;
+import io.micrometer.core.instrument.Counter;
+import io.micrometer.core.instrument.MeterRegistry;
+import org.springframework.beans.factory.annotation.Value;
 import org.springframework.security.authentication.ReactiveAuthenticationManager;
 import org.springframework.security.authentication.UsernamePasswordAuthenticationToken;
 import org.springframework.security.core.Authentication;
+import org.springframework.security.core.userdetails.UserDetails;
 import org.springframework.stereotype.Component;
 import reactor.core.publisher.Mono;
 
+import java.util.Map;
+import java.util.concurrent.ConcurrentHashMap;
+
 @Component
 public class AuthenticationManager implements ReactiveAuthenticationManager {
 
     private final JwtUtil jwtUtil;
+    private final AccessTokenDenyList accessTokenDenyList;
+    private final TokenVersionCache tokenVersionCache;
     private final UserService userService;
+    private final AuthenticationMode authenticationMode;
+    private final MeterRegistry meterRegistry;
+    private final Map<String, Counter> failureCounters = new ConcurrentHashMap<>();
 
-    public AuthenticationManager(JwtUtil jwtUtil, UserService userService) {
+    public AuthenticationManager(JwtUtil jwtUtil, AccessTokenDenyList accessTokenDenyList,
+                                 TokenVersionCache tokenVersionCache, UserService userService,
+                                 @Value("${jwt.authentication-mode:database}") AuthenticationMode authenticationMode,
+                                 MeterRegistry meterRegistry) {
         this.jwtUtil = jwtUtil;
+        this.accessTokenDenyList = accessTokenDenyList;
+        this.tokenVersionCache = tokenVersionCache;
         this.userService = userService;
+        this.authenticationMode = authenticationMode;
+        this.meterRegistry = meterRegistry;
     }
 
     @Override
     public Mono<Authentication> authenticate(Authentication authentication) {
         String authToken = authentication.getCredentials().toString();
 
+        TokenClaims claims;
+        try {
+            claims = jwtUtil.parseToken(authToken);
+        } catch (ExpiredJwtException e) {
+            return fail("expired");
+        } catch (SignatureException e) {
+            return fail("bad-signature");
+        } catch (RuntimeException e) {
+            return fail("malformed");
+        }
+        if (accessTokenDenyList.isRevoked(claims)) {
+            return fail("revoked");
+        }
+
+        if (authenticationMode == AuthenticationMode.CLAIMS) {
+            User user = userFromClaims(claims);
+            if (user == null) {
+                return fail("not-access-token");
+            }
+            return currentTokenVersion(user.getId())
+                    .switchIfEmpty(Mono.defer(() -> fail("unknown-user")))
+                    .flatMap(version -> claims.getTokenVersion() >= version
+                            ? Mono.just(toAuthentication(user, claims))
+                            : fail("stale-version"))
+                    .doOnError(e -> countFailure("error"));
+        }
+
+        return userService.findByUsername(claims.getSubject())
+                .switchIfEmpty(Mono.defer(() -> fail("unknown-user")))
+                .flatMap(userDetails -> {
+                    if (!userDetails.isEnabled() || !userDetails.isAccountNonLocked()) {
+                        return fail("account-disabled");
+                    }
+                    if (!jwtUtil.validateToken(claims, userDetails)) {
+                        return fail("token-mismatch");
+                    }
+                    // The cached user may predate a bump heard from another node; the higher version wins
+                    if (userDetails instanceof User user && claims.getTokenVersion()
+                            < tokenVersionCache.observe(user.getId(), user.getTokenVersion())) {
+                        return fail("stale-version");
+                    }
+                    return Mono.just(toAuthentication(userDetails, claims));
+                })
+                .doOnError(e -> countFailure("error"));
+    }
+
+    // Only a user not seen for a while costs a query
+    private Mono<Integer> currentTokenVersion(Long userId) {
+        Integer cached = tokenVersionCache.get(userId);
+        if (cached != null) {
+            return Mono.just(cached);
+        }
+        return userService.findTokenVersion(userId)
+                .map(version -> tokenVersionCache.observe(userId, version));
+    }
+
+    private <T> Mono<T> fail(String reason) {
+        countFailure(reason);
+        return Mono.empty();
+    }
+
+    private void countFailure(String reason) {
+        failureCounters.computeIfAbsent(reason, key -> Counter.builder("auth.authentication.failures")
+                        .description("Bearer tokens rejected, by reason")
+                        .tag("reason", key)
+                        .register(meterRegistry))
+                .increment();
+    }
+
+    private Authentication toAuthentication(UserDetails userDetails, TokenClaims claims) {
+        UsernamePasswordAuthenticationToken auth = new UsernamePasswordAuthenticationToken(
+                userDetails,
+                null,
+                userDetails.getAuthorities()
+        );
+        auth.setDetails(claims);
+        return auth;
+    }
+
+    private User userFromClaims(TokenClaims claims) {
+        // Refresh tokens carry no role claim and must not be accepted as access tokens
+        if (claims.getUserId() == null || claims.getRole() == null || claims.getSubject() == null) {
+            return null;
+        }
+        Role role;
         try {
-            String username = jwtUtil.extractUsername(authToken);
-
-            return userService.findByUsername(username)
-                    .filter(userDetails -> jwtUtil.validateToken(authToken, userDetails))
-                    .map(userDetails -> {
-                        return new UsernamePasswordAuthenticationToken(
-                                userDetails,
-                                null,
-                                userDetails.getAuthorities()
-                        );
-                    });
-        } catch (Exception e) {
-            return Mono.empty();
+            role = Role.valueOf(claims.getRole());
+        } catch (IllegalArgumentException e) {
+            return null;
         }
+        return User.builder()
+                .id(claims.getUserId())
+                .email(claims.getSubject())
+                .role(role)
+                .enabled(true)
+                .accountNonExpired(true)
+                .accountNonLocked(true)
+                .credentialsNonExpired(true)
+                .build();
     }
-}
\ No newline at end of file
+}
@@ -0,0 +1,9 @@
+package com.interiordesign.auth_service.security;
+
+public enum AuthenticationMode {
+    // Look the user up through the per-node user cache and check the account flags, the email and the
+    // token version; a disabled or locked account is refused once its cached copy expires or is evicted
+    DATABASE,
+    // Trust the verified token claims and build the principal without any database access
+    CLAIMS
+}
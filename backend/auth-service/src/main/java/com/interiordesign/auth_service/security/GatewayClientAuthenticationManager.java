@@ -0,0 +1,41 @@
+package com.interiordesign.auth_service.security;
+
+import org.springframework.security.authentication.BadCredentialsException;
+import org.springframework.security.authentication.ReactiveAuthenticationManager;
+import org.springframework.security.authentication.UsernamePasswordAuthenticationToken;
+import org.springframework.security.core.Authentication;
+import org.springframework.security.core.authority.SimpleGrantedAuthority;
+import reactor.core.publisher.Mono;
+
+import java.nio.charset.StandardCharsets;
+import java.security.MessageDigest;
+import java.util.List;
+
+/**
+ * Authenticates the gateway by the client id and secret it sends as HTTP Basic credentials.
+ * The secret is a long random value rather than a password, so it is compared in constant time
+ * instead of hashed on every call. Nobody authenticates while no secret is configured.
+ */
+public class GatewayClientAuthenticationManager implements ReactiveAuthenticationManager {
+
+    public static final String ROLE = "GATEWAY";
+
+    private final String clientId;
+    private final byte[] clientSecret;
+
+    public GatewayClientAuthenticationManager(String clientId, String clientSecret) {
+        this.clientId = clientId;
+        this.clientSecret = clientSecret.getBytes(StandardCharsets.UTF_8);
+    }
+
+    @Override
+    public Mono<Authentication> authenticate(Authentication authentication) {
+        Object credentials = authentication.getCredentials();
+        if (clientSecret.length == 0 || credentials == null || !clientId.equals(authentication.getName())
+                || !MessageDigest.isEqual(clientSecret, credentials.toString().getBytes(StandardCharsets.UTF_8))) {
+            return Mono.error(new BadCredentialsException("Invalid gateway client credentials"));
+        }
+        return Mono.just(UsernamePasswordAuthenticationToken.authenticated(clientId, null,
+                List.of(new SimpleGrantedAuthority("ROLE_" + ROLE))));
+    }
+}
@@ -2,9 +2,13 @@ package com.interiordesign.auth_service.security;
 
 import com.interiordesign.auth_service.model.User;
 import io.jsonwebtoken.Claims;
+import io.jsonwebtoken.JwsHeader;
+import io.jsonwebtoken.JwtParser;
 import io.jsonwebtoken.Jwts;
 import io.jsonwebtoken.SignatureAlgorithm;
+import io.jsonwebtoken.SigningKeyResolverAdapter;
 import io.jsonwebtoken.security.Keys;
+import io.jsonwebtoken.security.SignatureException;
 import org.springframework.beans.factory.annotation.Value;
 import org.springframework.security.core.userdetails.UserDetails;
 import org.springframework.stereotype.Component;
@@ -13,23 +17,42 @@ import java.security.Key;
 import java.util.Date;
 import java.util.HashMap;
 import java.util.Map;
+import java.util.UUID;
 import java.util.function.Function;
 
+/**
+ * Issues access tokens signed with the active RS256 key of the {@link SigningKeyRing} and verifies
+ * them by their {@code kid} header, so other services can verify tokens with the published JWKS.
+ * HS256 tokens signed with {@code jwt.secret} before the switch are still accepted while
+ * {@code jwt.accept-legacy-hs256} is on.
+ */
 @Component
 public class JwtUtil {
 
-    @Value("${jwt.secret}")
-    private String secret;
-
-    @Value("${jwt.expiration}")
-    private Long jwtExpiration;
-
-    @Value("${jwt.refresh-expiration}")
-    private Long refreshExpiration;
+    private final SigningKeyRing signingKeyRing;
+    private final long jwtExpiration;
+    // Built once: both are immutable and thread-safe
+    private final Key legacyKey;
+    private final JwtParser parser;
+
+    public JwtUtil(SigningKeyRing signingKeyRing,
+                   @Value("${jwt.secret:}") String secret,
+                   @Value("${jwt.expiration}") long jwtExpiration,
+                   @Value("${jwt.accept-legacy-hs256:false}") boolean acceptLegacyHs256) {
+        this.signingKeyRing = signingKeyRing;
+        this.jwtExpiration = jwtExpiration;
+        this.legacyKey = acceptLegacyHs256 ? Keys.hmacShaKeyFor(secret.getBytes()) : null;
+        this.parser = Jwts.parserBuilder()
+                .setSigningKeyResolver(new KeyResolver())
+                .build();
+    }
 
-    private Key getSigningKey() {
-        byte[] keyBytes = secret.getBytes();
-        return Keys.hmacShaKeyFor(keyBytes);
+    /**
+     * Verifies the signature and expiry of the token exactly once and returns its claims.
+     * Throws a {@link io.jsonwebtoken.JwtException} if the token is invalid or expired.
+     */
+    public TokenClaims parseToken(String token) {
+        return TokenClaims.from(extractAllClaims(token));
     }
 
     public String extractUsername(String token) {
@@ -46,15 +69,7 @@ public class JwtUtil {
     }
 
     private Claims extractAllClaims(String token) {
-        return Jwts.parserBuilder()
-                .setSigningKey(getSigningKey())
-                .build()
-                .parseClaimsJws(token)
-                .getBody();
-    }
-
-    private Boolean isTokenExpired(String token) {
-        return extractExpiration(token).before(new Date());
+        return parser.parseClaimsJws(token).getBody();
     }
 
     public String generateToken(UserDetails userDetails) {
@@ -63,31 +78,51 @@ public class JwtUtil {
             User user = (User) userDetails;
             claims.put("id", user.getId());
             claims.put("role", user.getRole());
+            claims.put("ver", user.getTokenVersion());
         }
         return createToken(claims, userDetails.getUsername(), jwtExpiration);
     }
 
-    public String generateRefreshToken(UserDetails userDetails) {
-        Map<String, Object> claims = new HashMap<>();
-        if (userDetails instanceof User) {
-            User user = (User) userDetails;
-            claims.put("id", user.getId());
-        }
-        return createToken(claims, userDetails.getUsername(), refreshExpiration);
-    }
-
     private String createToken(Map<String, Object> claims, String subject, long expiration) {
+        SigningKey signingKey = signingKeyRing.signingKey();
+        if (signingKey == null) {
+            throw new IllegalStateException("No signing key has been loaded");
+        }
         return Jwts.builder()
+                .setHeaderParam(JwsHeader.KEY_ID, signingKey.kid())
                 .setClaims(claims)
                 .setSubject(subject)
+                .setId(UUID.randomUUID().toString())
                 .setIssuedAt(new Date(System.currentTimeMillis()))
                 .setExpiration(new Date(System.currentTimeMillis() + expiration))
-                .signWith(getSigningKey(), SignatureAlgorithm.HS256)
+                .signWith(signingKey.privateKey(), SignatureAlgorithm.RS256)
                 .compact();
     }
 
     public Boolean validateToken(String token, UserDetails userDetails) {
-        final String username = extractUsername(token);
-        return (username.equals(userDetails.getUsername()) && !isTokenExpired(token));
+        return validateToken(parseToken(token), userDetails);
+    }
+
+    public boolean validateToken(TokenClaims claims, UserDetails userDetails) {
+        return userDetails.getUsername().equals(claims.getSubject()) && !claims.isExpired();
+    }
+
+    // The header only picks the key; jjwt still rejects a key that does not fit the algorithm
+    private class KeyResolver extends SigningKeyResolverAdapter {
+
+        @Override
+        public Key resolveSigningKey(JwsHeader header, Claims claims) {
+            if (SignatureAlgorithm.HS256.getValue().equals(header.getAlgorithm())) {
+                if (legacyKey == null) {
+                    throw new SignatureException("HS256 tokens are no longer accepted");
+                }
+                return legacyKey;
+            }
+            Key key = signingKeyRing.verificationKey(header.getKeyId());
+            if (key == null) {
+                throw new SignatureException("Unknown signing key " + header.getKeyId());
+            }
+            return key;
+        }
     }
-}
\ No newline at end of file
+}
@@ -0,0 +1,186 @@
+package com.interiordesign.auth_service.security;
+
+import com.fasterxml.jackson.databind.JsonNode;
+import com.fasterxml.jackson.databind.ObjectMapper;
+import com.interiordesign.auth_service.config.RateLimitProperties;
+import io.micrometer.core.instrument.Counter;
+import io.micrometer.core.instrument.Gauge;
+import io.micrometer.core.instrument.MeterRegistry;
+import org.springframework.boot.autoconfigure.condition.ConditionalOnProperty;
+import org.springframework.core.annotation.Order;
+import org.springframework.core.io.buffer.DataBuffer;
+import org.springframework.core.io.buffer.DataBufferLimitException;
+import org.springframework.core.io.buffer.DataBufferUtils;
+import org.springframework.http.HttpHeaders;
+import org.springframework.http.HttpStatus;
+import org.springframework.http.server.reactive.ServerHttpRequest;
+import org.springframework.http.server.reactive.ServerHttpRequestDecorator;
+import org.springframework.stereotype.Component;
+import org.springframework.web.server.ResponseStatusException;
+import org.springframework.web.server.ServerWebExchange;
+import org.springframework.web.server.WebFilter;
+import org.springframework.web.server.WebFilterChain;
+import org.springframework.web.util.pattern.PathPattern;
+import org.springframework.web.util.pattern.PathPatternParser;
+import reactor.core.publisher.Flux;
+import reactor.core.publisher.Mono;
+
+import java.io.IOException;
+import java.net.InetSocketAddress;
+import java.util.ArrayList;
+import java.util.List;
+import java.util.Locale;
+import java.util.Map;
+import java.util.concurrent.TimeUnit;
+
+/**
+ * Applies the configured limits to the credential endpoints. Runs ahead of the security filter
+ * chain, so a rejected request never reaches the user lookup or password hashing; the client IP
+ * is checked before the body is read, the email in the JSON body after.
+ */
+@Component
+@Order(RateLimitFilter.ORDER)
+@ConditionalOnProperty(name = "rate-limit.enabled", havingValue = "true", matchIfMissing = true)
+public class RateLimitFilter implements WebFilter {
+
+    // Spring Security's WebFilterChainProxy runs at -100
+    static final int ORDER = -150;
+
+    private static final int MAX_BODY_BYTES = 16 * 1024;
+
+    private record Rule(String name, String method, PathPattern path,
+                        StripedRateLimiter.Limit perIp, StripedRateLimiter.Limit perEmail,
+                        Counter ipRejections, Counter emailRejections) {
+    }
+
+    private final StripedRateLimiter limiter;
+    private final ObjectMapper objectMapper;
+    private final List<Rule> rules = new ArrayList<>();
+
+    public RateLimitFilter(RateLimitProperties properties, ObjectMapper objectMapper, MeterRegistry meterRegistry) {
+        this.limiter = new StripedRateLimiter(properties.getStripes(), properties.getMaxKeysPerStripe(),
+                properties.getIdleTimeout());
+        this.objectMapper = objectMapper;
+
+        for (Map.Entry<String, RateLimitProperties.Endpoint> entry : properties.getEndpoints().entrySet()) {
+            RateLimitProperties.Endpoint endpoint = entry.getValue();
+            rules.add(new Rule(entry.getKey(),
+                    endpoint.getMethod().toUpperCase(Locale.ROOT),
+                    PathPatternParser.defaultInstance.parse(endpoint.getPath()),
+                    toLimit(endpoint.getPerIp()),
+                    toLimit(endpoint.getPerEmail()),
+                    rejectionCounter(meterRegistry, entry.getKey(), "ip"),
+                    rejectionCounter(meterRegistry, entry.getKey(), "email")));
+        }
+        Gauge.builder("auth.ratelimit.keys", limiter, StripedRateLimiter::size)
+                .description("Client IPs and emails currently tracked by the rate limiter")
+                .register(meterRegistry);
+    }
+
+    @Override
+    public Mono<Void> filter(ServerWebExchange exchange, WebFilterChain chain) {
+        ServerHttpRequest request = exchange.getRequest();
+        Rule rule = match(request);
+        if (rule == null) {
+            return chain.filter(exchange);
+        }
+
+        if (rule.perIp() != null) {
+            long wait = limiter.tryAcquire(rule.name() + "|ip|" + clientIp(request), rule.perIp());
+            if (wait > 0) {
+                return reject(exchange, rule.ipRejections(), wait);
+            }
+        }
+        if (rule.perEmail() == null) {
+            return chain.filter(exchange);
+        }
+
+        return DataBufferUtils.join(request.getBody(), MAX_BODY_BYTES)
+                .map(RateLimitFilter::toBytes)
+                .defaultIfEmpty(new byte[0])
+                .onErrorMap(DataBufferLimitException.class,
+                        e -> new ResponseStatusException(HttpStatus.PAYLOAD_TOO_LARGE, "Request body is too large"))
+                .flatMap(body -> {
+                    String email = email(body);
+                    if (email != null) {
+                        long wait = limiter.tryAcquire(rule.name() + "|email|" + email, rule.perEmail());
+                        if (wait > 0) {
+                            return reject(exchange, rule.emailRejections(), wait);
+                        }
+                    }
+                    // The body has been consumed; hand the controller a copy
+                    return chain.filter(exchange.mutate().request(withBody(exchange, body)).build());
+                });
+    }
+
+    private Rule match(ServerHttpRequest request) {
+        for (Rule rule : rules) {
+            if (rule.method().equals(request.getMethod().name())
+                    && rule.path().matches(request.getPath().pathWithinApplication())) {
+                return rule;
+            }
+        }
+        return null;
+    }
+
+    private static Mono<Void> reject(ServerWebExchange exchange, Counter rejections, long waitNanos) {
+        rejections.increment();
+        long retryAfterSeconds = Math.max(1, TimeUnit.NANOSECONDS.toSeconds(waitNanos + 999_999_999L));
+        exchange.getResponse().getHeaders().set(HttpHeaders.RETRY_AFTER, Long.toString(retryAfterSeconds));
+        return Mono.error(new ResponseStatusException(HttpStatus.TOO_MANY_REQUESTS,
+                "Too many requests, please retry later"));
+    }
+
+    // Behind a proxy, enable server.forward-headers-strategy so this is the original client
+    private static String clientIp(ServerHttpRequest request) {
+        InetSocketAddress address = request.getRemoteAddress();
+        if (address == null) {
+            return "unknown";
+        }
+        return address.getAddress() != null ? address.getAddress().getHostAddress() : address.getHostString();
+    }
+
+    private String email(byte[] body) {
+        if (body.length == 0) {
+            return null;
+        }
+        try {
+            JsonNode email = objectMapper.readTree(body).get("email");
+            return email != null && email.isTextual() ? email.asText().trim().toLowerCase(Locale.ROOT) : null;
+        } catch (IOException e) {
+            // Malformed bodies are rejected by the controller's validation
+            return null;
+        }
+    }
+
+    private static byte[] toBytes(DataBuffer buffer) {
+        try {
+            byte[] bytes = new byte[buffer.readableByteCount()];
+            buffer.read(bytes);
+            return bytes;
+        } finally {
+            DataBufferUtils.release(buffer);
+        }
+    }
+
+    private static ServerHttpRequest withBody(ServerWebExchange exchange, byte[] body) {
+        return new ServerHttpRequestDecorator(exchange.getRequest()) {
+            @Override
+            public Flux<DataBuffer> getBody() {
+                return Flux.defer(() -> Flux.just(exchange.getResponse().bufferFactory().wrap(body)));
+            }
+        };
+    }
+
+    private static StripedRateLimiter.Limit toLimit(RateLimitProperties.Limit limit) {
+        return limit != null ? new StripedRateLimiter.Limit(limit.getCapacity(), limit.getPeriod()) : null;
+    }
+
+    private static Counter rejectionCounter(MeterRegistry meterRegistry, String endpoint, String key) {
+        return Counter.builder("auth.ratelimit.rejected")
+                .description("Requests rejected by the rate limiter")
+                .tag("endpoint", endpoint)
+                .tag("key", key)
+                .register(meterRegistry);
+    }
+}
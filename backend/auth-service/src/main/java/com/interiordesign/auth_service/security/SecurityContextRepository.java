@@ -2,6 +2,7 @@ package com.interiordesign.auth_service.security;
 
 import org.springframework.http.HttpHeaders;
 import org.springframework.security.authentication.UsernamePasswordAuthenticationToken;
+import org.springframework.security.core.Authentication;
 import org.springframework.security.core.context.SecurityContext;
 import org.springframework.security.core.context.SecurityContextImpl;
 import org.springframework.security.web.server.context.ServerSecurityContextRepository;
@@ -13,9 +14,18 @@ import reactor.core.publisher.Mono;
 public class SecurityContextRepository implements ServerSecurityContextRepository {
 
     private final AuthenticationManager authenticationManager;
+    private final VerifiedTokenCache verifiedTokenCache;
+    private final AccessTokenDenyList accessTokenDenyList;
+    private final TokenVersionCache tokenVersionCache;
 
-    public SecurityContextRepository(AuthenticationManager authenticationManager) {
+    public SecurityContextRepository(AuthenticationManager authenticationManager,
+                                     VerifiedTokenCache verifiedTokenCache,
+                                     AccessTokenDenyList accessTokenDenyList,
+                                     TokenVersionCache tokenVersionCache) {
         this.authenticationManager = authenticationManager;
+        this.verifiedTokenCache = verifiedTokenCache;
+        this.accessTokenDenyList = accessTokenDenyList;
+        this.tokenVersionCache = tokenVersionCache;
     }
 
     @Override
@@ -31,10 +41,19 @@ public class SecurityContextRepository implements ServerSecurityContextRepositor
 
         if (authHeader != null && authHeader.startsWith("Bearer ")) {
             String authToken = authHeader.substring(7);
+
+            Authentication cached = verifiedTokenCache.get(authToken);
+            // A token revoked on another node may still be cached here; the manager rejects and counts it
+            if (cached != null && !accessTokenDenyList.isRevoked((TokenClaims) cached.getDetails())
+                    && tokenVersionCache.isCurrent((TokenClaims) cached.getDetails())) {
+                return Mono.just(new SecurityContextImpl(cached));
+            }
+
             UsernamePasswordAuthenticationToken auth = new UsernamePasswordAuthenticationToken(authToken, authToken);
             return authenticationManager.authenticate(auth)
+                    .doOnNext(authentication -> verifiedTokenCache.put(authToken, authentication))
                     .map(SecurityContextImpl::new);
         }
         return Mono.empty();
     }
-}
\ No newline at end of file
+}
@@ -0,0 +1,84 @@
+package com.interiordesign.auth_service.security;
+
+import java.math.BigInteger;
+import java.nio.charset.StandardCharsets;
+import java.security.GeneralSecurityException;
+import java.security.KeyFactory;
+import java.security.KeyPair;
+import java.security.KeyPairGenerator;
+import java.security.MessageDigest;
+import java.security.PrivateKey;
+import java.security.interfaces.RSAPublicKey;
+import java.security.spec.PKCS8EncodedKeySpec;
+import java.security.spec.X509EncodedKeySpec;
+import java.time.Instant;
+import java.util.Arrays;
+import java.util.Base64;
+
+/**
+ * One RS256 key pair of the signing key ring. Keys are numbered by generation; the newest
+ * generation whose activation time has passed signs new tokens, and the {@code kid} is the
+ * RFC 7638 thumbprint of the public key, so every node derives the same id for the same key.
+ */
+public record SigningKey(int generation, String kid, PrivateKey privateKey, RSAPublicKey publicKey,
+                         Instant activatesAt) {
+
+    public static final String ALGORITHM = "RS256";
+
+    public static SigningKey generate(int generation, int keySize, Instant activatesAt) {
+        try {
+            KeyPairGenerator generator = KeyPairGenerator.getInstance("RSA");
+            generator.initialize(keySize);
+            KeyPair pair = generator.generateKeyPair();
+            RSAPublicKey publicKey = (RSAPublicKey) pair.getPublic();
+            return new SigningKey(generation, thumbprint(publicKey), pair.getPrivate(), publicKey, activatesAt);
+        } catch (GeneralSecurityException e) {
+            throw new IllegalStateException("Cannot generate an RSA signing key", e);
+        }
+    }
+
+    /**
+     * Rebuilds a key from its PKCS#8 private and X.509 public encodings, as stored in the database.
+     */
+    public static SigningKey decode(int generation, String kid, byte[] privateKey, byte[] publicKey,
+                                    Instant activatesAt) {
+        try {
+            KeyFactory factory = KeyFactory.getInstance("RSA");
+            return new SigningKey(generation, kid,
+                    factory.generatePrivate(new PKCS8EncodedKeySpec(privateKey)),
+                    (RSAPublicKey) factory.generatePublic(new X509EncodedKeySpec(publicKey)),
+                    activatesAt);
+        } catch (GeneralSecurityException e) {
+            throw new IllegalStateException("Cannot decode signing key " + kid, e);
+        }
+    }
+
+    public boolean isActive(Instant now) {
+        return !activatesAt.isAfter(now);
+    }
+
+    public String modulus() {
+        return base64Url(publicKey.getModulus());
+    }
+
+    public String exponent() {
+        return base64Url(publicKey.getPublicExponent());
+    }
+
+    private static String thumbprint(RSAPublicKey publicKey) throws GeneralSecurityException {
+        // Required members only, in lexicographic order and without whitespace
+        String canonical = "{\"e\":\"" + base64Url(publicKey.getPublicExponent())
+                + "\",\"kty\":\"RSA\",\"n\":\"" + base64Url(publicKey.getModulus()) + "\"}";
+        byte[] digest = MessageDigest.getInstance("SHA-256").digest(canonical.getBytes(StandardCharsets.UTF_8));
+        return Base64.getUrlEncoder().withoutPadding().encodeToString(digest);
+    }
+
+    // JWK integers are unsigned big-endian, without the sign byte BigInteger adds
+    private static String base64Url(BigInteger value) {
+        byte[] bytes = value.toByteArray();
+        if (bytes.length > 1 && bytes[0] == 0) {
+            bytes = Arrays.copyOfRange(bytes, 1, bytes.length);
+        }
+        return Base64.getUrlEncoder().withoutPadding().encodeToString(bytes);
+    }
+}
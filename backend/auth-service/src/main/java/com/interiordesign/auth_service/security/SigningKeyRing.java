@@ -0,0 +1,106 @@
+package com.interiordesign.auth_service.security;
+
+import com.fasterxml.jackson.core.JsonProcessingException;
+import com.fasterxml.jackson.databind.ObjectMapper;
+import org.springframework.stereotype.Component;
+
+import java.security.MessageDigest;
+import java.security.NoSuchAlgorithmException;
+import java.security.PublicKey;
+import java.time.Instant;
+import java.util.ArrayList;
+import java.util.Base64;
+import java.util.Comparator;
+import java.util.HashMap;
+import java.util.LinkedHashMap;
+import java.util.List;
+import java.util.Map;
+
+/**
+ * The signing keys this node currently knows: the active key signs, and every key in the ring,
+ * including ones published ahead of their activation and ones kept after being superseded,
+ * verifies. The JWKS document and its ETag are built once per change and shared by all requests.
+ */
+@Component
+public class SigningKeyRing {
+
+    public record Jwks(byte[] document, String etag) {
+    }
+
+    private record Snapshot(List<SigningKey> newestFirst, Map<String, SigningKey> byKid, Jwks jwks) {
+    }
+
+    private static final Snapshot EMPTY = new Snapshot(List.of(), Map.of(), null);
+
+    private final ObjectMapper objectMapper;
+    private volatile Snapshot snapshot = EMPTY;
+
+    public SigningKeyRing(ObjectMapper objectMapper) {
+        this.objectMapper = objectMapper;
+    }
+
+    /**
+     * Replaces the ring. Safe to call while tokens are being signed and verified.
+     */
+    public void update(List<SigningKey> keys) {
+        List<SigningKey> newestFirst = new ArrayList<>(keys);
+        newestFirst.sort(Comparator.comparingInt(SigningKey::generation).reversed());
+        Map<String, SigningKey> byKid = new HashMap<>();
+        for (SigningKey key : newestFirst) {
+            byKid.put(key.kid(), key);
+        }
+        snapshot = new Snapshot(List.copyOf(newestFirst), Map.copyOf(byKid),
+                newestFirst.isEmpty() ? null : buildJwks(newestFirst));
+    }
+
+    /**
+     * The newest key whose activation time has passed, or null when none has been loaded yet.
+     */
+    public SigningKey signingKey() {
+        Instant now = Instant.now();
+        for (SigningKey key : snapshot.newestFirst()) {
+            if (key.isActive(now)) {
+                return key;
+            }
+        }
+        return null;
+    }
+
+    public PublicKey verificationKey(String kid) {
+        SigningKey key = kid != null ? snapshot.byKid().get(kid) : null;
+        return key != null ? key.publicKey() : null;
+    }
+
+    public List<SigningKey> keys() {
+        return snapshot.newestFirst();
+    }
+
+    /**
+     * The public keys as a JWK Set, or null when no key has been loaded yet.
+     */
+    public Jwks jwks() {
+        return snapshot.jwks();
+    }
+
+    // Deterministic for the same keys, so every node serves the same bytes and ETag
+    private Jwks buildJwks(List<SigningKey> keys) {
+        List<Map<String, String>> jwks = new ArrayList<>(keys.size());
+        for (SigningKey key : keys) {
+            Map<String, String> jwk = new LinkedHashMap<>();
+            jwk.put("kty", "RSA");
+            jwk.put("use", "sig");
+            jwk.put("alg", SigningKey.ALGORITHM);
+            jwk.put("kid", key.kid());
+            jwk.put("n", key.modulus());
+            jwk.put("e", key.exponent());
+            jwks.add(jwk);
+        }
+        try {
+            byte[] document = objectMapper.writeValueAsBytes(Map.of("keys", jwks));
+            byte[] digest = MessageDigest.getInstance("SHA-256").digest(document);
+            return new Jwks(document, "\"" + Base64.getUrlEncoder().withoutPadding().encodeToString(digest) + "\"");
+        } catch (JsonProcessingException | NoSuchAlgorithmException e) {
+            throw new IllegalStateException("Cannot build the JWK set", e);
+        }
+    }
+}
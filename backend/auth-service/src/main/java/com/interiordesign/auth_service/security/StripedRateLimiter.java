@@ -0,0 +1,115 @@
+package com.interiordesign.auth_service.security;
+
+import java.time.Duration;
+import java.util.Iterator;
+import java.util.LinkedHashMap;
+import java.util.Map;
+
+/**
+ * Token-bucket rate limiter keyed by string, split into independently locked stripes so that
+ * concurrent requests for different keys rarely contend.
+ * <p>
+ * Each bucket is a single timestamp (the generic cell rate algorithm, equivalent to a token
+ * bucket): the time at which it would be full again. Every stripe is an LRU map bounded to
+ * {@code maxKeysPerStripe} entries, and buckets that have been full for longer than the idle
+ * timeout are dropped as the stripe is used, so memory stays bounded under key churn.
+ */
+public class StripedRateLimiter {
+
+    public record Limit(int capacity, Duration period) {
+
+        public Limit {
+            if (capacity < 1 || period.isNegative() || period.isZero()) {
+                throw new IllegalArgumentException("A limit needs a positive capacity and period");
+            }
+        }
+
+        long nanosPerToken() {
+            return Math.max(1, period.toNanos() / capacity);
+        }
+    }
+
+    private final Stripe[] stripes;
+    private final int mask;
+    private final int maxKeysPerStripe;
+    private final long idleTimeoutNanos;
+
+    public StripedRateLimiter(int stripes, int maxKeysPerStripe, Duration idleTimeout) {
+        int size = stripes <= 1 ? 1 : Integer.highestOneBit(stripes - 1) << 1;
+        this.stripes = new Stripe[size];
+        for (int i = 0; i < size; i++) {
+            this.stripes[i] = new Stripe();
+        }
+        this.mask = size - 1;
+        this.maxKeysPerStripe = maxKeysPerStripe;
+        this.idleTimeoutNanos = idleTimeout.toNanos();
+    }
+
+    /**
+     * Takes a token for the key. Returns 0 when the request is allowed, otherwise the time in
+     * nanoseconds until the next token is available.
+     */
+    public long tryAcquire(String key, Limit limit) {
+        return tryAcquire(key, limit, System.nanoTime());
+    }
+
+    long tryAcquire(String key, Limit limit, long now) {
+        int hash = key.hashCode();
+        Stripe stripe = stripes[(hash ^ (hash >>> 16)) & mask];
+        synchronized (stripe) {
+            return stripe.acquire(key, limit, now);
+        }
+    }
+
+    public int size() {
+        int size = 0;
+        for (Stripe stripe : stripes) {
+            synchronized (stripe) {
+                size += stripe.size();
+            }
+        }
+        return size;
+    }
+
+    private final class Stripe extends LinkedHashMap<String, long[]> {
+
+        private Stripe() {
+            super(16, 0.75f, true);
+        }
+
+        private long acquire(String key, Limit limit, long now) {
+            evictIdle(now);
+
+            long interval = limit.nanosPerToken();
+            long burst = interval * (limit.capacity() - 1);
+            long[] fullAt = get(key);
+            if (fullAt == null) {
+                fullAt = new long[]{now};
+                put(key, fullAt);
+            }
+
+            long earliest = Math.max(fullAt[0], now);
+            if (earliest - now > burst) {
+                return earliest - now - burst;
+            }
+            fullAt[0] = earliest + interval;
+            return 0;
+        }
+
+        // Least recently used first; stops at the first bucket that is still in use
+        private void evictIdle(long now) {
+            Iterator<long[]> buckets = values().iterator();
+            while (buckets.hasNext()) {
+                if (now - buckets.next()[0] < idleTimeoutNanos) {
+                    return;
+                }
+                buckets.remove();
+            }
+        }
+
+        @Override
+        protected boolean removeEldestEntry(Map.Entry<String, long[]> eldest) {
+            return size() > maxKeysPerStripe;
+        }
+    }
+}
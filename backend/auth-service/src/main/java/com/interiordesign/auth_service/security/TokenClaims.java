@@ -0,0 +1,36 @@
+package com.interiordesign.auth_service.security;
+
+import io.jsonwebtoken.Claims;
+import lombok.Value;
+
+import java.time.Instant;
+
+@Value
+public class TokenClaims {
+
+    String subject;
+    Long userId;
+    String role;
+    Instant issuedAt;
+    Instant expiration;
+    // The jti of access tokens, which revocation is keyed on
+    String tokenId;
+    // The user's token version when the token was issued; 0 for tokens issued before versions
+    int tokenVersion;
+
+    static TokenClaims from(Claims claims) {
+        return new TokenClaims(
+                claims.getSubject(),
+                claims.get("id", Long.class),
+                claims.get("role", String.class),
+                claims.getIssuedAt() != null ? claims.getIssuedAt().toInstant() : null,
+                claims.getExpiration() != null ? claims.getExpiration().toInstant() : null,
+                claims.getId(),
+                claims.get("ver", Integer.class) != null ? claims.get("ver", Integer.class) : 0
+        );
+    }
+
+    public boolean isExpired() {
+        return expiration != null && expiration.isBefore(Instant.now());
+    }
+}
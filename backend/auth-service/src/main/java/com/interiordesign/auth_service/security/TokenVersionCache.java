@@ -0,0 +1,57 @@
+package com.interiordesign.auth_service.security;
+
+import com.github.benmanes.caffeine.cache.Cache;
+import com.github.benmanes.caffeine.cache.Caffeine;
+import io.micrometer.core.instrument.MeterRegistry;
+import io.micrometer.core.instrument.binder.cache.CaffeineCacheMetrics;
+import org.springframework.beans.factory.annotation.Value;
+import org.springframework.stereotype.Component;
+
+import java.time.Duration;
+
+/**
+ * The latest token version known for recently active users, so access tokens are checked against
+ * it without I/O. Versions only go up: a lower one, read from a stale copy of the user, never
+ * replaces a higher one. Bumps made on other nodes arrive through AccessTokenRevocationService.
+ */
+@Component
+public class TokenVersionCache {
+
+    private final Cache<Long, Integer> versions;
+
+    public TokenVersionCache(MeterRegistry meterRegistry,
+                             @Value("${jwt.version-cache.max-size:100000}") long maxSize,
+                             @Value("${jwt.version-cache.max-idle:15m}") Duration maxIdle) {
+        // Safe to evict: a missing version is read from the database again
+        this.versions = Caffeine.newBuilder()
+                .maximumSize(maxSize)
+                .expireAfterAccess(maxIdle)
+                .recordStats()
+                .build();
+
+        CaffeineCacheMetrics.monitor(meterRegistry, versions, "token-versions");
+    }
+
+    public Integer get(Long userId) {
+        return versions.getIfPresent(userId);
+    }
+
+    /**
+     * Records a version seen for the user and returns the latest one known.
+     */
+    public int observe(Long userId, int version) {
+        return versions.asMap().merge(userId, version, Math::max);
+    }
+
+    /**
+     * False when the token predates the user's latest version, or when no version is known.
+     */
+    public boolean isCurrent(TokenClaims claims) {
+        Integer current = claims.getUserId() != null ? versions.getIfPresent(claims.getUserId()) : null;
+        return current != null && claims.getTokenVersion() >= current;
+    }
+
+    public void invalidateAll() {
+        versions.invalidateAll();
+    }
+}
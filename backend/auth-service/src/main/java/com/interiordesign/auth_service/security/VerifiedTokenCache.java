@@ -0,0 +1,148 @@
+package com.interiordesign.auth_service.security;
+
+import com.github.benmanes.caffeine.cache.Cache;
+import com.github.benmanes.caffeine.cache.Caffeine;
+import com.github.benmanes.caffeine.cache.Expiry;
+import com.github.benmanes.caffeine.cache.RemovalCause;
+import io.micrometer.core.instrument.MeterRegistry;
+import io.micrometer.core.instrument.binder.cache.CaffeineCacheMetrics;
+import org.springframework.beans.factory.annotation.Value;
+import org.springframework.security.core.Authentication;
+import org.springframework.stereotype.Component;
+
+import java.nio.charset.StandardCharsets;
+import java.security.MessageDigest;
+import java.security.NoSuchAlgorithmException;
+import java.time.Duration;
+import java.time.Instant;
+import java.util.Base64;
+import java.util.Map;
+import java.util.Set;
+import java.util.concurrent.ConcurrentHashMap;
+
+/**
+ * Caches the Authentication built for a bearer token so repeated requests with the same token
+ * skip signature verification. Keys are SHA-256 digests of the raw token and an entry never
+ * outlives the token's own expiry.
+ * <p>
+ * Only used in claims mode: in database mode every request must see the user as stored, so a
+ * cached Authentication would defeat the point.
+ */
+@Component
+public class VerifiedTokenCache {
+
+    private final boolean enabled;
+    private final Duration maxIdle;
+    private final Cache<String, Authentication> cache;
+    // userId -> digests of the tokens cached for that user, so invalidateUser needn't scan the cache
+    private final Map<Long, Set<String>> keysByUser = new ConcurrentHashMap<>();
+
+    public VerifiedTokenCache(MeterRegistry meterRegistry,
+                              @Value("${jwt.authentication-mode:database}") AuthenticationMode authenticationMode,
+                              @Value("${jwt.token-cache.enabled:true}") boolean enabled,
+                              @Value("${jwt.token-cache.max-size:50000}") long maxSize,
+                              @Value("${jwt.token-cache.max-idle:15m}") Duration maxIdle) {
+        this.enabled = enabled && authenticationMode == AuthenticationMode.CLAIMS;
+        this.maxIdle = maxIdle;
+        this.cache = Caffeine.newBuilder()
+                .maximumSize(maxSize)
+                .expireAfter(new TokenExpiry())
+                .removalListener(this::onRemoval)
+                .recordStats()
+                .build();
+
+        CaffeineCacheMetrics.monitor(meterRegistry, cache, "verified-tokens");
+    }
+
+    public Authentication get(String token) {
+        if (!enabled) {
+            return null;
+        }
+        return cache.getIfPresent(digest(token));
+    }
+
+    public void put(String token, Authentication authentication) {
+        if (enabled && authentication.getDetails() instanceof TokenClaims claims) {
+            String key = digest(token);
+            if (claims.getUserId() != null) {
+                keysByUser.compute(claims.getUserId(), (id, keys) -> {
+                    Set<String> indexed = keys != null ? keys : ConcurrentHashMap.newKeySet();
+                    indexed.add(key);
+                    return indexed;
+                });
+            }
+            cache.put(key, authentication);
+        }
+    }
+
+    public void invalidateUser(Long userId) {
+        if (userId == null) {
+            return;
+        }
+        Set<String> keys = keysByUser.remove(userId);
+        if (keys != null) {
+            cache.invalidateAll(keys);
+        }
+    }
+
+    public void invalidateAll() {
+        cache.invalidateAll();
+        keysByUser.clear();
+    }
+
+    public long size() {
+        return cache.estimatedSize();
+    }
+
+    private void onRemoval(String key, Authentication authentication, RemovalCause cause) {
+        // A replaced entry is the same token for the same user; and a key put again since it
+        // expired must stay indexed
+        if (cause == RemovalCause.REPLACED || authentication == null || cache.asMap().containsKey(key)) {
+            return;
+        }
+        Long userId = ((TokenClaims) authentication.getDetails()).getUserId();
+        if (userId != null) {
+            keysByUser.computeIfPresent(userId, (id, keys) -> {
+                keys.remove(key);
+                return keys.isEmpty() ? null : keys;
+            });
+        }
+    }
+
+    private long nanosToLive(Authentication authentication) {
+        Instant expiration = ((TokenClaims) authentication.getDetails()).getExpiration();
+        long idleNanos = maxIdle.toNanos();
+        if (expiration == null) {
+            return idleNanos;
+        }
+        long untilExpiry = Duration.between(Instant.now(), expiration).toNanos();
+        return Math.max(0, Math.min(untilExpiry, idleNanos));
+    }
+
+    private static String digest(String token) {
+        try {
+            byte[] hash = MessageDigest.getInstance("SHA-256").digest(token.getBytes(StandardCharsets.UTF_8));
+            return Base64.getEncoder().encodeToString(hash);
+        } catch (NoSuchAlgorithmException e) {
+            throw new IllegalStateException("SHA-256 not available", e);
+        }
+    }
+
+    private class TokenExpiry implements Expiry<String, Authentication> {
+
+        @Override
+        public long expireAfterCreate(String key, Authentication value, long currentTime) {
+            return nanosToLive(value);
+        }
+
+        @Override
+        public long expireAfterUpdate(String key, Authentication value, long currentTime, long currentDuration) {
+            return nanosToLive(value);
+        }
+
+        @Override
+        public long expireAfterRead(String key, Authentication value, long currentTime, long currentDuration) {
+            return nanosToLive(value);
+        }
+    }
+}
@@ -0,0 +1,186 @@
+package com.interiordesign.auth_service.service;
+
+import com.interiordesign.auth_service.repository.RevokedAccessTokenRepository;
+import com.interiordesign.auth_service.repository.RevokedAccessTokenRepository.RevokedToken;
+import com.interiordesign.auth_service.repository.UserQueryRepository;
+import com.interiordesign.auth_service.repository.UserQueryRepository.TokenVersionBump;
+import com.interiordesign.auth_service.security.AccessTokenDenyList;
+import com.interiordesign.auth_service.security.TokenClaims;
+import com.interiordesign.auth_service.security.TokenVersionCache;
+import com.interiordesign.auth_service.security.VerifiedTokenCache;
+import io.r2dbc.postgresql.PostgresqlConnectionFactory;
+import io.r2dbc.postgresql.api.Notification;
+import io.r2dbc.postgresql.api.PostgresqlConnection;
+import io.r2dbc.postgresql.api.PostgresqlResult;
+import io.r2dbc.spi.ConnectionFactory;
+import io.r2dbc.spi.Wrapped;
+import jakarta.annotation.PostConstruct;
+import jakarta.annotation.PreDestroy;
+import lombok.extern.slf4j.Slf4j;
+import org.springframework.beans.factory.annotation.Value;
+import org.springframework.boot.sql.init.dependency.DependsOnDatabaseInitialization;
+import org.springframework.stereotype.Service;
+import reactor.core.Disposable;
+import reactor.core.publisher.Flux;
+import reactor.core.publisher.Mono;
+import reactor.util.retry.Retry;
+
+import java.time.Duration;
+import java.time.Instant;
+import java.util.concurrent.CountDownLatch;
+import java.util.concurrent.TimeUnit;
+
+/**
+ * Revokes access tokens across the cluster. A revocation is written to the revoked_access_tokens
+ * table and published with NOTIFY in the same statement; every node LISTENs on a connection of its
+ * own, outside the pool, and adds what it hears to its {@link AccessTokenDenyList}. Each time the
+ * connection is (re)established the node reloads the table, so revocations published while it was
+ * down or disconnected are not lost.
+ * <p>
+ * The same connection hears token version bumps, which end all sessions of a user at once, and
+ * drops the user from the local caches. Missed bumps cannot be replayed, so on every (re)connect
+ * the cached versions and users are dropped and read again from the database as needed.
+ */
+@Slf4j
+@Service
+@DependsOnDatabaseInitialization
+public class AccessTokenRevocationService {
+
+    private final RevokedAccessTokenRepository revokedAccessTokenRepository;
+    private final AccessTokenDenyList accessTokenDenyList;
+    private final TokenVersionCache tokenVersionCache;
+    private final UserCache userCache;
+    private final VerifiedTokenCache verifiedTokenCache;
+    private final ConnectionFactory connectionFactory;
+    private final Duration startupTimeout;
+    private final Duration maxReconnectDelay;
+    private Disposable listener;
+
+    public AccessTokenRevocationService(RevokedAccessTokenRepository revokedAccessTokenRepository,
+                                        AccessTokenDenyList accessTokenDenyList,
+                                        TokenVersionCache tokenVersionCache,
+                                        UserCache userCache,
+                                        VerifiedTokenCache verifiedTokenCache,
+                                        ConnectionFactory connectionFactory,
+                                        @Value("${jwt.revocation.startup-timeout:10s}") Duration startupTimeout,
+                                        @Value("${jwt.revocation.max-reconnect-delay:30s}")
+                                        Duration maxReconnectDelay) {
+        this.revokedAccessTokenRepository = revokedAccessTokenRepository;
+        this.accessTokenDenyList = accessTokenDenyList;
+        this.tokenVersionCache = tokenVersionCache;
+        this.userCache = userCache;
+        this.verifiedTokenCache = verifiedTokenCache;
+        this.connectionFactory = connectionFactory;
+        this.startupTimeout = startupTimeout;
+        this.maxReconnectDelay = maxReconnectDelay;
+    }
+
+    /**
+     * Revokes the access token the claims were read from, on every node. Tokens without a jti,
+     * issued before tokens carried one, cannot be revoked and are left to expire.
+     */
+    public Mono<Void> revoke(TokenClaims claims) {
+        if (claims.getTokenId() == null || claims.getExpiration() == null || claims.isExpired()) {
+            return Mono.empty();
+        }
+        return revokedAccessTokenRepository.revoke(claims.getTokenId(), claims.getExpiration())
+                // Not waiting for our own notification to come back
+                .doOnNext(revoked -> accessTokenDenyList.add(claims.getTokenId(), claims.getExpiration()))
+                .then();
+    }
+
+    /**
+     * Starts listening and waits for the first load of the table before the service takes
+     * traffic. Without a database the node starts anyway and keeps reconnecting in the background.
+     */
+    @PostConstruct
+    void start() {
+        CountDownLatch firstAttempt = new CountDownLatch(1);
+        listener = listen()
+                .doOnNext(loaded -> firstAttempt.countDown())
+                .retryWhen(Retry.backoff(Long.MAX_VALUE, Duration.ofSeconds(1))
+                        .maxBackoff(maxReconnectDelay)
+                        // Back to short delays once a connection has worked again
+                        .transientErrors(true)
+                        .doBeforeRetry(signal -> {
+                            firstAttempt.countDown();
+                            log.warn("Listening for access token revocations failed, reconnecting: {}",
+                                    signal.failure().getMessage());
+                        }))
+                .subscribe();
+
+        try {
+            if (!firstAttempt.await(startupTimeout.toMillis(), TimeUnit.MILLISECONDS)) {
+                log.warn("Revoked access tokens not loaded within {}, continuing in the background", startupTimeout);
+            }
+        } catch (InterruptedException e) {
+            Thread.currentThread().interrupt();
+        }
+    }
+
+    @PreDestroy
+    void stop() {
+        if (listener != null) {
+            listener.dispose();
+        }
+    }
+
+    // Emits the number of revocations loaded each time a connection is established; never completes
+    Flux<Integer> listen() {
+        return Flux.usingWhen(Mono.defer(() -> driverConnectionFactory().create()),
+                connection -> connection.createStatement("LISTEN " + RevokedAccessTokenRepository.CHANNEL
+                                + "; LISTEN " + UserQueryRepository.TOKEN_VERSION_CHANNEL)
+                        .execute()
+                        .flatMap(PostgresqlResult::getRowsUpdated)
+                        // Subscribed to before the reload starts, so nothing falls between the two
+                        .thenMany(Flux.merge(
+                                connection.getNotifications()
+                                        .doOnNext(this::onNotification)
+                                        .then(Mono.<Integer>empty()),
+                                reload()))
+                        .concatWith(Mono.error(() -> new IllegalStateException("LISTEN connection closed"))),
+                PostgresqlConnection::close);
+    }
+
+    Mono<Integer> reload() {
+        return Mono.fromRunnable(() -> {
+                    tokenVersionCache.invalidateAll();
+                    userCache.invalidateAll();
+                })
+                .thenMany(revokedAccessTokenRepository.findUnexpired(Instant.now()))
+                .doOnNext(revoked -> accessTokenDenyList.add(revoked.tokenId(), revoked.expiresAt()))
+                .count()
+                .map(Long::intValue)
+                .doOnNext(loaded -> log.debug("Loaded {} revoked access tokens", loaded));
+    }
+
+    private void onNotification(Notification notification) {
+        String payload = notification.getParameter();
+        try {
+            if (UserQueryRepository.TOKEN_VERSION_CHANNEL.equals(notification.getName())) {
+                TokenVersionBump bump = UserQueryRepository.parseTokenVersionNotification(payload);
+                tokenVersionCache.observe(bump.userId(), bump.tokenVersion());
+                userCache.invalidateUser(bump.userId());
+                verifiedTokenCache.invalidateUser(bump.userId());
+            } else {
+                RevokedToken revoked = RevokedAccessTokenRepository.parseNotification(payload);
+                accessTokenDenyList.add(revoked.tokenId(), revoked.expiresAt());
+            }
+        } catch (RuntimeException e) {
+            log.warn("Ignoring malformed notification '{}' on {}", payload, notification.getName());
+        }
+    }
+
+    // The pool would hand the connection back to other callers still listening; use the driver directly
+    private PostgresqlConnectionFactory driverConnectionFactory() {
+        Object factory = connectionFactory;
+        while (!(factory instanceof PostgresqlConnectionFactory) && factory instanceof Wrapped<?> wrapped) {
+            factory = wrapped.unwrap();
+        }
+        if (factory instanceof PostgresqlConnectionFactory postgres) {
+            return postgres;
+        }
+        throw new IllegalStateException("Revocation notifications need the Postgres driver, found "
+                + connectionFactory.getClass().getName());
+    }
+}
@@ -0,0 +1,105 @@
+package com.interiordesign.auth_service.service;
+
+import io.micrometer.core.instrument.MeterRegistry;
+import io.micrometer.core.instrument.Timer;
+import org.springframework.stereotype.Component;
+import reactor.core.publisher.Mono;
+import reactor.core.publisher.SignalType;
+
+import java.util.Map;
+import java.util.concurrent.ConcurrentHashMap;
+import java.util.concurrent.TimeUnit;
+import java.util.concurrent.atomic.AtomicBoolean;
+import java.util.function.Supplier;
+
+/**
+ * Timers for the authentication flows: {@code auth.flow{flow, outcome}} for a flow end to end and
+ * {@code auth.flow.phase{flow, phase, outcome}} for each step in it. Database round trips and
+ * CPU-bound steps (hashing, signing) are separate phases, so a latency spike can be pinned on one
+ * or the other.
+ */
+@Component
+public class AuthMetrics {
+
+    public static final String LOGIN = "login";
+    public static final String REFRESH = "refresh";
+    public static final String REGISTER = "register";
+    public static final String PASSWORD_RESET = "password-reset";
+    public static final String INTROSPECT = "introspect";
+
+    public static final String USER_LOOKUP = "user-lookup";
+    public static final String USER_INSERT = "user-insert";
+    public static final String PASSWORD_VERIFY = "password-verify";
+    public static final String PASSWORD_HASH = "password-hash";
+    public static final String TOKEN_SIGN = "token-sign";
+    public static final String TOKEN_VERIFY = "token-verify";
+    public static final String REFRESH_TOKEN_PERSIST = "refresh-token-persist";
+    public static final String REFRESH_TOKEN_ROTATE = "refresh-token-rotate";
+    // Queuing only; the SMTP send itself is timed by auth.email.outbox.batch
+    public static final String EMAIL_ENQUEUE = "email-enqueue";
+
+    private static final String FLOW_TIMER = "auth.flow";
+    private static final String PHASE_TIMER = "auth.flow.phase";
+
+    private final MeterRegistry meterRegistry;
+    private final Map<String, Timer> timers = new ConcurrentHashMap<>();
+
+    public AuthMetrics(MeterRegistry meterRegistry) {
+        this.meterRegistry = meterRegistry;
+    }
+
+    public <T> Mono<T> flow(String flow, Mono<T> mono) {
+        return timed(FLOW_TIMER, flow, null, mono);
+    }
+
+    public <T> Mono<T> phase(String flow, String phase, Mono<T> mono) {
+        return timed(PHASE_TIMER, flow, phase, mono);
+    }
+
+    public <T> T phase(String flow, String phase, Supplier<T> step) {
+        long start = System.nanoTime();
+        String outcome = "error";
+        try {
+            T result = step.get();
+            outcome = "success";
+            return result;
+        } finally {
+            timer(PHASE_TIMER, flow, phase, outcome).record(System.nanoTime() - start, TimeUnit.NANOSECONDS);
+        }
+    }
+
+    private <T> Mono<T> timed(String name, String flow, String phase, Mono<T> mono) {
+        return Mono.defer(() -> {
+            long start = System.nanoTime();
+            AtomicBoolean emitted = new AtomicBoolean();
+            return mono.doOnNext(value -> emitted.set(true))
+                    .doFinally(signal -> timer(name, flow, phase, outcome(signal, emitted.get()))
+                            .record(System.nanoTime() - start, TimeUnit.NANOSECONDS));
+        });
+    }
+
+    // An empty result is an outcome of its own: bad credentials, unknown or reused tokens
+    private static String outcome(SignalType signal, boolean emitted) {
+        if (signal == SignalType.ON_ERROR) {
+            return "error";
+        }
+        if (emitted) {
+            return "success";
+        }
+        return signal == SignalType.CANCEL ? "cancelled" : "empty";
+    }
+
+    private Timer timer(String name, String flow, String phase, String outcome) {
+        return timers.computeIfAbsent(name + '|' + flow + '|' + phase + '|' + outcome, key -> {
+            Timer.Builder builder = Timer.builder(name)
+                    .tag("flow", flow)
+                    .tag("outcome", outcome);
+            if (phase != null) {
+                builder.description("Time spent in one phase of an authentication flow").tag("phase", phase);
+            } else {
+                builder.description("Time spent in an authentication flow end to end");
+            }
+            return builder.register(meterRegistry);
+        });
+    }
+}
@@ -7,13 +7,14 @@ import com.interiordesign.auth_service.dto.response.UserResponse;
 import com.interiordesign.auth_service.model.User;
 import com.interiordesign.auth_service.security.JwtUtil;
 import lombok.RequiredArgsConstructor;
+import lombok.extern.slf4j.Slf4j;
 import org.springframework.security.authentication.BadCredentialsException;
-import org.springframework.security.crypto.password.PasswordEncoder;
 import org.springframework.stereotype.Service;
 import reactor.core.publisher.Mono;
 
-import java.time.Instant;
+import java.util.Locale;
 
+@Slf4j
 @Service
 @RequiredArgsConstructor
 public class AuthService {
@@ -22,80 +23,85 @@ public class AuthService {
     private final RefreshTokenService refreshTokenService;
     private final PasswordResetService passwordResetService;
     private final JwtUtil jwtUtil;
-    private final PasswordEncoder passwordEncoder;
-    private final EmailService emailService;
+    private final PasswordHashingService passwordHashingService;
+    private final AuthMetrics authMetrics;
 
     public Mono<TokenResponse> login(LoginRequest request) {
-        return userService.findByUsername(request.getEmail())
-                .cast(User.class)
-                .filter(user -> passwordEncoder.matches(request.getPassword(), user.getPassword()))
-                .flatMap(this::generateTokenResponse)
-                .switchIfEmpty(Mono.error(new BadCredentialsException("Invalid credentials")));
+        return authMetrics.flow(AuthMetrics.LOGIN,
+                authMetrics.phase(AuthMetrics.LOGIN, AuthMetrics.USER_LOOKUP,
+                                userService.findByUsername(request.getEmail()))
+                        .cast(User.class)
+                        .filterWhen(user -> authMetrics.phase(AuthMetrics.LOGIN, AuthMetrics.PASSWORD_VERIFY,
+                                passwordHashingService.matches(request.getPassword(), user.getPassword())))
+                        .doOnNext(user -> upgradePasswordHash(user, request.getPassword()))
+                        .flatMap(user -> generateTokenResponse(AuthMetrics.LOGIN, user))
+                        .switchIfEmpty(Mono.error(new BadCredentialsException("Invalid credentials"))));
     }
 
     public Mono<TokenResponse> register(RegisterRequest request) {
-        return userService.existsByEmail(request.getEmail())
-                .flatMap(exists -> {
-                    if (exists) {
-                        return Mono.empty();
-                    }
-
-                    User user = User.builder()
-                            .email(request.getEmail())
-                            .password(request.getPassword())
-                            .firstName(request.getFirstName())
-                            .lastName(request.getLastName())
-                            .role(request.getRole())
-                            .build();
-
-                    return userService.createUser(user)
-                            .flatMap(this::generateTokenResponse);
-                });
+        User user = User.builder()
+                .email(request.getEmail())
+                .password(request.getPassword())
+                .firstName(request.getFirstName())
+                .lastName(request.getLastName())
+                .role(request.getRole())
+                .build();
+
+        // Empty when the email is already taken; the insert itself detects the conflict
+        return authMetrics.flow(AuthMetrics.REGISTER, userService.createUser(user)
+                .flatMap(created -> generateTokenResponse(AuthMetrics.REGISTER, created)));
     }
 
     public Mono<TokenResponse> refreshToken(String refreshToken) {
-        return refreshTokenService.findByToken(refreshToken)
-                .filter(token -> !token.isRevoked() && token.getExpiryDate().isAfter(Instant.now()))
-                .flatMap(token -> userService.findById(token.getUserId()))
-                .flatMap(this::generateTokenResponse);
+        String rotatedToken = refreshTokenService.generateToken();
+
+        return authMetrics.flow(AuthMetrics.REFRESH,
+                authMetrics.phase(AuthMetrics.REFRESH, AuthMetrics.REFRESH_TOKEN_ROTATE,
+                                refreshTokenService.rotate(refreshToken, rotatedToken))
+                        .flatMap(userId -> authMetrics.phase(AuthMetrics.REFRESH, AuthMetrics.USER_LOOKUP,
+                                userService.findById(userId)))
+                        .map(user -> buildTokenResponse(user, signAccessToken(AuthMetrics.REFRESH, user), rotatedToken)));
     }
 
-    public Mono<Void> initiatePasswordReset(String email) {
-        return userService.findByUsername(email)
-                .cast(User.class)
-                .flatMap(user -> passwordResetService.createToken(user)
-                        .flatMap(token -> emailService.sendPasswordResetEmail(user.getEmail(), token)))
+    public Mono<Void> initiatePasswordReset(String email, Locale locale) {
+        // The email is delivered by EmailOutboxWorker, so the request does not wait on SMTP
+        return authMetrics.flow(AuthMetrics.PASSWORD_RESET,
+                authMetrics.phase(AuthMetrics.PASSWORD_RESET, AuthMetrics.EMAIL_ENQUEUE,
+                        passwordResetService.createToken(email, locale)))
                 .then();
     }
 
     public Mono<Void> completePasswordReset(String token, String newPassword) {
-        return passwordResetService.validateToken(token)
-                .flatMap(resetToken -> userService.changePassword(resetToken.getUserId(), newPassword)
-                        .then(passwordResetService.markTokenUsed(resetToken.getToken())))
+        return passwordResetService.consumeToken(token)
+                .flatMap(userId -> userService.changePassword(userId, newPassword))
                 .then();
     }
 
-    private Mono<TokenResponse> generateTokenResponse(User user) {
-        String accessToken = jwtUtil.generateToken(user);
-        String refreshToken = jwtUtil.generateRefreshToken(user);
+    private void upgradePasswordHash(User user, String rawPassword) {
+        // Off the response path: a failed upgrade is retried on the next login
+        userService.upgradePasswordHash(user, rawPassword)
+                .subscribe(null, e -> log.warn("Could not upgrade the password hash of user {}: {}",
+                        user.getId(), e.getMessage()));
+    }
+
+    private Mono<TokenResponse> generateTokenResponse(String flow, User user) {
+        String accessToken = signAccessToken(flow, user);
+        String refreshToken = refreshTokenService.generateToken();
+
+        return authMetrics.phase(flow, AuthMetrics.REFRESH_TOKEN_PERSIST,
+                        refreshTokenService.createRefreshToken(user.getId(), refreshToken))
+                .map(token -> buildTokenResponse(user, accessToken, refreshToken));
+    }
 
-        return refreshTokenService.createRefreshToken(user.getId(), refreshToken)
-                .map(token -> TokenResponse.builder()
-                        .token(accessToken)
-                        .refreshToken(refreshToken)
-                        .user(mapUserToResponse(user))
-                        .build());
+    private String signAccessToken(String flow, User user) {
+        return authMetrics.phase(flow, AuthMetrics.TOKEN_SIGN, () -> jwtUtil.generateToken(user));
     }
 
-    private UserResponse mapUserToResponse(User user) {
-        return UserResponse.builder()
-                .id(user.getId())
-                .email(user.getEmail())
-                .firstName(user.getFirstName())
-                .lastName(user.getLastName())
-                .role(user.getRole())
-                .createdAt(user.getCreatedAt())
-                .updatedAt(user.getUpdatedAt())
+    private TokenResponse buildTokenResponse(User user, String accessToken, String refreshToken) {
+        return TokenResponse.builder()
+                .token(accessToken)
+                .refreshToken(refreshToken)
+                .user(UserResponse.from(user))
                 .build();
     }
 }
\ No newline at end of file
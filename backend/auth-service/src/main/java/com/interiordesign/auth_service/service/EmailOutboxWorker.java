@@ -0,0 +1,139 @@
+package com.interiordesign.auth_service.service;
+
+import com.interiordesign.auth_service.model.EmailOutboxMessage;
+import com.interiordesign.auth_service.repository.EmailOutboxRepository;
+import io.micrometer.core.instrument.Counter;
+import io.micrometer.core.instrument.Gauge;
+import io.micrometer.core.instrument.MeterRegistry;
+import io.micrometer.core.instrument.Timer;
+import lombok.extern.slf4j.Slf4j;
+import org.springframework.beans.factory.annotation.Value;
+import org.springframework.boot.autoconfigure.condition.ConditionalOnProperty;
+import org.springframework.scheduling.annotation.Scheduled;
+import org.springframework.stereotype.Service;
+import reactor.core.publisher.Flux;
+import reactor.core.publisher.Mono;
+import reactor.core.scheduler.Schedulers;
+
+import java.time.Duration;
+import java.time.Instant;
+import java.util.List;
+import java.util.Map;
+import java.util.concurrent.atomic.AtomicLong;
+
+/**
+ * Drains the email outbox: leases due messages, sends them in batches over one SMTP
+ * connection per batch and reschedules failures with exponential backoff.
+ */
+@Slf4j
+@Service
+@ConditionalOnProperty(name = "email.outbox.enabled", havingValue = "true", matchIfMissing = true)
+public class EmailOutboxWorker {
+
+    private final EmailOutboxRepository emailOutboxRepository;
+    private final EmailService emailService;
+    private final int batchSize;
+    private final int concurrency;
+    private final int maxAttempts;
+    private final Duration initialBackoff;
+    private final Duration maxBackoff;
+    private final Duration lease;
+
+    private final Counter sentCounter;
+    private final Counter retriedCounter;
+    private final Counter failedCounter;
+    private final Timer batchTimer;
+    private final AtomicLong lagSeconds = new AtomicLong();
+
+    public EmailOutboxWorker(EmailOutboxRepository emailOutboxRepository,
+                             EmailService emailService,
+                             MeterRegistry meterRegistry,
+                             @Value("${email.outbox.batch-size:50}") int batchSize,
+                             @Value("${email.outbox.concurrency:2}") int concurrency,
+                             @Value("${email.outbox.max-attempts:8}") int maxAttempts,
+                             @Value("${email.outbox.initial-backoff:PT30S}") Duration initialBackoff,
+                             @Value("${email.outbox.max-backoff:PT1H}") Duration maxBackoff,
+                             @Value("${email.outbox.lease:PT5M}") Duration lease) {
+        this.emailOutboxRepository = emailOutboxRepository;
+        this.emailService = emailService;
+        this.batchSize = batchSize;
+        this.concurrency = concurrency;
+        this.maxAttempts = maxAttempts;
+        this.initialBackoff = initialBackoff;
+        this.maxBackoff = maxBackoff;
+        this.lease = lease;
+
+        this.sentCounter = outcomeCounter(meterRegistry, "sent");
+        this.retriedCounter = outcomeCounter(meterRegistry, "retried");
+        this.failedCounter = outcomeCounter(meterRegistry, "failed");
+        this.batchTimer = Timer.builder("auth.email.outbox.batch")
+                .description("Time spent sending one batch over a single SMTP connection")
+                .register(meterRegistry);
+        Gauge.builder("auth.email.outbox.lag", lagSeconds, AtomicLong::get)
+                .description("Age in seconds of the oldest message still waiting to be sent")
+                .baseUnit("seconds")
+                .register(meterRegistry);
+    }
+
+    @Scheduled(initialDelayString = "${email.outbox.poll-interval:PT2S}",
+            fixedDelayString = "${email.outbox.poll-interval:PT2S}")
+    public Mono<Void> drain() {
+        return emailOutboxRepository.claimDue(batchSize * concurrency, Instant.now().plus(lease))
+                .buffer(batchSize)
+                .flatMap(this::sendBatch, concurrency)
+                .then(emailOutboxRepository.oldestPendingAgeSeconds()
+                        .doOnNext(age -> lagSeconds.set(age.longValue())))
+                .then()
+                .onErrorResume(e -> {
+                    log.warn("Email outbox drain failed: {}", e.getMessage());
+                    return Mono.empty();
+                });
+    }
+
+    private Mono<Void> sendBatch(List<EmailOutboxMessage> batch) {
+        return Mono.fromCallable(() -> batchTimer.record(() -> emailService.sendBatch(batch)))
+                .subscribeOn(Schedulers.boundedElastic())
+                .flatMap(failures -> recordOutcome(batch, failures));
+    }
+
+    private Mono<Void> recordOutcome(List<EmailOutboxMessage> batch, Map<Long, Exception> failures) {
+        Long[] sentIds = batch.stream()
+                .map(EmailOutboxMessage::getId)
+                .filter(id -> !failures.containsKey(id))
+                .toArray(Long[]::new);
+        sentCounter.increment(sentIds.length);
+
+        Mono<Integer> markSent = sentIds.length == 0
+                ? Mono.just(0)
+                : emailOutboxRepository.markSent(sentIds);
+
+        return markSent.thenMany(Flux.fromIterable(batch)
+                        .filter(message -> failures.containsKey(message.getId()))
+                        .concatMap(message -> reschedule(message, failures.get(message.getId()))))
+                .then();
+    }
+
+    private Mono<Integer> reschedule(EmailOutboxMessage message, Exception failure) {
+        boolean exhausted = message.getAttempts() >= maxAttempts;
+        (exhausted ? failedCounter : retriedCounter).increment();
+        log.warn("Sending email {} failed on attempt {}: {}", message.getId(), message.getAttempts(),
+                failure.getMessage());
+
+        return emailOutboxRepository.markFailed(message.getId(),
+                exhausted ? EmailOutboxMessage.FAILED : EmailOutboxMessage.PENDING,
+                Instant.now().plus(backoff(message.getAttempts())),
+                String.valueOf(failure.getMessage()));
+    }
+
+    private Duration backoff(int attempts) {
+        Duration delay = initialBackoff.multipliedBy(1L << Math.max(0, Math.min(attempts - 1, 20)));
+        return delay.compareTo(maxBackoff) > 0 ? maxBackoff : delay;
+    }
+
+    private static Counter outcomeCounter(MeterRegistry meterRegistry, String outcome) {
+        return Counter.builder("auth.email.outbox.messages")
+                .description("Outbox messages processed, by outcome")
+                .tag("outcome", outcome)
+                .register(meterRegistry);
+    }
+}
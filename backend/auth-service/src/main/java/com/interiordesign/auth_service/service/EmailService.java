@@ -1,26 +1,39 @@
 package com.interiordesign.auth_service.service;
 
+import com.fasterxml.jackson.core.JsonProcessingException;
+import com.fasterxml.jackson.core.type.TypeReference;
+import com.fasterxml.jackson.databind.ObjectMapper;
+import com.interiordesign.auth_service.model.EmailOutboxMessage;
 import lombok.RequiredArgsConstructor;
 import org.springframework.beans.factory.annotation.Value;
+import org.springframework.mail.MailException;
+import org.springframework.mail.MailSendException;
 import org.springframework.mail.javamail.JavaMailSender;
 import org.springframework.mail.javamail.MimeMessageHelper;
 import org.springframework.stereotype.Service;
-import org.thymeleaf.TemplateEngine;
-import org.thymeleaf.context.Context;
-import reactor.core.publisher.Mono;
-import reactor.core.scheduler.Schedulers;
 
 import jakarta.mail.MessagingException;
 import jakarta.mail.internet.MimeMessage;
+import java.util.ArrayList;
 import java.util.HashMap;
+import java.util.IdentityHashMap;
+import java.util.List;
+import java.util.Locale;
 import java.util.Map;
 
 @Service
 @RequiredArgsConstructor
 public class EmailService {
 
+    public static final String PASSWORD_RESET_TEMPLATE = "password-reset-email";
+    public static final String PASSWORD_RESET_SUBJECT = "Password Reset Request";
+
+    private static final TypeReference<Map<String, Object>> VARIABLES_TYPE = new TypeReference<>() {
+    };
+
     private final JavaMailSender emailSender;
-    private final TemplateEngine templateEngine;
+    private final EmailTemplateRenderer templateRenderer;
+    private final ObjectMapper objectMapper;
 
     @Value("${app.base-url}")
     private String baseUrl;
@@ -28,31 +41,67 @@ public class EmailService {
     @Value("${spring.mail.username}")
     private String fromEmail;
 
-    public Mono<Void> sendPasswordResetEmail(String toEmail, String token) {
-        String resetUrl = baseUrl + "/reset-password?token=" + token;
+    public String passwordResetVariables(String token) {
+        Map<String, Object> variables = new HashMap<>();
+        variables.put("resetUrl", baseUrl + "/reset-password?token=" + token);
+        try {
+            return objectMapper.writeValueAsString(variables);
+        } catch (JsonProcessingException e) {
+            throw new IllegalStateException("Failed to serialize email variables", e);
+        }
+    }
+
+    /**
+     * Renders and sends the batch over a single SMTP connection. Blocking; returns the
+     * failure for every message that was not delivered, keyed by outbox id.
+     */
+    public Map<Long, Exception> sendBatch(List<EmailOutboxMessage> batch) {
+        Map<Long, Exception> failures = new HashMap<>();
+        Map<MimeMessage, Long> outboxIds = new IdentityHashMap<>();
+        List<MimeMessage> messages = new ArrayList<>(batch.size());
 
-        return Mono.fromRunnable(() -> {
+        for (EmailOutboxMessage outboxMessage : batch) {
             try {
-                MimeMessage message = emailSender.createMimeMessage();
-                MimeMessageHelper helper = new MimeMessageHelper(message, true, "UTF-8");
+                MimeMessage message = buildMessage(outboxMessage);
+                outboxIds.put(message, outboxMessage.getId());
+                messages.add(message);
+            } catch (MessagingException | JsonProcessingException | RuntimeException e) {
+                failures.put(outboxMessage.getId(), e);
+            }
+        }
+        if (messages.isEmpty()) {
+            return failures;
+        }
 
-                helper.setFrom(fromEmail);
-                helper.setTo(toEmail);
-                helper.setSubject("Password Reset Request");
+        try {
+            emailSender.send(messages.toArray(new MimeMessage[0]));
+        } catch (MailSendException e) {
+            if (e.getFailedMessages().isEmpty()) {
+                outboxIds.values().forEach(id -> failures.put(id, e));
+            } else {
+                e.getFailedMessages().forEach((message, cause) -> failures.put(outboxIds.get(message), cause));
+            }
+        } catch (MailException e) {
+            outboxIds.values().forEach(id -> failures.put(id, e));
+        }
+        return failures;
+    }
 
-                Map<String, Object> variables = new HashMap<>();
-                variables.put("resetUrl", resetUrl);
+    private MimeMessage buildMessage(EmailOutboxMessage outboxMessage)
+            throws MessagingException, JsonProcessingException {
+        MimeMessage message = emailSender.createMimeMessage();
+        // HTML body only, so a plain single-part message is enough
+        MimeMessageHelper helper = new MimeMessageHelper(message, false, "UTF-8");
 
-                Context context = new Context();
-                context.setVariables(variables);
-                String emailContent = templateEngine.process("password-reset-email", context);
+        helper.setFrom(fromEmail);
+        helper.setTo(outboxMessage.getRecipient());
+        helper.setSubject(outboxMessage.getSubject());
 
-                helper.setText(emailContent, true);
-                emailSender.send(message);
+        Locale locale = outboxMessage.getLocale() != null ? Locale.forLanguageTag(outboxMessage.getLocale()) : null;
+        String emailContent = templateRenderer.render(outboxMessage.getTemplate(), locale,
+                objectMapper.readValue(outboxMessage.getVariables(), VARIABLES_TYPE));
 
-            } catch (MessagingException e) {
-                throw new RuntimeException("Failed to send email", e);
-            }
-        }).subscribeOn(Schedulers.boundedElastic()).then();
+        helper.setText(emailContent, true);
+        return message;
     }
-}
\ No newline at end of file
+}
@@ -0,0 +1,116 @@
+package com.interiordesign.auth_service.service;
+
+import jakarta.annotation.PostConstruct;
+import lombok.extern.slf4j.Slf4j;
+import org.springframework.beans.factory.annotation.Qualifier;
+import org.springframework.beans.factory.annotation.Value;
+import org.springframework.core.io.ClassPathResource;
+import org.springframework.core.io.Resource;
+import org.springframework.core.io.support.PathMatchingResourcePatternResolver;
+import org.springframework.stereotype.Component;
+import org.thymeleaf.TemplateEngine;
+import org.thymeleaf.context.Context;
+
+import java.io.IOException;
+import java.io.StringWriter;
+import java.io.Writer;
+import java.util.Locale;
+import java.util.Map;
+import java.util.concurrent.ConcurrentHashMap;
+
+/**
+ * Renders the email templates. Templates are parsed once and kept in the engine's bounded cache;
+ * a localized variant such as {@code password-reset-email_fr.html} is used when one exists for the
+ * requested locale. With {@code email.templates.cache=false} every render reads the template again,
+ * so edits show up without a restart.
+ */
+@Slf4j
+@Component
+public class EmailTemplateRenderer {
+
+    public static final String TEMPLATE_PREFIX = "templates/email/";
+    public static final String TEMPLATE_SUFFIX = ".html";
+
+    // Buffers that grew past this are not kept for the next render
+    private static final int MAX_RETAINED_BUFFER = 64 * 1024;
+
+    private final TemplateEngine templateEngine;
+    private final boolean cacheable;
+    private final Map<String, String> resolvedNames = new ConcurrentHashMap<>();
+    private final ThreadLocal<StringWriter> buffers = ThreadLocal.withInitial(() -> new StringWriter(8 * 1024));
+
+    // By name: Spring Boot also registers a TemplateEngine, for web views under templates/
+    public EmailTemplateRenderer(@Qualifier("emailTemplateEngine") TemplateEngine templateEngine,
+                                 @Value("${email.templates.cache:true}") boolean cacheable) {
+        this.templateEngine = templateEngine;
+        this.cacheable = cacheable;
+    }
+
+    /**
+     * Parses every email template up front so the first email does not pay for it.
+     */
+    @PostConstruct
+    public void warmUp() {
+        if (!cacheable) {
+            return;
+        }
+        try {
+            Resource[] templates = new PathMatchingResourcePatternResolver()
+                    .getResources("classpath*:" + TEMPLATE_PREFIX + "*" + TEMPLATE_SUFFIX);
+            for (Resource template : templates) {
+                String filename = template.getFilename();
+                if (filename == null) {
+                    continue;
+                }
+                String name = filename.substring(0, filename.length() - TEMPLATE_SUFFIX.length());
+                templateEngine.process(name, new Context(), Writer.nullWriter());
+            }
+            log.debug("Warmed {} email templates", templates.length);
+        } catch (IOException | RuntimeException e) {
+            log.warn("Email template warm-up failed: {}", e.getMessage());
+        }
+    }
+
+    public String render(String template, Locale locale, Map<String, Object> variables) {
+        Context context = new Context(locale != null ? locale : Locale.getDefault(), variables);
+        StringWriter writer = buffers.get();
+        writer.getBuffer().setLength(0);
+
+        templateEngine.process(resolve(template, locale), context, writer);
+
+        String rendered = writer.toString();
+        if (writer.getBuffer().capacity() > MAX_RETAINED_BUFFER) {
+            buffers.remove();
+        }
+        return rendered;
+    }
+
+    /**
+     * Picks the most specific variant that exists: name_lang_COUNTRY, then name_lang, then name.
+     */
+    String resolve(String template, Locale locale) {
+        if (locale == null || locale.getLanguage().isEmpty()) {
+            return template;
+        }
+        if (!cacheable) {
+            return findVariant(template, locale);
+        }
+        return resolvedNames.computeIfAbsent(template + '|' + locale.toLanguageTag(),
+                key -> findVariant(template, locale));
+    }
+
+    private static String findVariant(String template, Locale locale) {
+        if (!locale.getCountry().isEmpty()) {
+            String regional = template + '_' + locale.getLanguage() + '_' + locale.getCountry();
+            if (exists(regional)) {
+                return regional;
+            }
+        }
+        String language = template + '_' + locale.getLanguage();
+        return exists(language) ? language : template;
+    }
+
+    private static boolean exists(String name) {
+        return new ClassPathResource(TEMPLATE_PREFIX + name + TEMPLATE_SUFFIX).exists();
+    }
+}
@@ -0,0 +1,151 @@
+package com.interiordesign.auth_service.service;
+
+import io.micrometer.core.instrument.Counter;
+import io.micrometer.core.instrument.Gauge;
+import io.micrometer.core.instrument.MeterRegistry;
+import lombok.extern.slf4j.Slf4j;
+import org.springframework.beans.factory.annotation.Value;
+import org.springframework.boot.autoconfigure.condition.ConditionalOnProperty;
+import org.springframework.r2dbc.core.DatabaseClient;
+import org.springframework.scheduling.annotation.Scheduled;
+import org.springframework.stereotype.Service;
+import reactor.core.publisher.Flux;
+import reactor.core.publisher.Mono;
+
+import java.time.Duration;
+import java.time.Instant;
+import java.util.concurrent.atomic.AtomicLong;
+
+/**
+ * Periodically removes expired, revoked and used rows from the token tables in bounded batches.
+ * Batches are claimed with FOR UPDATE SKIP LOCKED, so several nodes can run the reaper at once
+ * without blocking on or double-deleting each other's rows.
+ */
+@Slf4j
+@Service
+@ConditionalOnProperty(name = "token.cleanup.enabled", havingValue = "true", matchIfMissing = true)
+public class ExpiredTokenReaper {
+
+    private static final String REFRESH_TOKENS = "refresh_tokens";
+    private static final String PASSWORD_RESET_TOKENS = "password_reset_tokens";
+    private static final String EMAIL_OUTBOX = "email_outbox";
+    private static final String REVOKED_ACCESS_TOKENS = "revoked_access_tokens";
+
+    private final DatabaseClient databaseClient;
+    private final MeterRegistry meterRegistry;
+    private final int batchSize;
+    private final int maxBatches;
+    private final Duration revokedRetention;
+    private final boolean partitioned;
+
+    private final AtomicLong refreshTokenRows = new AtomicLong();
+    private final AtomicLong passwordResetTokenRows = new AtomicLong();
+
+    public ExpiredTokenReaper(DatabaseClient databaseClient,
+                              MeterRegistry meterRegistry,
+                              @Value("${token.cleanup.batch-size:1000}") int batchSize,
+                              @Value("${token.cleanup.max-batches:50}") int maxBatches,
+                              @Value("${token.cleanup.revoked-retention:24h}") Duration revokedRetention,
+                              @Value("${token.cleanup.partitioned:false}") boolean partitioned) {
+        this.databaseClient = databaseClient;
+        this.meterRegistry = meterRegistry;
+        this.batchSize = batchSize;
+        this.maxBatches = maxBatches;
+        this.revokedRetention = revokedRetention;
+        this.partitioned = partitioned;
+
+        Gauge.builder("auth.tokens.rows", refreshTokenRows, AtomicLong::get)
+                .description("Estimated rows remaining in the token table after the last cleanup")
+                .tag("table", REFRESH_TOKENS)
+                .register(meterRegistry);
+        Gauge.builder("auth.tokens.rows", passwordResetTokenRows, AtomicLong::get)
+                .description("Estimated rows remaining in the token table after the last cleanup")
+                .tag("table", PASSWORD_RESET_TOKENS)
+                .register(meterRegistry);
+    }
+
+    @Scheduled(initialDelayString = "${token.cleanup.initial-delay:PT1M}",
+            fixedDelayString = "${token.cleanup.interval:PT15M}")
+    public Mono<Void> purgeExpiredTokens() {
+        // Revoked refresh tokens are kept for a while after their revocation so that replaying them
+        // can still be detected
+        Instant revokedBefore = Instant.now().minus(revokedRetention);
+
+        return maintainPartitions()
+                .then(purge(REFRESH_TOKENS,
+                        "expiry_date < now() OR (revoked AND revoked_at < :revokedBefore)", revokedBefore))
+                .then(purge(PASSWORD_RESET_TOKENS,
+                        "expiry_date < now() OR (used AND created_at < :revokedBefore)", revokedBefore))
+                // Failed messages are kept as long for inspection; their variables hold links with live tokens
+                .then(purge(EMAIL_OUTBOX, "(status = 'SENT' AND sent_at < :revokedBefore) "
+                        + "OR (status = 'FAILED' AND created_at < :revokedBefore)", revokedBefore))
+                // Nodes only reload unexpired revocations, so rows can go as soon as their token expires
+                .then(purge(REVOKED_ACCESS_TOKENS, "jti", "expires_at < :revokedBefore", Instant.now()))
+                .then(estimateRows(REFRESH_TOKENS).doOnNext(refreshTokenRows::set))
+                .then(estimateRows(PASSWORD_RESET_TOKENS).doOnNext(passwordResetTokenRows::set))
+                .then()
+                .onErrorResume(e -> {
+                    log.warn("Token cleanup failed: {}", e.getMessage());
+                    return Mono.empty();
+                });
+    }
+
+    private Mono<Void> maintainPartitions() {
+        if (!partitioned) {
+            return Mono.empty();
+        }
+        // Functions are defined in schema-partitioned.sql
+        return Flux.just(REFRESH_TOKENS, PASSWORD_RESET_TOKENS)
+                .concatMap(table -> databaseClient.sql("SELECT ensure_token_partitions(:table, 14)")
+                        .bind("table", table)
+                        .then()
+                        .then(databaseClient.sql("SELECT drop_expired_token_partitions(:table)")
+                                .bind("table", table)
+                                .map(row -> row.get(0, Integer.class))
+                                .one()
+                                .doOnNext(dropped -> {
+                                    if (dropped > 0) {
+                                        log.info("Dropped {} expired partitions of {}", dropped, table);
+                                    }
+                                })))
+                .then();
+    }
+
+    private Mono<Long> purge(String table, String condition, Instant revokedBefore) {
+        return purge(table, "id", condition, revokedBefore);
+    }
+
+    private Mono<Long> purge(String table, String key, String condition, Instant revokedBefore) {
+        String sql = "DELETE FROM " + table + " WHERE " + key + " IN (SELECT " + key + " FROM " + table
+                + " WHERE " + condition + " LIMIT :limit FOR UPDATE SKIP LOCKED)";
+        Counter purged = Counter.builder("auth.tokens.purged")
+                .description("Expired, revoked or used token rows deleted by the cleanup job")
+                .tag("table", table)
+                .register(meterRegistry);
+
+        return Flux.range(0, maxBatches)
+                .concatMap(batch -> databaseClient.sql(sql)
+                        .bind("revokedBefore", revokedBefore)
+                        .bind("limit", batchSize)
+                        .fetch()
+                        .rowsUpdated())
+                .takeUntil(deleted -> deleted < batchSize)
+                .doOnNext(purged::increment)
+                .reduce(0L, Long::sum)
+                .doOnNext(total -> {
+                    if (total > 0) {
+                        log.debug("Purged {} rows from {}", total, table);
+                    }
+                });
+    }
+
+    private Mono<Long> estimateRows(String table) {
+        // Planner estimates are cheap and good enough for a trend; partitions are summed
+        return databaseClient.sql("SELECT COALESCE(SUM(GREATEST(c.reltuples, 0)), 0)::bigint FROM pg_class c "
+                        + "WHERE c.oid = CAST(:table AS regclass) "
+                        + "OR c.oid IN (SELECT inhrelid FROM pg_inherits WHERE inhparent = CAST(:table AS regclass))")
+                .bind("table", table)
+                .map(row -> row.get(0, Long.class))
+                .one();
+    }
+}
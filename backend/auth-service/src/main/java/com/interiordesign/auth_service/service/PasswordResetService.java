@@ -1,7 +1,5 @@
 package com.interiordesign.auth_service.service;
 
-import com.interiordesign.auth_service.model.PasswordResetToken;
-import com.interiordesign.auth_service.model.User;
 import com.interiordesign.auth_service.repository.PasswordResetTokenRepository;
 import lombok.RequiredArgsConstructor;
 import org.springframework.beans.factory.annotation.Value;
@@ -9,6 +7,7 @@ import org.springframework.stereotype.Service;
 import reactor.core.publisher.Mono;
 
 import java.time.Instant;
+import java.util.Locale;
 import java.util.UUID;
 
 @Service
@@ -16,38 +15,24 @@ import java.util.UUID;
 public class PasswordResetService {
 
     private final PasswordResetTokenRepository passwordResetTokenRepository;
+    private final EmailService emailService;
 
     @Value("${password.reset.expiration:86400000}") // 24 hours in milliseconds by default
     private Long tokenExpirationMs;
 
-    public Mono<String> createToken(User user) {
-        // First, delete any existing tokens for this user
-        return passwordResetTokenRepository.deleteByUserId(user.getId())
-                .then(Mono.defer(() -> {
-                    String token = UUID.randomUUID().toString();
-                    PasswordResetToken resetToken = PasswordResetToken.builder()
-                            .userId(user.getId())
-                            .token(token)
-                            .expiryDate(Instant.now().plusMillis(tokenExpirationMs))
-                            .used(false)
-                            .createdAt(Instant.now())
-                            .build();
-
-                    return passwordResetTokenRepository.save(resetToken)
-                            .map(saved -> token);
-                }));
-    }
-
-    public Mono<PasswordResetToken> validateToken(String token) {
-        return passwordResetTokenRepository.findByToken(token)
-                .filter(resetToken -> !resetToken.isUsed() && resetToken.getExpiryDate().isAfter(Instant.now()));
+    public Mono<String> createToken(String email, Locale locale) {
+        // Existing tokens are deleted and the reset email is queued in the same statement
+        String token = UUID.randomUUID().toString();
+        return passwordResetTokenRepository.replaceTokenAndQueueEmail(email, token,
+                        Instant.now().plusMillis(tokenExpirationMs),
+                        EmailService.PASSWORD_RESET_SUBJECT,
+                        EmailService.PASSWORD_RESET_TEMPLATE,
+                        emailService.passwordResetVariables(token),
+                        locale != null ? locale.toLanguageTag() : null)
+                .map(outboxId -> token);
     }
 
-    public Mono<PasswordResetToken> markTokenUsed(String token) {
-        return passwordResetTokenRepository.findByToken(token)
-                .flatMap(resetToken -> {
-                    resetToken.setUsed(true);
-                    return passwordResetTokenRepository.save(resetToken);
-                });
+    public Mono<Long> consumeToken(String token) {
+        return passwordResetTokenRepository.consumeToken(token);
     }
 }
@@ -2,29 +2,52 @@ package com.interiordesign.auth_service.service;
 
 import com.interiordesign.auth_service.model.RefreshToken;
 import com.interiordesign.auth_service.repository.RefreshTokenRepository;
+import com.interiordesign.auth_service.security.VerifiedTokenCache;
 import lombok.RequiredArgsConstructor;
+import lombok.extern.slf4j.Slf4j;
 import org.springframework.beans.factory.annotation.Value;
 import org.springframework.stereotype.Service;
 import reactor.core.publisher.Mono;
 
+import java.nio.charset.StandardCharsets;
+import java.security.MessageDigest;
+import java.security.NoSuchAlgorithmException;
+import java.security.SecureRandom;
 import java.time.Instant;
+import java.util.Base64;
+import java.util.UUID;
 
+@Slf4j
 @Service
 @RequiredArgsConstructor
 public class RefreshTokenService {
 
+    private static final SecureRandom SECURE_RANDOM = new SecureRandom();
+    private static final int TOKEN_BYTES = 32;
+
     private final RefreshTokenRepository refreshTokenRepository;
+    private final VerifiedTokenCache verifiedTokenCache;
 
     @Value("${jwt.refresh-expiration}")
     private Long refreshTokenDurationMs;
 
+    /**
+     * Generates a 256-bit opaque refresh token. Only its SHA-256 digest is ever persisted.
+     */
+    public String generateToken() {
+        byte[] bytes = new byte[TOKEN_BYTES];
+        SECURE_RANDOM.nextBytes(bytes);
+        return Base64.getUrlEncoder().withoutPadding().encodeToString(bytes);
+    }
+
     public Mono<RefreshToken> createRefreshToken(Long userId, String token) {
         // First revoke any existing refresh tokens for this user
         return revokeAllUserTokens(userId)
                 .then(Mono.defer(() -> {
                     RefreshToken refreshToken = RefreshToken.builder()
                             .userId(userId)
-                            .token(token)
+                            .tokenHash(hash(token))
+                            .familyId(UUID.randomUUID())
                             .expiryDate(Instant.now().plusMillis(refreshTokenDurationMs))
                             .revoked(false)
                             .createdAt(Instant.now())
@@ -34,29 +57,41 @@ public class RefreshTokenService {
                 }));
     }
 
-    public Mono<RefreshToken> findByToken(String token) {
-        return refreshTokenRepository.findByToken(token);
+    /**
+     * Atomically swaps the presented token for newToken and returns the owning user id.
+     * Empty if the token is unknown, expired or already used; a token that was already
+     * rotated or revoked is treated as stolen and its whole family is revoked.
+     */
+    public Mono<Long> rotate(String presentedToken, String newToken) {
+        byte[] presentedHash = hash(presentedToken);
+        return refreshTokenRepository.rotate(presentedHash, hash(newToken),
+                        Instant.now().plusMillis(refreshTokenDurationMs))
+                .switchIfEmpty(Mono.defer(() -> refreshTokenRepository.revokeFamilyOfReusedToken(presentedHash)
+                        .distinct()
+                        .doOnNext(userId -> {
+                            log.warn("Refresh token reuse detected for user {}, revoking token family", userId);
+                            verifiedTokenCache.invalidateUser(userId);
+                        })
+                        .then(Mono.empty())));
     }
 
     public Mono<Void> deleteByToken(String token) {
-        return refreshTokenRepository.findByToken(token)
-                .flatMap(refreshToken -> {
-                    refreshToken.setRevoked(true);
-                    return refreshTokenRepository.save(refreshToken);
-                })
+        return refreshTokenRepository.revokeByTokenHash(hash(token))
+                .doOnNext(verifiedTokenCache::invalidateUser)
                 .then();
     }
 
     public Mono<Void> revokeAllUserTokens(Long userId) {
-        return refreshTokenRepository.findByUserId(userId)
-                .flatMap(token -> {
-                    token.setRevoked(true);
-                    return refreshTokenRepository.save(token);
-                })
+        return refreshTokenRepository.revokeAllByUserId(userId)
                 .then();
     }
 
-    public Mono<Void> deleteAllUserTokens(Long userId) {
-        return refreshTokenRepository.deleteByUserId(userId);
+    // Also matches the digests backfilled in schema.sql for refresh JWTs issued before opaque tokens
+    static byte[] hash(String token) {
+        try {
+            return MessageDigest.getInstance("SHA-256").digest(token.getBytes(StandardCharsets.UTF_8));
+        } catch (NoSuchAlgorithmException e) {
+            throw new IllegalStateException("SHA-256 not available", e);
+        }
     }
 }
@@ -0,0 +1,138 @@
+package com.interiordesign.auth_service.service;
+
+import com.interiordesign.auth_service.repository.SigningKeyRepository;
+import com.interiordesign.auth_service.security.SigningKey;
+import com.interiordesign.auth_service.security.SigningKeyRing;
+import io.micrometer.core.instrument.Gauge;
+import io.micrometer.core.instrument.MeterRegistry;
+import jakarta.annotation.PostConstruct;
+import lombok.extern.slf4j.Slf4j;
+import org.springframework.beans.factory.annotation.Value;
+import org.springframework.boot.sql.init.dependency.DependsOnDatabaseInitialization;
+import org.springframework.scheduling.annotation.Scheduled;
+import org.springframework.stereotype.Service;
+import reactor.core.publisher.Mono;
+import reactor.core.scheduler.Schedulers;
+
+import java.time.Duration;
+import java.time.Instant;
+import java.util.List;
+
+/**
+ * Keeps the signing key ring in step with the signing_keys table and rotates keys on schedule.
+ * <p>
+ * A new key is created {@code publish-ahead} before it starts signing, so verifiers that cache
+ * the JWKS have fetched it before they meet a token it signed. Superseded keys stay in the JWKS
+ * until every access token they signed has expired. Every node runs the same job; nodes racing to create
+ * the same generation are settled by the primary key, and the losers load the winner's key.
+ */
+@Slf4j
+@Service
+@DependsOnDatabaseInitialization
+public class SigningKeyManager {
+
+    private final SigningKeyRepository signingKeyRepository;
+    private final SigningKeyRing signingKeyRing;
+    private final int keySize;
+    private final Duration rotationInterval;
+    private final Duration publishAhead;
+    private final Duration retention;
+    private final Duration startupTimeout;
+    private final boolean scheduledRefresh;
+
+    public SigningKeyManager(SigningKeyRepository signingKeyRepository,
+                             SigningKeyRing signingKeyRing,
+                             MeterRegistry meterRegistry,
+                             @Value("${jwt.signing.key-size:2048}") int keySize,
+                             @Value("${jwt.signing.rotation-interval:30d}") Duration rotationInterval,
+                             @Value("${jwt.signing.publish-ahead:1h}") Duration publishAhead,
+                             @Value("${jwt.signing.refresh-interval:1m}") Duration refreshInterval,
+                             @Value("${jwt.signing.jwks-max-age:10m}") Duration jwksMaxAge,
+                             @Value("${jwt.signing.startup-timeout:10s}") Duration startupTimeout,
+                             @Value("${jwt.signing.scheduled-refresh:true}") boolean scheduledRefresh,
+                             @Value("${jwt.signing.clock-skew:5m}") Duration clockSkew,
+                             @Value("${jwt.expiration}") long jwtExpiration) {
+        this.signingKeyRepository = signingKeyRepository;
+        this.signingKeyRing = signingKeyRing;
+        this.keySize = keySize;
+        this.rotationInterval = rotationInterval;
+        this.publishAhead = publishAhead;
+        // Only access tokens are signed, refresh tokens are opaque; every access token a key signed has
+        // expired, even to a verifier whose clock is behind, once it has been superseded for this long
+        this.retention = Duration.ofMillis(jwtExpiration).plus(clockSkew);
+        this.startupTimeout = startupTimeout;
+        this.scheduledRefresh = scheduledRefresh;
+
+        if (refreshInterval.plus(jwksMaxAge).compareTo(publishAhead) > 0) {
+            log.warn("jwt.signing.publish-ahead ({}) is shorter than refresh-interval plus jwks-max-age ({}); "
+                    + "verifiers may see tokens from a key they have not fetched yet",
+                    publishAhead, refreshInterval.plus(jwksMaxAge));
+        }
+
+        Gauge.builder("auth.signing.keys", signingKeyRing, ring -> ring.keys().size())
+                .description("Signing keys published in the JWKS, including upcoming and superseded ones")
+                .register(meterRegistry);
+    }
+
+    /**
+     * Loads the keys, creating the first one if the table is empty, before the service takes
+     * traffic. Without a database the node starts anyway and keeps retrying on schedule; token
+     * issuing and verification fail until then.
+     */
+    @PostConstruct
+    void loadAtStartup() {
+        try {
+            refreshKeys().block(startupTimeout);
+        } catch (RuntimeException e) {
+            log.warn("Could not load signing keys at startup, retrying on schedule: {}", e.getMessage());
+        }
+    }
+
+    @Scheduled(initialDelayString = "${jwt.signing.refresh-interval:1m}",
+            fixedDelayString = "${jwt.signing.refresh-interval:1m}")
+    public Mono<Void> refresh() {
+        if (!scheduledRefresh) {
+            return Mono.empty();
+        }
+        return refreshKeys()
+                .onErrorResume(e -> {
+                    log.warn("Signing key refresh failed: {}", e.getMessage());
+                    return Mono.empty();
+                });
+    }
+
+    Mono<Void> refreshKeys() {
+        Instant retiredBefore = Instant.now().minus(retention);
+        return signingKeyRepository.deleteRetired(retiredBefore)
+                .doOnNext(deleted -> {
+                    if (deleted > 0) {
+                        log.info("Deleted {} retired signing keys", deleted);
+                    }
+                })
+                .then(signingKeyRepository.findUnretired(retiredBefore).collectList())
+                .flatMap(keys -> rotateIfDue(keys, retiredBefore))
+                .doOnNext(signingKeyRing::update)
+                .then();
+    }
+
+    private Mono<List<SigningKey>> rotateIfDue(List<SigningKey> keys, Instant retiredBefore) {
+        Instant now = Instant.now();
+        SigningKey newest = keys.isEmpty() ? null : keys.get(keys.size() - 1);
+        if (newest != null && now.isBefore(newest.activatesAt().plus(rotationInterval).minus(publishAhead))) {
+            return Mono.just(keys);
+        }
+
+        // The very first key signs at once: there is nobody yet who could have cached an older set
+        int generation = newest == null ? 1 : newest.generation() + 1;
+        Instant activatesAt = newest == null ? now : now.plus(publishAhead);
+        return Mono.fromCallable(() -> SigningKey.generate(generation, keySize, activatesAt))
+                .subscribeOn(Schedulers.boundedElastic())
+                .flatMap(signingKeyRepository::insertIfAbsent)
+                .doOnNext(inserted -> {
+                    if (inserted) {
+                        log.info("Created signing key generation {}, signing from {}", generation, activatesAt);
+                    }
+                })
+                .then(signingKeyRepository.findUnretired(retiredBefore).collectList());
+    }
+}
@@ -0,0 +1,152 @@
+package com.interiordesign.auth_service.service;
+
+import com.interiordesign.auth_service.dto.response.IntrospectionResponse;
+import com.interiordesign.auth_service.model.User;
+import com.interiordesign.auth_service.repository.UserQueryRepository;
+import com.interiordesign.auth_service.security.AccessTokenDenyList;
+import com.interiordesign.auth_service.security.JwtUtil;
+import com.interiordesign.auth_service.security.TokenClaims;
+import com.interiordesign.auth_service.security.VerifiedTokenCache;
+import org.springframework.beans.factory.annotation.Value;
+import org.springframework.http.HttpStatus;
+import org.springframework.security.core.Authentication;
+import org.springframework.stereotype.Service;
+import org.springframework.web.server.ResponseStatusException;
+import reactor.core.publisher.Flux;
+import reactor.core.publisher.Mono;
+import reactor.core.scheduler.Schedulers;
+
+import java.util.ArrayList;
+import java.util.HashSet;
+import java.util.List;
+import java.util.Map;
+import java.util.Set;
+import java.util.function.Function;
+import java.util.stream.Collectors;
+
+/**
+ * Introspects a batch of access tokens for a gateway in two steps: signatures are verified in
+ * parallel, then the owners of all valid tokens are loaded with a single query. A token is active
+ * when it verifies, has not expired or been revoked, is not older than its user's token version,
+ * and its user still exists under the same email and may log in, which are the checks the database
+ * authentication mode applies to each request.
+ */
+@Service
+public class TokenIntrospectionService {
+
+    private final JwtUtil jwtUtil;
+    private final VerifiedTokenCache verifiedTokenCache;
+    private final AccessTokenDenyList accessTokenDenyList;
+    private final UserQueryRepository userQueryRepository;
+    private final AuthMetrics authMetrics;
+    private final int maxBatchSize;
+
+    public TokenIntrospectionService(JwtUtil jwtUtil,
+                                     VerifiedTokenCache verifiedTokenCache,
+                                     AccessTokenDenyList accessTokenDenyList,
+                                     UserQueryRepository userQueryRepository,
+                                     AuthMetrics authMetrics,
+                                     @Value("${introspection.max-batch-size:100}") int maxBatchSize) {
+        this.jwtUtil = jwtUtil;
+        this.verifiedTokenCache = verifiedTokenCache;
+        this.accessTokenDenyList = accessTokenDenyList;
+        this.userQueryRepository = userQueryRepository;
+        this.authMetrics = authMetrics;
+        this.maxBatchSize = maxBatchSize;
+    }
+
+    /**
+     * One result per token, in the order of the tokens.
+     */
+    public Mono<List<IntrospectionResponse>> introspect(List<String> tokens) {
+        if (tokens.size() > maxBatchSize) {
+            return Mono.error(new ResponseStatusException(HttpStatus.BAD_REQUEST,
+                    "At most " + maxBatchSize + " tokens can be introspected at once"));
+        }
+
+        return authMetrics.flow(AuthMetrics.INTROSPECT,
+                authMetrics.phase(AuthMetrics.INTROSPECT, AuthMetrics.TOKEN_VERIFY, verifyAll(tokens))
+                        .flatMap(claims -> authMetrics.phase(AuthMetrics.INTROSPECT, AuthMetrics.USER_LOOKUP,
+                                        loadOwners(claims))
+                                .map(users -> toResponses(claims, users))));
+    }
+
+    // Null entries for tokens that do not verify; indices match the request
+    private Mono<TokenClaims[]> verifyAll(List<String> tokens) {
+        TokenClaims[] claims = new TokenClaims[tokens.size()];
+        return Flux.range(0, tokens.size())
+                .parallel(Math.min(tokens.size(), Schedulers.DEFAULT_POOL_SIZE))
+                .runOn(Schedulers.parallel())
+                .doOnNext(i -> claims[i] = verify(tokens.get(i)))
+                .sequential()
+                .then(Mono.fromSupplier(() -> claims));
+    }
+
+    private TokenClaims verify(String token) {
+        if (token == null || token.isBlank()) {
+            return null;
+        }
+        Authentication cached = verifiedTokenCache.get(token);
+        TokenClaims claims;
+        if (cached != null) {
+            claims = (TokenClaims) cached.getDetails();
+        } else {
+            try {
+                claims = jwtUtil.parseToken(token);
+            } catch (RuntimeException e) {
+                return null;
+            }
+        }
+        // Refresh tokens carry no role claim and are not access tokens
+        if (claims.getUserId() == null || claims.getRole() == null || claims.isExpired()
+                || accessTokenDenyList.isRevoked(claims)) {
+            return null;
+        }
+        return claims;
+    }
+
+    private Mono<Map<Long, User>> loadOwners(TokenClaims[] claims) {
+        Set<Long> userIds = new HashSet<>();
+        for (TokenClaims tokenClaims : claims) {
+            if (tokenClaims != null) {
+                userIds.add(tokenClaims.getUserId());
+            }
+        }
+        if (userIds.isEmpty()) {
+            return Mono.just(Map.of());
+        }
+        return userQueryRepository.findAllById(userIds)
+                .collect(Collectors.toMap(User::getId, Function.identity()));
+    }
+
+    private static List<IntrospectionResponse> toResponses(TokenClaims[] claims, Map<Long, User> users) {
+        List<IntrospectionResponse> responses = new ArrayList<>(claims.length);
+        for (TokenClaims tokenClaims : claims) {
+            User user = tokenClaims != null ? users.get(tokenClaims.getUserId()) : null;
+            responses.add(isActive(tokenClaims, user) ? active(tokenClaims, user) : IntrospectionResponse.inactive());
+        }
+        return responses;
+    }
+
+    private static boolean isActive(TokenClaims claims, User user) {
+        return user != null
+                && user.getEmail().equals(claims.getSubject())
+                && claims.getTokenVersion() >= user.getTokenVersion()
+                && user.isEnabled()
+                && user.isAccountNonLocked()
+                && user.isAccountNonExpired()
+                && user.isCredentialsNonExpired();
+    }
+
+    // The role is the user's current one, as in the database authentication mode
+    private static IntrospectionResponse active(TokenClaims claims, User user) {
+        return IntrospectionResponse.builder()
+                .active(true)
+                .sub(claims.getSubject())
+                .userId(user.getId())
+                .role(user.getRole())
+                .iat(claims.getIssuedAt() != null ? claims.getIssuedAt().getEpochSecond() : null)
+                .exp(claims.getExpiration() != null ? claims.getExpiration().getEpochSecond() : null)
+                .build();
+    }
+}
@@ -0,0 +1,123 @@
+package com.interiordesign.auth_service.service;
+
+import com.github.benmanes.caffeine.cache.Cache;
+import com.github.benmanes.caffeine.cache.Caffeine;
+import com.github.benmanes.caffeine.cache.stats.CacheStats;
+import com.interiordesign.auth_service.model.User;
+import io.micrometer.core.instrument.MeterRegistry;
+import io.micrometer.core.instrument.binder.cache.CaffeineCacheMetrics;
+import org.springframework.beans.factory.annotation.Value;
+import org.springframework.stereotype.Component;
+import reactor.core.publisher.Mono;
+
+import java.time.Duration;
+import java.util.concurrent.atomic.AtomicLong;
+import java.util.function.Supplier;
+
+/**
+ * Bounded, TTL-based cache of users keyed by both id and email.
+ * Entries are handed out as copies because {@link User} is mutable. The email cache holds only the
+ * id, so dropping a user by id also drops it under whatever email it was cached with. A load that
+ * was in flight while any user was invalidated is not cached, as it may have read the old row.
+ */
+@Component
+public class UserCache {
+
+    private final Cache<Long, User> usersById;
+    private final Cache<String, Long> idsByEmail;
+    private final AtomicLong invalidations = new AtomicLong();
+
+    public UserCache(MeterRegistry meterRegistry,
+                     @Value("${cache.users.max-size:10000}") long maxSize,
+                     @Value("${cache.users.ttl:5m}") Duration ttl) {
+        this.usersById = Caffeine.newBuilder()
+                .maximumSize(maxSize)
+                .expireAfterWrite(ttl)
+                .recordStats()
+                .build();
+        this.idsByEmail = Caffeine.newBuilder()
+                .maximumSize(maxSize)
+                .expireAfterWrite(ttl)
+                .recordStats()
+                .build();
+
+        CaffeineCacheMetrics.monitor(meterRegistry, usersById, "users.by-id");
+        CaffeineCacheMetrics.monitor(meterRegistry, idsByEmail, "users.by-email");
+    }
+
+    public Mono<User> getById(Long id, Supplier<Mono<User>> loader) {
+        User cached = usersById.getIfPresent(id);
+        if (cached != null) {
+            return Mono.just(copy(cached));
+        }
+        return load(loader);
+    }
+
+    public Mono<User> getByEmail(String email, Supplier<Mono<User>> loader) {
+        Long id = idsByEmail.getIfPresent(email);
+        User cached = id != null ? usersById.getIfPresent(id) : null;
+        if (cached != null && cached.getEmail().equals(email)) {
+            return Mono.just(copy(cached));
+        }
+        return load(loader);
+    }
+
+    public void put(User user) {
+        cache(copy(user));
+    }
+
+    public void invalidate(Long id, String email) {
+        invalidations.incrementAndGet();
+        if (id != null) {
+            usersById.invalidate(id);
+        }
+        if (email != null) {
+            idsByEmail.invalidate(email);
+        }
+    }
+
+    /**
+     * Drops the user under every key, whichever email it was cached with.
+     */
+    public void invalidateUser(Long id) {
+        invalidations.incrementAndGet();
+        usersById.invalidate(id);
+    }
+
+    public void invalidateAll() {
+        invalidations.incrementAndGet();
+        usersById.invalidateAll();
+        idsByEmail.invalidateAll();
+    }
+
+    public CacheStats statsById() {
+        return usersById.stats();
+    }
+
+    public CacheStats statsByEmail() {
+        return idsByEmail.stats();
+    }
+
+    private Mono<User> load(Supplier<Mono<User>> loader) {
+        return Mono.defer(() -> {
+            long seen = invalidations.get();
+            return loader.get().doOnNext(user -> {
+                User snapshot = copy(user);
+                cache(snapshot);
+                // Checked after caching: an invalidation counted later also runs later and drops the entry
+                if (invalidations.get() != seen) {
+                    usersById.asMap().remove(snapshot.getId(), snapshot);
+                }
+            });
+        });
+    }
+
+    private void cache(User snapshot) {
+        usersById.put(snapshot.getId(), snapshot);
+        idsByEmail.put(snapshot.getEmail(), snapshot.getId());
+    }
+
+    private static User copy(User user) {
+        return user.toBuilder().build();
+    }
+}
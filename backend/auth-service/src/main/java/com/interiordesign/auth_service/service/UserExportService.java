@@ -0,0 +1,116 @@
+package com.interiordesign.auth_service.service;
+
+import com.fasterxml.jackson.core.JsonGenerator;
+import com.fasterxml.jackson.databind.ObjectMapper;
+import com.fasterxml.jackson.databind.ObjectWriter;
+import com.interiordesign.auth_service.dto.response.UserResponse;
+import com.interiordesign.auth_service.repository.UserQueryRepository;
+import org.springframework.beans.factory.annotation.Value;
+import org.springframework.core.io.buffer.DataBuffer;
+import org.springframework.core.io.buffer.DataBufferFactory;
+import org.springframework.core.io.buffer.DataBufferUtils;
+import org.springframework.stereotype.Service;
+import reactor.core.publisher.Flux;
+import reactor.core.publisher.Mono;
+
+import java.io.IOException;
+import java.io.OutputStream;
+import java.io.UncheckedIOException;
+import java.nio.charset.StandardCharsets;
+import java.time.Instant;
+
+/**
+ * Dumps the users table as NDJSON or CSV in id order, one buffer per row.
+ * <p>
+ * Rows are read from the database only as fast as the client takes them: the response write
+ * requests buffers as the connection drains, which in turn asks the database portal for the next
+ * {@code fetch-size} rows, so memory stays flat whatever the table size. A client whose download
+ * breaks can resume with the id of the last row it received.
+ */
+@Service
+public class UserExportService {
+
+    public enum Format {
+        NDJSON,
+        CSV
+    }
+
+    static final String CSV_HEADER = "id,email,firstName,lastName,role,createdAt,updatedAt\n";
+
+    private final UserQueryRepository userQueryRepository;
+    private final ObjectWriter jsonWriter;
+    private final int fetchSize;
+
+    public UserExportService(UserQueryRepository userQueryRepository,
+                             ObjectMapper objectMapper,
+                             @Value("${user-export.fetch-size:1000}") int fetchSize) {
+        this.userQueryRepository = userQueryRepository;
+        // The buffer's stream is not ours to close; the buffer goes on to the response
+        this.jsonWriter = objectMapper.writerFor(UserResponse.class).without(JsonGenerator.Feature.AUTO_CLOSE_TARGET);
+        this.fetchSize = fetchSize;
+    }
+
+    /**
+     * The users with an id above {@code afterId}, or all of them when it is null. The CSV header
+     * is only written for a full export, so a resumed download can be appended to the first part.
+     */
+    public Flux<DataBuffer> export(Format format, Long afterId, DataBufferFactory bufferFactory) {
+        Flux<DataBuffer> rows = userQueryRepository.streamAll(afterId != null ? afterId : 0L, fetchSize)
+                .map(user -> encode(bufferFactory, format, user));
+        if (format == Format.CSV && afterId == null) {
+            return Flux.concat(Mono.fromSupplier(() -> bufferFactory.wrap(CSV_HEADER.getBytes(StandardCharsets.UTF_8))),
+                    rows);
+        }
+        return rows;
+    }
+
+    private DataBuffer encode(DataBufferFactory bufferFactory, Format format, UserResponse user) {
+        DataBuffer buffer = bufferFactory.allocateBuffer(256);
+        try (OutputStream out = buffer.asOutputStream()) {
+            if (format == Format.CSV) {
+                out.write(csvRow(user).getBytes(StandardCharsets.UTF_8));
+            } else {
+                jsonWriter.writeValue(out, user);
+                out.write('\n');
+            }
+            return buffer;
+        } catch (IOException e) {
+            DataBufferUtils.release(buffer);
+            throw new UncheckedIOException(e);
+        }
+    }
+
+    static String csvRow(UserResponse user) {
+        return user.getId()
+                + "," + csvField(user.getEmail())
+                + "," + csvField(user.getFirstName())
+                + "," + csvField(user.getLastName())
+                + "," + user.getRole()
+                + "," + instant(user.getCreatedAt())
+                + "," + instant(user.getUpdatedAt())
+                + "\n";
+    }
+
+    // Quoted only when needed, with quotes doubled, as UserImportService reads it back. Names and
+    // emails are user input, so a cell a spreadsheet would run as a formula gets a leading ' and quotes.
+    static String csvField(String value) {
+        if (value == null) {
+            return "";
+        }
+        if (isFormula(value)) {
+            return "\"'" + value.replace("\"", "\"\"") + '"';
+        }
+        if (value.indexOf(',') < 0 && value.indexOf('"') < 0 && value.indexOf('\n') < 0 && value.indexOf('\r') < 0) {
+            return value;
+        }
+        return '"' + value.replace("\"", "\"\"") + '"';
+    }
+
+    private static boolean isFormula(String value) {
+        return !value.isEmpty() && "=+-@\t\r".indexOf(value.charAt(0)) >= 0;
+    }
+
+    private static String instant(Instant instant) {
+        return instant != null ? instant.toString() : "";
+    }
+}
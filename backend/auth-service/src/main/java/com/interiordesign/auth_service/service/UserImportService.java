@@ -0,0 +1,325 @@
+package com.interiordesign.auth_service.service;
+
+import com.fasterxml.jackson.databind.ObjectMapper;
+import com.interiordesign.auth_service.dto.request.RegisterRequest;
+import com.interiordesign.auth_service.dto.response.UserImportResult;
+import com.interiordesign.auth_service.model.Role;
+import com.interiordesign.auth_service.model.User;
+import com.interiordesign.auth_service.repository.UserQueryRepository;
+import io.micrometer.core.instrument.Counter;
+import io.micrometer.core.instrument.MeterRegistry;
+import jakarta.validation.ConstraintViolation;
+import jakarta.validation.Validator;
+import lombok.extern.slf4j.Slf4j;
+import org.springframework.beans.factory.annotation.Value;
+import org.springframework.http.HttpStatus;
+import org.springframework.stereotype.Service;
+import org.springframework.web.server.ResponseStatusException;
+import reactor.core.publisher.Flux;
+import reactor.core.publisher.Mono;
+import reactor.core.publisher.SynchronousSink;
+import reactor.util.retry.Retry;
+
+import java.io.IOException;
+import java.time.Duration;
+import java.time.Instant;
+import java.util.ArrayList;
+import java.util.EnumMap;
+import java.util.HashMap;
+import java.util.List;
+import java.util.Map;
+import java.util.function.BiConsumer;
+import java.util.stream.Collectors;
+
+/**
+ * Creates accounts from an uploaded file of one user per line, NDJSON or CSV with a header row.
+ * <p>
+ * Rows flow through in order and the upload is never held in memory: at most
+ * {@code hash-concurrency} passwords are hashed at a time, hashed rows are inserted in batches of
+ * up to {@code batch-size} with one statement each, and a result per row streams back as soon as
+ * its batch is stored. A slow reader of the results slows the reading of the upload in turn.
+ */
+@Slf4j
+@Service
+public class UserImportService {
+
+    public enum Format {
+        NDJSON,
+        CSV
+    }
+
+    private static final List<String> CSV_COLUMNS = List.of("email", "password", "firstName", "lastName", "role");
+
+    private final PasswordHashingService passwordHashingService;
+    private final UserQueryRepository userQueryRepository;
+    private final Validator validator;
+    private final ObjectMapper objectMapper;
+    private final int batchSize;
+    private final Duration batchMaxWait;
+    private final int hashConcurrency;
+    private final int hashRetries;
+    private final Map<UserImportResult.Status, Counter> counters = new EnumMap<>(UserImportResult.Status.class);
+
+    public UserImportService(PasswordHashingService passwordHashingService,
+                             UserQueryRepository userQueryRepository,
+                             Validator validator,
+                             ObjectMapper objectMapper,
+                             MeterRegistry meterRegistry,
+                             @Value("${user-import.batch-size:500}") int batchSize,
+                             @Value("${user-import.batch-max-wait:1s}") Duration batchMaxWait,
+                             @Value("${user-import.hash-concurrency:0}") int hashConcurrency,
+                             @Value("${user-import.hash-retries:10}") int hashRetries) {
+        this.passwordHashingService = passwordHashingService;
+        this.userQueryRepository = userQueryRepository;
+        this.validator = validator;
+        this.objectMapper = objectMapper;
+        this.batchSize = batchSize;
+        this.batchMaxWait = batchMaxWait;
+        // Half the hashing threads by default, so logins keep getting through during an import
+        this.hashConcurrency = hashConcurrency > 0
+                ? hashConcurrency
+                : Math.max(1, passwordHashingService.getPoolSize() / 2);
+        this.hashRetries = hashRetries;
+
+        for (UserImportResult.Status status : UserImportResult.Status.values()) {
+            counters.put(status, Counter.builder("auth.users.imported")
+                    .description("Rows processed by the bulk user import, by outcome")
+                    .tag("status", status.name().toLowerCase())
+                    .register(meterRegistry));
+        }
+    }
+
+    /**
+     * One result per non-blank data line, in the order of the lines.
+     */
+    public Flux<UserImportResult> importUsers(Flux<String> lines, Format format) {
+        return Flux.defer(() -> {
+                    long[] lineNumber = {0};
+                    BiConsumer<Row, SynchronousSink<Row>> parser = format == Format.CSV ? new CsvParser() : this::parseJson;
+                    return lines.map(line -> new Row(++lineNumber[0], line))
+                            .filter(row -> !row.text.isBlank())
+                            .handle(parser);
+                })
+                .flatMapSequential(this::hash, hashConcurrency, 1)
+                .bufferTimeout(batchSize, batchMaxWait, true)
+                .concatMap(this::store, 1)
+                .doOnNext(result -> counters.get(result.getStatus()).increment());
+    }
+
+    private void parseJson(Row row, SynchronousSink<Row> sink) {
+        try {
+            sink.next(validate(row, objectMapper.readValue(row.text, RegisterRequest.class)));
+        } catch (IOException e) {
+            sink.next(row.invalid("Malformed JSON row"));
+        }
+    }
+
+    // Holds the column order from the header, so it is created per import
+    private class CsvParser implements BiConsumer<Row, SynchronousSink<Row>> {
+
+        private Map<String, Integer> columns;
+
+        @Override
+        public void accept(Row row, SynchronousSink<Row> sink) {
+            List<String> fields;
+            try {
+                fields = parseCsvLine(row.text);
+            } catch (IllegalArgumentException e) {
+                if (columns == null) {
+                    sink.error(new ResponseStatusException(HttpStatus.BAD_REQUEST, "Malformed CSV header"));
+                } else {
+                    sink.next(row.invalid(e.getMessage()));
+                }
+                return;
+            }
+
+            if (columns == null) {
+                columns = new HashMap<>();
+                for (int i = 0; i < fields.size(); i++) {
+                    columns.put(fields.get(i).trim(), i);
+                }
+                if (!columns.keySet().containsAll(CSV_COLUMNS)) {
+                    sink.error(new ResponseStatusException(HttpStatus.BAD_REQUEST,
+                            "The CSV header must name the columns " + String.join(",", CSV_COLUMNS)));
+                }
+                return;
+            }
+
+            String role = field(fields, "role");
+            RegisterRequest request = RegisterRequest.builder()
+                    .email(field(fields, "email"))
+                    .password(field(fields, "password"))
+                    .firstName(field(fields, "firstName"))
+                    .lastName(field(fields, "lastName"))
+                    .build();
+            if (role != null && !role.isBlank()) {
+                try {
+                    request.setRole(Role.valueOf(role.trim().toUpperCase()));
+                } catch (IllegalArgumentException e) {
+                    sink.next(row.invalid("Unknown role " + role.trim()));
+                    return;
+                }
+            }
+            sink.next(validate(row, request));
+        }
+
+        private String field(List<String> fields, String column) {
+            int index = columns.get(column);
+            return index < fields.size() ? fields.get(index) : null;
+        }
+    }
+
+    private Row validate(Row row, RegisterRequest request) {
+        row.request = request;
+        String email = request.getEmail() != null ? request.getEmail().trim() : null;
+        request.setEmail(email);
+        row.email = email;
+
+        String violations = validator.validate(request).stream()
+                .map(ConstraintViolation::getMessage)
+                .sorted()
+                .collect(Collectors.joining("; "));
+        if (!violations.isEmpty()) {
+            return row.invalid(violations);
+        }
+        if (request.getRole() == Role.ADMIN) {
+            return row.invalid("Admin accounts cannot be imported");
+        }
+        return row;
+    }
+
+    private Mono<Row> hash(Row row) {
+        if (row.result != null) {
+            return Mono.just(row);
+        }
+        // A full hashing queue is the pool pushing back; wait and try again rather than fail the row
+        return passwordHashingService.encode(row.request.getPassword())
+                .retryWhen(Retry.backoff(hashRetries, Duration.ofMillis(100))
+                        .maxBackoff(Duration.ofSeconds(2))
+                        .filter(UserImportService::isBusy))
+                .map(encodedPassword -> {
+                    row.encodedPassword = encodedPassword;
+                    return row;
+                })
+                .onErrorResume(e -> Mono.just(row.failed("Password hashing is overloaded, please retry")));
+    }
+
+    private Flux<UserImportResult> store(List<Row> batch) {
+        List<User> users = new ArrayList<>(batch.size());
+        for (Row row : batch) {
+            if (row.result == null) {
+                users.add(User.builder()
+                        .email(row.email)
+                        .password(row.encodedPassword)
+                        .firstName(row.request.getFirstName())
+                        .lastName(row.request.getLastName())
+                        .role(row.request.getRole())
+                        .build());
+            }
+        }
+        if (users.isEmpty()) {
+            return Flux.fromIterable(results(batch, Map.of()));
+        }
+
+        return userQueryRepository.insertAllIfAbsent(users, Instant.now())
+                .collectMap(User::getEmail, User::getId)
+                .map(created -> results(batch, created))
+                .onErrorResume(e -> {
+                    log.warn("Failed to store a batch of {} imported users: {}", users.size(), e.getMessage());
+                    for (Row row : batch) {
+                        if (row.result == null) {
+                            row.failed("Could not store the row");
+                        }
+                    }
+                    return Mono.just(results(batch, Map.of()));
+                })
+                .flatMapIterable(results -> results);
+    }
+
+    private static List<UserImportResult> results(List<Row> batch, Map<String, Long> created) {
+        Map<String, Long> unclaimed = new HashMap<>(created);
+        List<UserImportResult> results = new ArrayList<>(batch.size());
+        for (Row row : batch) {
+            if (row.result == null) {
+                // The first row with an email gets the inserted user; later ones in the batch are duplicates
+                Long id = unclaimed.remove(row.email);
+                row.result = UserImportResult.builder()
+                        .line(row.line)
+                        .email(row.email)
+                        .status(id != null ? UserImportResult.Status.CREATED : UserImportResult.Status.DUPLICATE)
+                        .id(id)
+                        .build();
+            }
+            results.add(row.result);
+        }
+        return results;
+    }
+
+    private static boolean isBusy(Throwable e) {
+        return e instanceof ResponseStatusException status
+                && status.getStatusCode().value() == HttpStatus.SERVICE_UNAVAILABLE.value();
+    }
+
+    /**
+     * Splits one CSV line. Fields may be quoted to hold commas, with {@code ""} for a quote;
+     * quoted line breaks are not supported.
+     */
+    static List<String> parseCsvLine(String line) {
+        List<String> fields = new ArrayList<>();
+        StringBuilder field = new StringBuilder();
+        boolean quoted = false;
+        for (int i = 0; i < line.length(); i++) {
+            char c = line.charAt(i);
+            if (quoted) {
+                if (c != '"') {
+                    field.append(c);
+                } else if (i + 1 < line.length() && line.charAt(i + 1) == '"') {
+                    field.append('"');
+                    i++;
+                } else {
+                    quoted = false;
+                }
+            } else if (c == '"') {
+                quoted = true;
+            } else if (c == ',') {
+                fields.add(field.toString());
+                field.setLength(0);
+            } else {
+                field.append(c);
+            }
+        }
+        if (quoted) {
+            throw new IllegalArgumentException("Unterminated quoted field");
+        }
+        fields.add(field.toString());
+        return fields;
+    }
+
+    private static final class Row {
+
+        private final long line;
+        private final String text;
+        private RegisterRequest request;
+        private String email;
+        private String encodedPassword;
+        private UserImportResult result;
+
+        private Row(long line, String text) {
+            this.line = line;
+            this.text = text;
+        }
+
+        private Row invalid(String error) {
+            return withResult(UserImportResult.Status.INVALID, error);
+        }
+
+        private Row failed(String error) {
+            return withResult(UserImportResult.Status.FAILED, error);
+        }
+
+        private Row withResult(UserImportResult.Status status, String error) {
+            result = UserImportResult.builder().line(line).status(status).email(email).error(error).build();
+            return this;
+        }
+    }
+}
@@ -0,0 +1,83 @@
+package com.interiordesign.auth_service.service;
+
+import com.interiordesign.auth_service.dto.response.UserPageResponse;
+import com.interiordesign.auth_service.dto.response.UserSummary;
+import com.interiordesign.auth_service.repository.UserQueryRepository;
+import com.interiordesign.auth_service.repository.UserQueryRepository.PagePosition;
+import com.interiordesign.auth_service.repository.UserQueryRepository.UserFilter;
+import org.springframework.beans.factory.annotation.Value;
+import org.springframework.http.HttpStatus;
+import org.springframework.stereotype.Service;
+import org.springframework.web.server.ResponseStatusException;
+import reactor.core.publisher.Mono;
+
+import java.nio.charset.StandardCharsets;
+import java.time.Instant;
+import java.util.Base64;
+import java.util.List;
+
+/**
+ * Pages through users for the admin dashboard, newest first. The cursor is opaque to clients and
+ * names the last user of the previous page, so a page is a seek rather than an offset and users
+ * created while paging never shift or repeat the pages that follow.
+ */
+@Service
+public class UserListingService {
+
+    private final UserQueryRepository userQueryRepository;
+    private final int defaultPageSize;
+    private final int maxPageSize;
+
+    public UserListingService(UserQueryRepository userQueryRepository,
+                              @Value("${user-listing.default-page-size:50}") int defaultPageSize,
+                              @Value("${user-listing.max-page-size:200}") int maxPageSize) {
+        this.userQueryRepository = userQueryRepository;
+        this.defaultPageSize = defaultPageSize;
+        this.maxPageSize = maxPageSize;
+    }
+
+    public Mono<UserPageResponse> listUsers(UserFilter filter, String cursor, Integer limit) {
+        int pageSize = limit != null ? limit : defaultPageSize;
+        if (pageSize < 1 || pageSize > maxPageSize) {
+            return Mono.error(new ResponseStatusException(HttpStatus.BAD_REQUEST,
+                    "The limit must be between 1 and " + maxPageSize));
+        }
+        PagePosition after;
+        try {
+            after = cursor != null && !cursor.isEmpty() ? decodeCursor(cursor) : null;
+        } catch (IllegalArgumentException e) {
+            return Mono.error(new ResponseStatusException(HttpStatus.BAD_REQUEST, "Invalid cursor"));
+        }
+
+        // One extra row tells whether there is a next page without a second query
+        return userQueryRepository.findPage(filter, after, pageSize + 1)
+                .collectList()
+                .map(users -> {
+                    if (users.size() <= pageSize) {
+                        return new UserPageResponse(users, null);
+                    }
+                    List<UserSummary> page = users.subList(0, pageSize);
+                    UserSummary last = page.get(pageSize - 1);
+                    return new UserPageResponse(page, encodeCursor(new PagePosition(last.getCreatedAt(), last.getId())));
+                });
+    }
+
+    static String encodeCursor(PagePosition position) {
+        String value = position.createdAt() + "|" + position.id();
+        return Base64.getUrlEncoder().withoutPadding().encodeToString(value.getBytes(StandardCharsets.UTF_8));
+    }
+
+    static PagePosition decodeCursor(String cursor) {
+        String value = new String(Base64.getUrlDecoder().decode(cursor), StandardCharsets.UTF_8);
+        int separator = value.lastIndexOf('|');
+        if (separator < 0) {
+            throw new IllegalArgumentException("Missing separator");
+        }
+        try {
+            return new PagePosition(Instant.parse(value.substring(0, separator)),
+                    Long.parseLong(value.substring(separator + 1)));
+        } catch (RuntimeException e) {
+            throw new IllegalArgumentException(e);
+        }
+    }
+}
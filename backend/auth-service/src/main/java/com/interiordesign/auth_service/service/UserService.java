@@ -2,9 +2,11 @@ package com.interiordesign.auth_service.service;
 
 import com.interiordesign.auth_service.dto.request.UpdateUserRequest;
 import com.interiordesign.auth_service.model.User;
+import com.interiordesign.auth_service.repository.UserQueryRepository;
 import com.interiordesign.auth_service.repository.UserRepository;
+import com.interiordesign.auth_service.security.TokenVersionCache;
+import com.interiordesign.auth_service.security.VerifiedTokenCache;
 import org.springframework.security.core.userdetails.UserDetails;
-import org.springframework.security.crypto.password.PasswordEncoder;
 import org.springframework.stereotype.Service;
 import reactor.core.publisher.Mono;
 
@@ -14,63 +16,112 @@ import java.time.Instant;
 public class UserService {
 
     private final UserRepository userRepository;
-    private final PasswordEncoder passwordEncoder;
+    private final UserQueryRepository userQueryRepository;
+    private final PasswordHashingService passwordHashingService;
+    private final UserCache userCache;
+    private final VerifiedTokenCache verifiedTokenCache;
+    private final TokenVersionCache tokenVersionCache;
+    private final AuthMetrics authMetrics;
 
-    public UserService(UserRepository userRepository, PasswordEncoder passwordEncoder) {
+    public UserService(UserRepository userRepository, UserQueryRepository userQueryRepository,
+                       PasswordHashingService passwordHashingService, UserCache userCache,
+                       VerifiedTokenCache verifiedTokenCache, TokenVersionCache tokenVersionCache,
+                       AuthMetrics authMetrics) {
         this.userRepository = userRepository;
-        this.passwordEncoder = passwordEncoder;
+        this.userQueryRepository = userQueryRepository;
+        this.passwordHashingService = passwordHashingService;
+        this.userCache = userCache;
+        this.verifiedTokenCache = verifiedTokenCache;
+        this.tokenVersionCache = tokenVersionCache;
+        this.authMetrics = authMetrics;
     }
 
+    // Empty when the email is already registered
     public Mono<User> createUser(User user) {
-        user.setPassword(passwordEncoder.encode(user.getPassword()));
-        user.setEnabled(true);
-        user.setAccountNonExpired(true);
-        user.setAccountNonLocked(true);
-        user.setCredentialsNonExpired(true);
+        return authMetrics.phase(AuthMetrics.REGISTER, AuthMetrics.PASSWORD_HASH,
+                        passwordHashingService.encode(user.getPassword()))
+                .flatMap(encodedPassword -> {
+                    user.setPassword(encodedPassword);
+                    user.setEnabled(true);
+                    user.setAccountNonExpired(true);
+                    user.setAccountNonLocked(true);
+                    user.setCredentialsNonExpired(true);
 
-        Instant now = Instant.now();
-        user.setCreatedAt(now);
-        user.setUpdatedAt(now);
+                    Instant now = Instant.now();
+                    user.setCreatedAt(now);
+                    user.setUpdatedAt(now);
 
-        return userRepository.save(user);
+                    return authMetrics.phase(AuthMetrics.REGISTER, AuthMetrics.USER_INSERT,
+                            userQueryRepository.insertIfAbsent(user));
+                })
+                .doOnNext(userCache::put);
     }
 
     public Mono<UserDetails> findByUsername(String username) {
-        return userRepository.findByEmail(username)
+        return userCache.getByEmail(username, () -> userRepository.findByEmail(username))
                 .cast(UserDetails.class);
     }
 
     public Mono<User> findById(Long id) {
-        return userRepository.findById(id);
+        return userCache.getById(id, () -> userRepository.findById(id));
     }
 
+    /**
+     * Changing the email also ends every session of the user, including the caller's: its access
+     * and refresh tokens stop working and it has to log in again with the new address.
+     */
     public Mono<User> updateUser(Long id, UpdateUserRequest request) {
-        return userRepository.findById(id)
-                .flatMap(user -> {
-                    if (request.getFirstName() != null) {
-                        user.setFirstName(request.getFirstName());
+        return userQueryRepository.updateProfile(id, request.getFirstName(), request.getLastName(),
+                        request.getEmail(), Instant.now())
+                .map(update -> {
+                    userCache.invalidate(id, update.previousEmail());
+                    if (update.user().getEmail().equals(update.previousEmail())) {
+                        userCache.put(update.user());
+                    } else {
+                        sessionsEnded(update.user());
                     }
-                    if (request.getLastName() != null) {
-                        user.setLastName(request.getLastName());
-                    }
-                    if (request.getEmail() != null) {
-                        user.setEmail(request.getEmail());
-                    }
-                    user.setUpdatedAt(Instant.now());
-                    return userRepository.save(user);
+                    return update.user();
                 });
     }
 
+    // Also ends every session of the user, on every node
     public Mono<User> changePassword(Long id, String newPassword) {
-        return userRepository.findById(id)
-                .flatMap(user -> {
-                    user.setPassword(passwordEncoder.encode(newPassword));
-                    user.setUpdatedAt(Instant.now());
-                    return userRepository.save(user);
-                });
+        return passwordHashingService.encode(newPassword)
+                .flatMap(encodedPassword -> userQueryRepository.updatePassword(id, encodedPassword, Instant.now()))
+                .doOnNext(this::sessionsEnded);
+    }
+
+    /**
+     * Invalidates every access and refresh token of the user with a single write, however many
+     * devices they are logged in on; empty if there is no such user.
+     */
+    public Mono<User> endAllSessions(Long id) {
+        return userQueryRepository.bumpTokenVersion(id, Instant.now())
+                .doOnNext(this::sessionsEnded);
+    }
+
+    public Mono<Integer> findTokenVersion(Long id) {
+        return userQueryRepository.findTokenVersion(id);
+    }
+
+    private void sessionsEnded(User user) {
+        userCache.put(user);
+        verifiedTokenCache.invalidateUser(user.getId());
+        tokenVersionCache.observe(user.getId(), user.getTokenVersion());
     }
 
-    public Mono<Boolean> existsByEmail(String email) {
-        return userRepository.existsByEmail(email);
+    /**
+     * Rehashes the password at the current cost if the stored hash is outdated. The password
+     * itself is unchanged, so issued tokens stay valid.
+     */
+    public Mono<Void> upgradePasswordHash(User user, String rawPassword) {
+        if (!passwordHashingService.needsUpgrade(user.getPassword())) {
+            return Mono.empty();
+        }
+        return passwordHashingService.encode(rawPassword)
+                .flatMap(encodedPassword -> userQueryRepository.replacePasswordHash(user.getId(),
+                        user.getPassword(), encodedPassword))
+                .doOnNext(userCache::put)
+                .then();
     }
 }
\ No newline at end of file
@@ -0,0 +1,329 @@
+package com.interiordesign.auth_service.service;
+
+import com.interiordesign.auth_service.dto.request.LoginRequest;
+import com.interiordesign.auth_service.dto.request.RefreshTokenRequest;
+import com.interiordesign.auth_service.dto.response.TokenResponse;
+import com.interiordesign.auth_service.dto.response.UserResponse;
+import com.interiordesign.auth_service.model.RefreshToken;
+import com.interiordesign.auth_service.model.Role;
+import com.interiordesign.auth_service.model.User;
+import com.interiordesign.auth_service.repository.RefreshTokenRepository;
+import com.interiordesign.auth_service.repository.UserQueryRepository;
+import com.interiordesign.auth_service.repository.UserRepository;
+import com.interiordesign.auth_service.security.JwtUtil;
+import io.micrometer.core.instrument.MeterRegistry;
+import io.micrometer.core.instrument.Timer;
+import lombok.extern.slf4j.Slf4j;
+import org.springframework.beans.factory.annotation.Value;
+import org.springframework.boot.ApplicationArguments;
+import org.springframework.boot.ApplicationRunner;
+import org.springframework.boot.actuate.info.Info;
+import org.springframework.boot.actuate.info.InfoContributor;
+import org.springframework.core.ResolvableType;
+import org.springframework.core.codec.Decoder;
+import org.springframework.core.codec.Encoder;
+import org.springframework.core.io.buffer.DataBufferUtils;
+import org.springframework.core.io.buffer.DefaultDataBufferFactory;
+import org.springframework.http.MediaType;
+import org.springframework.http.codec.DecoderHttpMessageReader;
+import org.springframework.http.codec.EncoderHttpMessageWriter;
+import org.springframework.http.codec.ServerCodecConfigurer;
+import org.springframework.r2dbc.core.DatabaseClient;
+import org.springframework.stereotype.Component;
+import org.springframework.transaction.reactive.TransactionalOperator;
+import reactor.core.publisher.Flux;
+import reactor.core.publisher.Mono;
+import reactor.core.publisher.Sinks;
+
+import java.nio.charset.StandardCharsets;
+import java.time.Duration;
+import java.time.Instant;
+import java.util.ArrayList;
+import java.util.LinkedHashMap;
+import java.util.List;
+import java.util.Map;
+import java.util.Set;
+import java.util.UUID;
+import java.util.concurrent.Callable;
+import java.util.concurrent.ConcurrentHashMap;
+import java.util.concurrent.atomic.AtomicInteger;
+
+/**
+ * Warms the service up before it takes traffic: opens the connection pool up to a target size and
+ * prepares the hot statements on every one of those connections, then runs synthetic token,
+ * password hashing and JSON iterations so the first requests do not pay for connection setup,
+ * statement parsing, class loading and JIT compilation.
+ * <p>
+ * Application runners finish before the readiness probe reports ACCEPTING_TRAFFIC, so the instance
+ * is not sent requests while this runs. Each step is best effort: one that fails or times out is
+ * logged and the service starts anyway. How long each step took and what it covered are logged,
+ * timed as {@code auth.warmup} and shown under {@code warmUp} on /actuator/info.
+ */
+@Slf4j
+@Component
+public class WarmUpRunner implements ApplicationRunner, InfoContributor {
+
+    // Run by prepareHotStatements; the driver keeps each one prepared on the connection it ran on
+    private static final int HOT_STATEMENTS = 10;
+
+    private static final byte[] UNKNOWN_HASH = new byte[32];
+
+    public record Step(String name, boolean succeeded, Duration duration, String covered) {
+    }
+
+    private final DatabaseClient databaseClient;
+    private final TransactionalOperator transactionalOperator;
+    private final UserRepository userRepository;
+    private final UserQueryRepository userQueryRepository;
+    private final RefreshTokenRepository refreshTokenRepository;
+    private final JwtUtil jwtUtil;
+    private final RefreshTokenService refreshTokenService;
+    private final PasswordHashingService passwordHashingService;
+    private final ServerCodecConfigurer codecConfigurer;
+    private final MeterRegistry meterRegistry;
+    private final boolean enabled;
+    private final int poolSize;
+    private final int iterations;
+    private final Duration timeout;
+    private volatile List<Step> steps = List.of();
+    private volatile Duration duration;
+
+    public WarmUpRunner(DatabaseClient databaseClient,
+                        TransactionalOperator transactionalOperator,
+                        UserRepository userRepository,
+                        UserQueryRepository userQueryRepository,
+                        RefreshTokenRepository refreshTokenRepository,
+                        JwtUtil jwtUtil,
+                        RefreshTokenService refreshTokenService,
+                        PasswordHashingService passwordHashingService,
+                        ServerCodecConfigurer codecConfigurer,
+                        MeterRegistry meterRegistry,
+                        @Value("${warm-up.enabled:true}") boolean enabled,
+                        @Value("${warm-up.pool-size:10}") int poolSize,
+                        @Value("${spring.r2dbc.pool.max-size:10}") int maxPoolSize,
+                        @Value("${warm-up.iterations:1000}") int iterations,
+                        @Value("${warm-up.timeout:30s}") Duration timeout) {
+        this.databaseClient = databaseClient;
+        this.transactionalOperator = transactionalOperator;
+        this.userRepository = userRepository;
+        this.userQueryRepository = userQueryRepository;
+        this.refreshTokenRepository = refreshTokenRepository;
+        this.jwtUtil = jwtUtil;
+        this.refreshTokenService = refreshTokenService;
+        this.passwordHashingService = passwordHashingService;
+        this.codecConfigurer = codecConfigurer;
+        this.meterRegistry = meterRegistry;
+        this.enabled = enabled;
+        // Holding more connections than the pool allows would only wait out the timeout
+        this.poolSize = Math.max(1, Math.min(poolSize, maxPoolSize));
+        this.iterations = iterations;
+        this.timeout = timeout;
+    }
+
+    @Override
+    public void run(ApplicationArguments args) {
+        if (!enabled) {
+            return;
+        }
+        long start = System.nanoTime();
+        List<Step> completed = new ArrayList<>();
+        completed.add(step("connections", this::warmConnections));
+        completed.add(step("tokens", this::warmTokens));
+        completed.add(step("password-hashing", this::warmPasswordHashing));
+        completed.add(step("json", this::warmJson));
+        steps = List.copyOf(completed);
+        duration = Duration.ofNanos(System.nanoTime() - start);
+
+        log.info("Warm-up finished in {} ms", duration.toMillis());
+        for (Step step : steps) {
+            log.info("  {} {} in {} ms: {}", step.name(), step.succeeded() ? "done" : "FAILED",
+                    step.duration().toMillis(), step.covered());
+        }
+    }
+
+    @Override
+    public void contribute(Info.Builder builder) {
+        if (duration == null) {
+            return;
+        }
+        List<Map<String, Object>> details = new ArrayList<>();
+        for (Step step : steps) {
+            Map<String, Object> detail = new LinkedHashMap<>();
+            detail.put("name", step.name());
+            detail.put("succeeded", step.succeeded());
+            detail.put("durationMs", step.duration().toMillis());
+            detail.put("covered", step.covered());
+            details.add(detail);
+        }
+        builder.withDetail("warmUp", Map.of("durationMs", duration.toMillis(), "steps", details));
+    }
+
+    public List<Step> getSteps() {
+        return steps;
+    }
+
+    private Step step(String name, Callable<String> work) {
+        long start = System.nanoTime();
+        boolean succeeded;
+        String covered;
+        try {
+            covered = work.call();
+            succeeded = true;
+        } catch (Exception e) {
+            covered = e.getMessage();
+            succeeded = false;
+            log.warn("Warm-up step {} failed, starting without it: {}", name, e.toString());
+        }
+        Duration elapsed = Duration.ofNanos(System.nanoTime() - start);
+        Timer.builder("auth.warmup")
+                .description("Time spent warming up before taking traffic, by step")
+                .tag("step", name)
+                .tag("outcome", succeeded ? "success" : "failure")
+                .register(meterRegistry)
+                .record(elapsed);
+        return new Step(name, succeeded, elapsed, covered);
+    }
+
+    // Each transaction keeps its connection until all of them hold one, so that many distinct
+    // connections are opened and each runs every hot statement. Everything is rolled back.
+    private String warmConnections() {
+        AtomicInteger opened = new AtomicInteger();
+        Sinks.Empty<Void> allOpened = Sinks.empty();
+        Set<Integer> backends = ConcurrentHashMap.newKeySet();
+
+        Flux.range(0, poolSize)
+                .flatMap(i -> transactionalOperator.execute(status -> {
+                    status.setRollbackOnly();
+                    return databaseClient.sql("SELECT pg_backend_pid()")
+                            .map(row -> row.get(0, Integer.class))
+                            .one()
+                            .doOnNext(pid -> {
+                                backends.add(pid);
+                                if (opened.incrementAndGet() == poolSize) {
+                                    allOpened.tryEmitEmpty();
+                                }
+                            })
+                            // Other startup work may hold a connection; carry on with fewer then
+                            .then(allOpened.asMono().timeout(timeout.dividedBy(2), Mono.empty()))
+                            .then(prepareHotStatements());
+                }), poolSize)
+                .blockLast(timeout);
+
+        return backends.size() + " connections opened, " + HOT_STATEMENTS + " hot statements prepared on each";
+    }
+
+    // Lookups miss and updates match no row; the inserted user and its token are rolled back
+    private Mono<Void> prepareHotStatements() {
+        Instant now = Instant.now();
+        User user = syntheticUser("warm-up-" + UUID.randomUUID() + "@warm-up.invalid");
+        user.setCreatedAt(now);
+        user.setUpdatedAt(now);
+
+        return Flux.concat(
+                        userRepository.findByEmail(user.getEmail()),
+                        userRepository.findById(-1L),
+                        userQueryRepository.findAllById(Set.of(-1L)),
+                        userQueryRepository.findTokenVersion(-1L),
+                        refreshTokenRepository.revokeByTokenHash(UNKNOWN_HASH),
+                        refreshTokenRepository.rotate(UNKNOWN_HASH, UNKNOWN_HASH, now),
+                        refreshTokenRepository.revokeFamilyOfReusedToken(UNKNOWN_HASH),
+                        refreshTokenRepository.revokeAllByUserId(-1L),
+                        userQueryRepository.insertIfAbsent(user)
+                                .flatMap(created -> refreshTokenRepository.save(RefreshToken.builder()
+                                        .userId(created.getId())
+                                        .tokenHash(UNKNOWN_HASH)
+                                        .familyId(UUID.randomUUID())
+                                        .expiryDate(now)
+                                        .createdAt(now)
+                                        .build())))
+                .then();
+    }
+
+    private String warmTokens() {
+        User user = syntheticUser("warm-up@warm-up.invalid");
+        long deadline = System.nanoTime() + timeout.toNanos();
+        int done = 0;
+        for (; done < iterations && System.nanoTime() < deadline; done++) {
+            jwtUtil.parseToken(jwtUtil.generateToken(user));
+            refreshTokenService.generateToken();
+        }
+        return done + " access tokens signed and verified, " + done + " refresh tokens generated";
+    }
+
+    // One hash and one check per hashing thread, so every thread is started
+    private String warmPasswordHashing() {
+        int threads = passwordHashingService.getPoolSize();
+        Flux.range(0, threads)
+                .flatMap(i -> passwordHashingService.encode("warm-up-" + i)
+                        .flatMap(hash -> passwordHashingService.matches("warm-up-" + i, hash)), threads)
+                .blockLast(timeout);
+        return threads + " hashing threads started, each hashing and checking a password";
+    }
+
+    // Through the codecs the endpoints use, which hold their own ObjectMapper
+    private String warmJson() {
+        User user = syntheticUser("warm-up@warm-up.invalid");
+        TokenResponse tokenResponse = TokenResponse.builder()
+                // Not signed, so this step runs even when the signing keys could not be loaded
+                .token("warm-up." + refreshTokenService.generateToken())
+                .refreshToken(refreshTokenService.generateToken())
+                .user(UserResponse.from(user))
+                .build();
+        byte[] loginRequest = "{\"email\":\"warm-up@warm-up.invalid\",\"password\":\"warm-up\"}"
+                .getBytes(StandardCharsets.UTF_8);
+        byte[] refreshRequest = ("{\"refreshToken\":\"" + tokenResponse.getRefreshToken() + "\"}")
+                .getBytes(StandardCharsets.UTF_8);
+
+        Encoder<TokenResponse> encoder = encoder(TokenResponse.class);
+        Decoder<LoginRequest> loginDecoder = decoder(LoginRequest.class);
+        Decoder<RefreshTokenRequest> refreshDecoder = decoder(RefreshTokenRequest.class);
+        long deadline = System.nanoTime() + timeout.toNanos();
+        int done = 0;
+        for (; done < iterations && System.nanoTime() < deadline; done++) {
+            DataBufferUtils.release(encoder.encodeValue(tokenResponse, DefaultDataBufferFactory.sharedInstance,
+                    ResolvableType.forClass(TokenResponse.class), MediaType.APPLICATION_JSON, Map.of()));
+            loginDecoder.decode(DefaultDataBufferFactory.sharedInstance.wrap(loginRequest),
+                    ResolvableType.forClass(LoginRequest.class), MediaType.APPLICATION_JSON, Map.of());
+            refreshDecoder.decode(DefaultDataBufferFactory.sharedInstance.wrap(refreshRequest),
+                    ResolvableType.forClass(RefreshTokenRequest.class), MediaType.APPLICATION_JSON, Map.of());
+        }
+        return done + " token responses written, " + done + " login and refresh requests read";
+    }
+
+    @SuppressWarnings("unchecked")
+    private <T> Encoder<T> encoder(Class<T> valueType) {
+        ResolvableType type = ResolvableType.forClass(valueType);
+        return codecConfigurer.getWriters().stream()
+                .filter(writer -> writer instanceof EncoderHttpMessageWriter<?>
+                        && writer.canWrite(type, MediaType.APPLICATION_JSON))
+                .map(writer -> (Encoder<T>) ((EncoderHttpMessageWriter<?>) writer).getEncoder())
+                .findFirst()
+                .orElseThrow(() -> new IllegalStateException("No JSON encoder for " + type));
+    }
+
+    @SuppressWarnings("unchecked")
+    private <T> Decoder<T> decoder(Class<T> targetType) {
+        ResolvableType type = ResolvableType.forClass(targetType);
+        return codecConfigurer.getReaders().stream()
+                .filter(reader -> reader instanceof DecoderHttpMessageReader<?>
+                        && reader.canRead(type, MediaType.APPLICATION_JSON))
+                .map(reader -> (Decoder<T>) ((DecoderHttpMessageReader<?>) reader).getDecoder())
+                .findFirst()
+                .orElseThrow(() -> new IllegalStateException("No JSON decoder for " + type));
+    }
+
+    private static User syntheticUser(String email) {
+        return User.builder()
+                .id(-1L)
+                .email(email)
+                .password("warm-up")
+                .firstName("Warm")
+                .lastName("Up")
+                .role(Role.CLIENT)
+                .enabled(true)
+                .accountNonExpired(true)
+                .accountNonLocked(true)
+                .credentialsNonExpired(true)
+                .build();
+    }
+}
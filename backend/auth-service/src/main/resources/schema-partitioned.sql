@@ -0,0 +1,80 @@
+-- Optional layout for the token tables, partitioned by day on expiry_date.
+-- Use instead of the token tables in schema.sql and set token.cleanup.partitioned=true:
+-- the cleanup job then creates partitions ahead of time and drops whole partitions once
+-- every token in them has expired, instead of deleting row by row.
+-- Unique constraints on a partitioned table must include the partition key.
+
+-- Refresh tokens table
+CREATE TABLE IF NOT EXISTS refresh_tokens (
+    id BIGSERIAL,
+    token_hash BYTEA NOT NULL CHECK (octet_length(token_hash) = 32),
+    user_id BIGINT NOT NULL,
+    family_id UUID,
+    expiry_date TIMESTAMP WITH TIME ZONE NOT NULL,
+    revoked BOOLEAN NOT NULL DEFAULT FALSE,
+    revoked_at TIMESTAMP WITH TIME ZONE,
+    created_at TIMESTAMP WITH TIME ZONE NOT NULL,
+    PRIMARY KEY (id, expiry_date),
+    UNIQUE (token_hash, expiry_date),
+    FOREIGN KEY (user_id) REFERENCES users(id) ON DELETE CASCADE
+) PARTITION BY RANGE (expiry_date);
+
+-- Password reset tokens table
+CREATE TABLE IF NOT EXISTS password_reset_tokens (
+    id BIGSERIAL,
+    token VARCHAR(255) NOT NULL,
+    user_id BIGINT NOT NULL,
+    expiry_date TIMESTAMP WITH TIME ZONE NOT NULL,
+    used BOOLEAN NOT NULL DEFAULT FALSE,
+    created_at TIMESTAMP WITH TIME ZONE NOT NULL,
+    PRIMARY KEY (id, expiry_date),
+    UNIQUE (token, expiry_date),
+    FOREIGN KEY (user_id) REFERENCES users(id) ON DELETE CASCADE
+) PARTITION BY RANGE (expiry_date);
+
+-- Catches rows outside the pre-created range; these are removed by the batched delete
+CREATE TABLE IF NOT EXISTS refresh_tokens_default PARTITION OF refresh_tokens DEFAULT;
+CREATE TABLE IF NOT EXISTS password_reset_tokens_default PARTITION OF password_reset_tokens DEFAULT;
+
+CREATE INDEX IF NOT EXISTS idx_refresh_tokens_user_id ON refresh_tokens(user_id);
+CREATE INDEX IF NOT EXISTS idx_refresh_tokens_family_id ON refresh_tokens(family_id);
+CREATE INDEX IF NOT EXISTS idx_password_reset_tokens_user_id ON password_reset_tokens(user_id);
+
+-- Creates one partition per day from today up to days_ahead days in the future
+CREATE OR REPLACE FUNCTION ensure_token_partitions(parent TEXT, days_ahead INT) RETURNS VOID AS $$
+DECLARE
+    day DATE;
+BEGIN
+    FOR i IN 0..days_ahead LOOP
+        day := (now() AT TIME ZONE 'UTC')::date + i;
+        EXECUTE format(
+            'CREATE TABLE IF NOT EXISTS %I PARTITION OF %I FOR VALUES FROM (%L) TO (%L)',
+            parent || '_p' || to_char(day, 'YYYYMMDD'), parent,
+            day::timestamp AT TIME ZONE 'UTC', (day + 1)::timestamp AT TIME ZONE 'UTC');
+    END LOOP;
+END;
+$$ LANGUAGE plpgsql;
+
+-- Drops daily partitions whose whole range lies in the past; returns how many were dropped
+CREATE OR REPLACE FUNCTION drop_expired_token_partitions(parent TEXT) RETURNS INT AS $$
+DECLARE
+    partition_name TEXT;
+    dropped INT := 0;
+BEGIN
+    FOR partition_name IN
+        SELECT c.relname
+        FROM pg_inherits i
+        JOIN pg_class c ON c.oid = i.inhrelid
+        WHERE i.inhparent = parent::regclass
+          AND c.relname ~ ('^' || parent || '_p[0-9]{8}$')
+          AND to_date(right(c.relname, 8), 'YYYYMMDD') < (now() AT TIME ZONE 'UTC')::date
+    LOOP
+        EXECUTE format('DROP TABLE IF EXISTS %I', partition_name);
+        dropped := dropped + 1;
+    END LOOP;
+    RETURN dropped;
+END;
+$$ LANGUAGE plpgsql;
+
+SELECT ensure_token_partitions('refresh_tokens', 14);
+SELECT ensure_token_partitions('password_reset_tokens', 14);
@@ -10,6 +10,7 @@ CREATE TABLE IF NOT EXISTS users (
     account_non_expired BOOLEAN NOT NULL DEFAULT TRUE,
     account_non_locked BOOLEAN NOT NULL DEFAULT TRUE,
     credentials_non_expired BOOLEAN NOT NULL DEFAULT TRUE,
+    token_version INT NOT NULL DEFAULT 0,
     created_at TIMESTAMP WITH TIME ZONE NOT NULL,
     updated_at TIMESTAMP WITH TIME ZONE NOT NULL
 );
@@ -17,10 +18,12 @@ CREATE TABLE IF NOT EXISTS users (
 -- Refresh tokens table
 CREATE TABLE IF NOT EXISTS refresh_tokens (
     id BIGSERIAL PRIMARY KEY,
-    token VARCHAR(255) NOT NULL UNIQUE,
+    token_hash BYTEA NOT NULL CHECK (octet_length(token_hash) = 32),
     user_id BIGINT NOT NULL,
+    family_id UUID,
     expiry_date TIMESTAMP WITH TIME ZONE NOT NULL,
     revoked BOOLEAN NOT NULL DEFAULT FALSE,
+    revoked_at TIMESTAMP WITH TIME ZONE,
     created_at TIMESTAMP WITH TIME ZONE NOT NULL,
     FOREIGN KEY (user_id) REFERENCES users(id) ON DELETE CASCADE
 );
@@ -38,4 +41,94 @@ CREATE TABLE IF NOT EXISTS password_reset_tokens (
 
 -- Create indexes for better performance
 CREATE INDEX IF NOT EXISTS idx_refresh_tokens_user_id ON refresh_tokens(user_id);
-CREATE INDEX IF NOT EXISTS idx_password_reset_tokens_user_id ON password_reset_tokens(user_id);
\ No newline at end of file
+CREATE INDEX IF NOT EXISTS idx_password_reset_tokens_user_id ON password_reset_tokens(user_id);
+CREATE INDEX IF NOT EXISTS idx_refresh_tokens_expiry_date ON refresh_tokens(expiry_date);
+CREATE INDEX IF NOT EXISTS idx_password_reset_tokens_expiry_date ON password_reset_tokens(expiry_date);
+
+-- Migration: refresh tokens are opaque random values stored as SHA-256 digests.
+-- Only tables created before the change have the legacy token column. Digests are backfilled
+-- from it for refresh JWTs issued before the change so they keep working until they expire;
+-- nodes that only write the legacy token column must be gone before this runs.
+-- The unique index on token_hash is the only one, on fresh and migrated tables alike.
+ALTER TABLE refresh_tokens ADD COLUMN IF NOT EXISTS token_hash BYTEA;
+-- The script runner does not understand dollar quoting, hence the quoted blocks
+DO '
+BEGIN
+    IF EXISTS (SELECT 1 FROM information_schema.columns
+               WHERE table_name = ''refresh_tokens'' AND column_name = ''token''
+                 AND table_schema = current_schema()) THEN
+        ALTER TABLE refresh_tokens ALTER COLUMN token DROP NOT NULL;
+        UPDATE refresh_tokens SET token_hash = sha256(convert_to(token, ''UTF8'')) WHERE token_hash IS NULL;
+    END IF;
+END';
+ALTER TABLE refresh_tokens ALTER COLUMN token_hash SET NOT NULL;
+DO '
+BEGIN
+    IF NOT EXISTS (SELECT 1 FROM pg_constraint
+                   WHERE conrelid = ''refresh_tokens''::regclass AND conname = ''refresh_tokens_token_hash_check'') THEN
+        ALTER TABLE refresh_tokens ADD CONSTRAINT refresh_tokens_token_hash_check CHECK (octet_length(token_hash) = 32);
+    END IF;
+END';
+CREATE UNIQUE INDEX IF NOT EXISTS idx_refresh_tokens_token_hash ON refresh_tokens(token_hash);
+
+-- Migration: refresh token rotation families
+ALTER TABLE refresh_tokens ADD COLUMN IF NOT EXISTS family_id UUID;
+CREATE INDEX IF NOT EXISTS idx_refresh_tokens_family_id ON refresh_tokens(family_id);
+
+-- Outbox of emails waiting to be delivered by the background sender
+CREATE TABLE IF NOT EXISTS email_outbox (
+    id BIGSERIAL PRIMARY KEY,
+    recipient VARCHAR(255) NOT NULL,
+    subject VARCHAR(255) NOT NULL,
+    template VARCHAR(100) NOT NULL,
+    variables TEXT NOT NULL,
+    locale VARCHAR(35),
+    status VARCHAR(20) NOT NULL DEFAULT 'PENDING',
+    attempts INT NOT NULL DEFAULT 0,
+    next_attempt_at TIMESTAMP WITH TIME ZONE NOT NULL,
+    last_error TEXT,
+    created_at TIMESTAMP WITH TIME ZONE NOT NULL,
+    sent_at TIMESTAMP WITH TIME ZONE
+);
+
+-- Migration: per-locale email templates
+ALTER TABLE email_outbox ADD COLUMN IF NOT EXISTS locale VARCHAR(35);
+
+CREATE INDEX IF NOT EXISTS idx_email_outbox_due ON email_outbox(next_attempt_at) WHERE status IN ('PENDING', 'SENDING');
+
+-- RS256 keys that sign access tokens; the public halves are served at /.well-known/jwks.json.
+-- Private keys are stored as PKCS#8, so access to this table is access to token issuing.
+CREATE TABLE IF NOT EXISTS signing_keys (
+    generation INT PRIMARY KEY,
+    kid VARCHAR(64) NOT NULL UNIQUE,
+    algorithm VARCHAR(10) NOT NULL,
+    private_key BYTEA NOT NULL,
+    public_key BYTEA NOT NULL,
+    activates_at TIMESTAMP WITH TIME ZONE NOT NULL,
+    created_at TIMESTAMP WITH TIME ZONE NOT NULL
+);
+
+-- Admin user listing: seek pagination on (created_at, id), newest first. Role filters scan their
+-- own range; disabled accounts are few enough for a partial index, and enabled=true or
+-- created-at ranges are served by the plain one.
+CREATE INDEX IF NOT EXISTS idx_users_created_at_id ON users(created_at, id);
+CREATE INDEX IF NOT EXISTS idx_users_role_created_at_id ON users(role, created_at, id);
+CREATE INDEX IF NOT EXISTS idx_users_disabled_created_at_id ON users(created_at, id) WHERE NOT enabled;
+
+-- Access tokens revoked before their expiry, by jti. Nodes keep the unexpired ones in memory and
+-- hear about new rows through NOTIFY on access_token_revoked; this table only rebuilds that set.
+CREATE TABLE IF NOT EXISTS revoked_access_tokens (
+    jti UUID PRIMARY KEY,
+    expires_at TIMESTAMP WITH TIME ZONE NOT NULL
+);
+
+CREATE INDEX IF NOT EXISTS idx_revoked_access_tokens_expires_at ON revoked_access_tokens(expires_at);
+
+-- Migration: per-user token version. Access tokens carry it as the "ver" claim and stop working
+-- once it is bumped, which is how all of a user's sessions are ended in one write.
+ALTER TABLE users ADD COLUMN IF NOT EXISTS token_version INT NOT NULL DEFAULT 0;
+
+-- Migration: revoked refresh tokens are kept for a retention period counted from their revocation.
+-- Rows revoked before the column existed start that period now, so replays stay detectable.
+ALTER TABLE refresh_tokens ADD COLUMN IF NOT EXISTS revoked_at TIMESTAMP WITH TIME ZONE;
+UPDATE refresh_tokens SET revoked_at = now() WHERE revoked AND revoked_at IS NULL;
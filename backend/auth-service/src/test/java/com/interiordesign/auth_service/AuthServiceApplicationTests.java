@@ -1,13 +1,68 @@
 package com.interiordesign.auth_service;
 
+import com.interiordesign.auth_service.service.EmailTemplateRenderer;
+import io.micrometer.core.instrument.MeterRegistry;
 import org.junit.jupiter.api.Test;
+import org.springframework.beans.factory.annotation.Autowired;
+import org.springframework.boot.test.autoconfigure.web.reactive.AutoConfigureWebTestClient;
 import org.springframework.boot.test.context.SpringBootTest;
+import org.springframework.http.HttpHeaders;
+import org.springframework.test.web.reactive.server.WebTestClient;
 
-@SpringBootTest
+import java.util.List;
+import java.util.Locale;
+import java.util.Map;
+
+import static org.assertj.core.api.Assertions.assertThat;
+
+@SpringBootTest(properties = "introspection.client-secret=test-gateway-secret")
+@AutoConfigureWebTestClient
 class AuthServiceApplicationTests {
 
+	@Autowired
+	private MeterRegistry meterRegistry;
+
+	@Autowired
+	private EmailTemplateRenderer emailTemplateRenderer;
+
+	@Autowired
+	private WebTestClient webTestClient;
+
 	@Test
 	void contextLoads() {
 	}
 
+	@Test
+	void connectionPoolGaugesArePublished() {
+		for (String gauge : new String[]{"r2dbc.pool.acquired", "r2dbc.pool.pending", "r2dbc.pool.idle"}) {
+			assertThat(meterRegistry.find(gauge).gauge()).as(gauge).isNotNull();
+		}
+	}
+
+	@Test
+	void emailTemplatesRenderWithTheEmailTemplateEngine() {
+		assertThat(emailTemplateRenderer.render("password-reset-email", Locale.ENGLISH,
+				Map.of("resetUrl", "http://localhost:3000/reset-password?token=abc")))
+				.contains("http://localhost:3000/reset-password?token=abc");
+	}
+
+	@Test
+	void introspectionIsOnlyForTheGateway() {
+		Map<String, List<String>> body = Map.of("tokens", List.of("not-a-token"));
+
+		webTestClient.post().uri("/api/auth/introspect/batch").bodyValue(body)
+				.exchange().expectStatus().isUnauthorized();
+		webTestClient.post().uri("/api/auth/introspect/batch").bodyValue(body)
+				.headers(headers -> headers.setBasicAuth("gateway", "wrong"))
+				.exchange().expectStatus().isUnauthorized();
+		webTestClient.post().uri("/api/auth/introspect/batch").bodyValue(body)
+				.header(HttpHeaders.AUTHORIZATION, "Bearer not-a-token")
+				.exchange().expectStatus().isUnauthorized();
+
+		webTestClient.post().uri("/api/auth/introspect/batch").bodyValue(body)
+				.headers(headers -> headers.setBasicAuth("gateway", "test-gateway-secret"))
+				.exchange().expectStatus().isOk()
+				.expectBody().jsonPath("$.results[0].active").isEqualTo(false);
+	}
+
 }
@@ -0,0 +1,42 @@
+package com.interiordesign.auth_service.config;
+
+import io.micrometer.core.instrument.simple.SimpleMeterRegistry;
+import org.junit.jupiter.api.Test;
+import org.springframework.security.crypto.bcrypt.BCryptPasswordEncoder;
+import org.springframework.security.crypto.password.PasswordEncoder;
+
+import java.time.Duration;
+
+import static org.assertj.core.api.Assertions.assertThat;
+
+class EncoderConfigTest {
+
+    private static final String PASSWORD = "correct-horse-battery";
+
+    @Test
+    void calibrationStaysWithinTheConfiguredBounds() {
+        assertThat(EncoderConfig.calibrate(Duration.ofMinutes(1), 4, 6)).isEqualTo(6);
+        assertThat(EncoderConfig.calibrate(Duration.ofNanos(1), 5, 8)).isEqualTo(5);
+    }
+
+    @Test
+    void writesHashesThePreviousReleaseVerifiesAndFlagsOnlyLowerCostsForUpgrade() {
+        SimpleMeterRegistry meterRegistry = new SimpleMeterRegistry();
+        PasswordEncoder encoder = new EncoderConfig().passwordEncoder(meterRegistry, 5, Duration.ZERO, 4, 14);
+
+        String legacy = new BCryptPasswordEncoder().encode(PASSWORD);
+        String current = encoder.encode(PASSWORD);
+
+        // Unprefixed, so the previous release verifies it as well
+        assertThat(current).startsWith("$2a$05$");
+        assertThat(new BCryptPasswordEncoder().matches(PASSWORD, current)).isTrue();
+        assertThat(encoder.matches(PASSWORD, legacy)).isTrue();
+        assertThat(encoder.matches(PASSWORD, current)).isTrue();
+
+        assertThat(encoder.upgradeEncoding(current)).isFalse();
+        assertThat(encoder.upgradeEncoding(new BCryptPasswordEncoder(4).encode(PASSWORD))).isTrue();
+        // Written at a higher cost by another node; downgrading would only make the nodes take turns rehashing
+        assertThat(encoder.upgradeEncoding(legacy)).isFalse();
+        assertThat(meterRegistry.get("auth.password.bcrypt.strength").gauge().value()).isEqualTo(5);
+    }
+}
@@ -0,0 +1,120 @@
+package com.interiordesign.auth_service.controller;
+
+import com.interiordesign.auth_service.dto.response.UserImportResult;
+import com.interiordesign.auth_service.dto.response.UserPageResponse;
+import com.interiordesign.auth_service.model.Role;
+import com.interiordesign.auth_service.model.User;
+import com.interiordesign.auth_service.repository.UserQueryRepository.UserFilter;
+import com.interiordesign.auth_service.service.UserExportService;
+import com.interiordesign.auth_service.service.UserImportService;
+import com.interiordesign.auth_service.service.UserListingService;
+import com.interiordesign.auth_service.service.UserService;
+import org.junit.jupiter.api.Test;
+import org.springframework.core.io.buffer.DataBufferFactory;
+import org.springframework.http.MediaType;
+import org.springframework.test.web.reactive.server.WebTestClient;
+import reactor.core.publisher.Flux;
+import reactor.core.publisher.Mono;
+
+import java.nio.charset.StandardCharsets;
+import java.time.Instant;
+import java.util.List;
+
+import static org.assertj.core.api.Assertions.assertThat;
+import static org.mockito.ArgumentMatchers.any;
+import static org.mockito.ArgumentMatchers.eq;
+import static org.mockito.ArgumentMatchers.isNull;
+import static org.mockito.Mockito.mock;
+import static org.mockito.Mockito.verify;
+import static org.mockito.Mockito.when;
+
+class AdminControllerTest {
+
+    private final UserImportService userImportService = mock(UserImportService.class);
+    private final UserListingService userListingService = mock(UserListingService.class);
+    private final UserExportService userExportService = mock(UserExportService.class);
+    private final UserService userService = mock(UserService.class);
+    private final WebTestClient client = WebTestClient.bindToController(
+                    new AdminController(userImportService, userListingService, userExportService, userService))
+            .build();
+
+    @Test
+    void bindsTheListingFiltersFromTheQueryString() {
+        UserFilter filter = new UserFilter(Role.WORKER, true, Instant.parse("2024-01-01T00:00:00Z"), null);
+        when(userListingService.listUsers(filter, "abc", 20)).thenReturn(Mono.just(new UserPageResponse(List.of(), null)));
+
+        client.get().uri("/api/auth/admin/users?role=WORKER&enabled=true&createdFrom=2024-01-01T00:00:00Z"
+                        + "&cursor=abc&limit=20")
+                .exchange()
+                .expectStatus().isOk()
+                .expectBody().jsonPath("$.users").isEmpty();
+        verify(userListingService).listUsers(filter, "abc", 20);
+    }
+
+    @Test
+    void handsTheUploadToTheImportLineByLineForEitherFormat() {
+        // Echoes each line back as a result, so the test sees how the body was split
+        for (UserImportService.Format format : UserImportService.Format.values()) {
+            when(userImportService.importUsers(any(), eq(format))).thenAnswer(invocation ->
+                    invocation.<Flux<String>>getArgument(0).map(line -> UserImportResult.builder()
+                            .status(UserImportResult.Status.CREATED)
+                            .email(line)
+                            .build()));
+        }
+
+        assertThat(upload(MediaType.APPLICATION_NDJSON, "{\"a\":1}\n{\"b\":2}\r\n{\"c\":3}"))
+                .containsExactly("{\"a\":1}", "{\"b\":2}", "{\"c\":3}");
+        assertThat(upload(MediaType.parseMediaType(AdminController.TEXT_CSV), "email,role\nx@example.com,CLIENT\n"))
+                .containsExactly("email,role", "x@example.com,CLIENT");
+    }
+
+    @Test
+    void exportsInTheFormatTheClientPrefers() {
+        // Writes the format name, so the test sees which one was picked
+        when(userExportService.export(any(), any(), any())).thenAnswer(invocation -> Flux.just(
+                invocation.<DataBufferFactory>getArgument(2).wrap(invocation.getArgument(0).toString()
+                        .getBytes(StandardCharsets.UTF_8))));
+
+        assertThat(export("text/csv;q=0.9, application/x-ndjson;q=0.5", "/api/auth/admin/users/export"))
+                .isEqualTo("CSV");
+        assertThat(export("*/*", "/api/auth/admin/users/export?after=42")).isEqualTo("NDJSON");
+        verify(userExportService).export(eq(UserExportService.Format.CSV), isNull(), any());
+        verify(userExportService).export(eq(UserExportService.Format.NDJSON), eq(42L), any());
+    }
+
+    @Test
+    void endsAllSessionsOfAnExistingUserOnly() {
+        when(userService.endAllSessions(7L)).thenReturn(Mono.just(User.builder().id(7L).build()));
+        when(userService.endAllSessions(8L)).thenReturn(Mono.empty());
+
+        client.post().uri("/api/auth/admin/users/7/logout").exchange()
+                .expectStatus().isOk()
+                .expectBody().jsonPath("$.success").isEqualTo(true);
+        client.post().uri("/api/auth/admin/users/8/logout").exchange()
+                .expectStatus().isNotFound();
+    }
+
+    private String export(String accept, String uri) {
+        return client.get().uri(uri)
+                .header("Accept", accept)
+                .exchange()
+                .expectStatus().isOk()
+                .expectBody(String.class)
+                .returnResult()
+                .getResponseBody();
+    }
+
+    private Iterable<String> upload(MediaType contentType, String body) {
+        return client.post().uri("/api/auth/admin/users/import")
+                .contentType(contentType)
+                .accept(MediaType.APPLICATION_NDJSON)
+                .bodyValue(body)
+                .exchange()
+                .expectStatus().isOk()
+                .expectHeader().contentTypeCompatibleWith(MediaType.APPLICATION_NDJSON)
+                .returnResult(UserImportResult.class)
+                .getResponseBody()
+                .map(UserImportResult::getEmail)
+                .toIterable();
+    }
+}
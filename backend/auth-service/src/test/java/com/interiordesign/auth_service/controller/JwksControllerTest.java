@@ -0,0 +1,71 @@
+package com.interiordesign.auth_service.controller;
+
+import com.fasterxml.jackson.databind.ObjectMapper;
+import com.interiordesign.auth_service.security.SigningKey;
+import com.interiordesign.auth_service.security.SigningKeyRing;
+import org.junit.jupiter.api.BeforeEach;
+import org.junit.jupiter.api.Test;
+import org.springframework.http.HttpHeaders;
+import org.springframework.http.HttpStatus;
+import org.springframework.test.web.reactive.server.WebTestClient;
+
+import java.math.BigInteger;
+import java.time.Duration;
+import java.time.Instant;
+import java.util.Base64;
+import java.util.List;
+
+import static org.assertj.core.api.Assertions.assertThat;
+
+class JwksControllerTest {
+
+    private static final SigningKey KEY = SigningKey.generate(1, 2048, Instant.now());
+
+    private SigningKeyRing ring;
+    private WebTestClient client;
+
+    @BeforeEach
+    void setUp() {
+        ring = new SigningKeyRing(new ObjectMapper());
+        client = WebTestClient.bindToController(new JwksController(ring, Duration.ofMinutes(10), Duration.ofDays(1)))
+                .build();
+    }
+
+    @Test
+    void publishesThePublicKeysWithCachingHeaders() {
+        ring.update(List.of(KEY));
+
+        client.get().uri("/.well-known/jwks.json").exchange()
+                .expectStatus().isOk()
+                .expectHeader().contentType(JwksController.JWK_SET)
+                .expectHeader().valueEquals(HttpHeaders.CACHE_CONTROL, "max-age=600, public, stale-if-error=86400")
+                .expectHeader().exists(HttpHeaders.ETAG)
+                .expectBody()
+                .jsonPath("$.keys[0].kid").isEqualTo(KEY.kid())
+                .jsonPath("$.keys[0].alg").isEqualTo("RS256")
+                .jsonPath("$.keys[0].n").value(n -> assertThat(new BigInteger(1, Base64.getUrlDecoder()
+                        .decode((String) n))).isEqualTo(KEY.publicKey().getModulus()))
+                .jsonPath("$.keys[0].d").doesNotExist();
+    }
+
+    @Test
+    void answersARevalidationWithNotModifiedUntilTheKeysChange() {
+        ring.update(List.of(KEY));
+        String etag = ring.jwks().etag();
+
+        client.get().uri("/.well-known/jwks.json").header(HttpHeaders.IF_NONE_MATCH, etag).exchange()
+                .expectStatus().isNotModified()
+                .expectBody().isEmpty();
+
+        ring.update(List.of(KEY, SigningKey.generate(2, 2048, Instant.now().plusSeconds(3600))));
+        client.get().uri("/.well-known/jwks.json").header(HttpHeaders.IF_NONE_MATCH, etag).exchange()
+                .expectStatus().isOk()
+                .expectBody().jsonPath("$.keys.length()").isEqualTo(2);
+    }
+
+    @Test
+    void isUnavailableRatherThanEmptyBeforeKeysAreLoaded() {
+        client.get().uri("/.well-known/jwks.json").exchange()
+                .expectStatus().isEqualTo(HttpStatus.SERVICE_UNAVAILABLE);
+    }
+}
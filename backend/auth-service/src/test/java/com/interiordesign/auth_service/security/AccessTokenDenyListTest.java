@@ -0,0 +1,31 @@
+package com.interiordesign.auth_service.security;
+
+import io.micrometer.core.instrument.simple.SimpleMeterRegistry;
+import org.junit.jupiter.api.Test;
+
+import java.time.Instant;
+
+import static org.assertj.core.api.Assertions.assertThat;
+import static org.awaitility.Awaitility.await;
+
+class AccessTokenDenyListTest {
+
+    private final AccessTokenDenyList denyList = new AccessTokenDenyList(new SimpleMeterRegistry());
+
+    @Test
+    void deniesRevokedTokensUntilTheyExpire() {
+        denyList.add("live", Instant.now().plusSeconds(3600));
+        denyList.add("expiring", Instant.now().plusMillis(200));
+        denyList.add("expired", Instant.now().minusSeconds(1));
+
+        assertThat(denyList.isRevoked("live")).isTrue();
+        assertThat(denyList.isRevoked("expiring")).isTrue();
+        assertThat(denyList.isRevoked("expired")).isFalse();
+        assertThat(denyList.isRevoked("unknown")).isFalse();
+        assertThat(denyList.isRevoked((String) null)).isFalse();
+
+        // Dropped by the cache's own scheduler, without waiting for the next access
+        await().until(() -> denyList.size() == 1);
+        assertThat(denyList.isRevoked("expiring")).isFalse();
+    }
+}
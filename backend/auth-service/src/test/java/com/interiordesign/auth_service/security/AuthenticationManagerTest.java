@@ -0,0 +1,103 @@
+package com.interiordesign.auth_service.security;
+
+import com.fasterxml.jackson.databind.ObjectMapper;
+import com.interiordesign.auth_service.model.Role;
+import com.interiordesign.auth_service.model.User;
+import com.interiordesign.auth_service.service.UserService;
+import io.micrometer.core.instrument.simple.SimpleMeterRegistry;
+import org.junit.jupiter.api.BeforeEach;
+import org.junit.jupiter.api.Test;
+import org.springframework.security.authentication.UsernamePasswordAuthenticationToken;
+import reactor.core.publisher.Mono;
+import reactor.test.StepVerifier;
+
+import java.time.Duration;
+import java.time.Instant;
+import java.util.List;
+
+import static org.mockito.Mockito.mock;
+import static org.mockito.Mockito.times;
+import static org.mockito.Mockito.verify;
+import static org.mockito.Mockito.when;
+
+class AuthenticationManagerTest {
+
+    private static final SigningKey KEY = SigningKey.generate(1, 2048, Instant.now());
+
+    private final UserService userService = mock(UserService.class);
+    private final TokenVersionCache tokenVersionCache =
+            new TokenVersionCache(new SimpleMeterRegistry(), 100, Duration.ofMinutes(1));
+    private JwtUtil jwtUtil;
+
+    @BeforeEach
+    void setUp() {
+        SigningKeyRing ring = new SigningKeyRing(new ObjectMapper());
+        ring.update(List.of(KEY));
+        jwtUtil = new JwtUtil(ring, "", 60_000, false);
+    }
+
+    @Test
+    void claimsModeRejectsTokensOlderThanTheUsersVersionAndLooksItUpOnce() {
+        User user = user(1);
+        String current = jwtUtil.generateToken(user);
+        user.setTokenVersion(0);
+        String outdated = jwtUtil.generateToken(user);
+        when(userService.findTokenVersion(1L)).thenReturn(Mono.just(1));
+        AuthenticationManager manager = manager(AuthenticationMode.CLAIMS);
+
+        StepVerifier.create(manager.authenticate(bearer(current))).expectNextCount(1).verifyComplete();
+        StepVerifier.create(manager.authenticate(bearer(outdated))).verifyComplete();
+        verify(userService, times(1)).findTokenVersion(1L);
+    }
+
+    @Test
+    void databaseModeKeepsTheHighestVersionSeenOverAStaleCachedUser() {
+        User cachedUser = user(1);
+        String token = jwtUtil.generateToken(cachedUser);
+        when(userService.findByUsername("jane@example.com")).thenReturn(Mono.just(cachedUser));
+        AuthenticationManager manager = manager(AuthenticationMode.DATABASE);
+
+        StepVerifier.create(manager.authenticate(bearer(token))).expectNextCount(1).verifyComplete();
+
+        // A bump heard from another node before this node's copy of the user was refreshed
+        tokenVersionCache.observe(1L, 2);
+        StepVerifier.create(manager.authenticate(bearer(token))).verifyComplete();
+    }
+
+    @Test
+    void databaseModeRejectsDisabledAndLockedAccounts() {
+        User disabled = user(1);
+        String token = jwtUtil.generateToken(disabled);
+        disabled.setEnabled(false);
+        User locked = user(1);
+        locked.setAccountNonLocked(false);
+        when(userService.findByUsername("jane@example.com")).thenReturn(Mono.just(disabled), Mono.just(locked));
+        AuthenticationManager manager = manager(AuthenticationMode.DATABASE);
+
+        StepVerifier.create(manager.authenticate(bearer(token))).verifyComplete();
+        StepVerifier.create(manager.authenticate(bearer(token))).verifyComplete();
+    }
+
+    private AuthenticationManager manager(AuthenticationMode mode) {
+        return new AuthenticationManager(jwtUtil, new AccessTokenDenyList(new SimpleMeterRegistry()),
+                tokenVersionCache, userService, mode, new SimpleMeterRegistry());
+    }
+
+    private static UsernamePasswordAuthenticationToken bearer(String token) {
+        return new UsernamePasswordAuthenticationToken(token, token);
+    }
+
+    private static User user(int tokenVersion) {
+        return User.builder()
+                .id(1L)
+                .email("jane@example.com")
+                .password("hash")
+                .role(Role.CLIENT)
+                .enabled(true)
+                .accountNonExpired(true)
+                .accountNonLocked(true)
+                .credentialsNonExpired(true)
+                .tokenVersion(tokenVersion)
+                .build();
+    }
+}
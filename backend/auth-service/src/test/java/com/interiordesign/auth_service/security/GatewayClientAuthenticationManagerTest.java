@@ -0,0 +1,47 @@
+package com.interiordesign.auth_service.security;
+
+import org.junit.jupiter.api.Test;
+import org.springframework.security.authentication.BadCredentialsException;
+import org.springframework.security.authentication.UsernamePasswordAuthenticationToken;
+import org.springframework.security.core.GrantedAuthority;
+import reactor.test.StepVerifier;
+
+import static org.assertj.core.api.Assertions.assertThat;
+
+class GatewayClientAuthenticationManagerTest {
+
+    private final GatewayClientAuthenticationManager manager =
+            new GatewayClientAuthenticationManager("gateway", "s3cret-value");
+
+    @Test
+    void grantsTheGatewayRoleForTheConfiguredCredentials() {
+        StepVerifier.create(manager.authenticate(basic("gateway", "s3cret-value")))
+                .assertNext(authentication -> {
+                    assertThat(authentication.isAuthenticated()).isTrue();
+                    assertThat(authentication.getAuthorities()).extracting(GrantedAuthority::getAuthority)
+                            .containsExactly("ROLE_GATEWAY");
+                })
+                .verifyComplete();
+    }
+
+    @Test
+    void rejectsAnyOtherCredentials() {
+        for (UsernamePasswordAuthenticationToken attempt : new UsernamePasswordAuthenticationToken[]{
+                basic("gateway", "wrong"), basic("someone", "s3cret-value"), basic("gateway", "")}) {
+            StepVerifier.create(manager.authenticate(attempt)).expectError(BadCredentialsException.class).verify();
+        }
+    }
+
+    @Test
+    void rejectsEveryoneWhileNoSecretIsConfigured() {
+        GatewayClientAuthenticationManager unconfigured = new GatewayClientAuthenticationManager("gateway", "");
+
+        StepVerifier.create(unconfigured.authenticate(basic("gateway", "")))
+                .expectError(BadCredentialsException.class)
+                .verify();
+    }
+
+    private static UsernamePasswordAuthenticationToken basic(String clientId, String secret) {
+        return UsernamePasswordAuthenticationToken.unauthenticated(clientId, secret);
+    }
+}
@@ -0,0 +1,84 @@
+package com.interiordesign.auth_service.security;
+
+import com.fasterxml.jackson.databind.ObjectMapper;
+import com.interiordesign.auth_service.model.Role;
+import com.interiordesign.auth_service.model.User;
+import io.jsonwebtoken.Jwts;
+import io.jsonwebtoken.SignatureAlgorithm;
+import io.jsonwebtoken.security.Keys;
+import io.jsonwebtoken.security.SignatureException;
+import org.junit.jupiter.api.BeforeEach;
+import org.junit.jupiter.api.Test;
+
+import java.time.Instant;
+import java.time.temporal.ChronoUnit;
+import java.util.Date;
+import java.util.List;
+
+import static org.assertj.core.api.Assertions.assertThat;
+import static org.assertj.core.api.Assertions.assertThatThrownBy;
+
+class JwtUtilTest {
+
+    private static final String SECRET = "mQyYfZBE4k4sFd89lNm2nJPMSt0kHwFodCiZuRGLpVxA7eDU6j";
+    // Keys are expensive to generate, so the tests share them
+    private static final SigningKey FIRST = SigningKey.generate(1, 2048, Instant.now().minus(1, ChronoUnit.DAYS));
+    private static final SigningKey SECOND = SigningKey.generate(2, 2048, Instant.now().plus(1, ChronoUnit.HOURS));
+
+    private final User user = User.builder().id(7L).email("jane@example.com").role(Role.CLIENT).build();
+    private SigningKeyRing ring;
+
+    @BeforeEach
+    void setUp() {
+        ring = new SigningKeyRing(new ObjectMapper());
+    }
+
+    @Test
+    void signsWithTheActiveKeyAndNamesItInTheHeader() {
+        ring.update(List.of(FIRST, SECOND));
+        JwtUtil jwtUtil = jwtUtil(false);
+
+        String token = jwtUtil.generateToken(user);
+
+        assertThat(Jwts.parserBuilder().setSigningKey(FIRST.publicKey()).build()
+                .parseClaimsJws(token).getHeader().getKeyId()).isEqualTo(FIRST.kid());
+        TokenClaims claims = jwtUtil.parseToken(token);
+        assertThat(claims.getSubject()).isEqualTo("jane@example.com");
+        assertThat(claims.getUserId()).isEqualTo(7L);
+        assertThat(claims.getTokenId()).isNotNull()
+                .isNotEqualTo(jwtUtil.parseToken(jwtUtil.generateToken(user)).getTokenId());
+    }
+
+    @Test
+    void rejectsTokensFromKeysNoLongerInTheRing() {
+        ring.update(List.of(FIRST));
+        JwtUtil jwtUtil = jwtUtil(false);
+        String token = jwtUtil.generateToken(user);
+
+        ring.update(List.of(SECOND));
+
+        assertThatThrownBy(() -> jwtUtil.parseToken(token)).isInstanceOf(SignatureException.class);
+    }
+
+    @Test
+    void acceptsLegacyHs256TokensOnlyWhileEnabled() {
+        ring.update(List.of(FIRST));
+        String legacyToken = Jwts.builder()
+                .setSubject("jane@example.com")
+                .setExpiration(new Date(System.currentTimeMillis() + 60_000))
+                .signWith(Keys.hmacShaKeyFor(SECRET.getBytes()), SignatureAlgorithm.HS256)
+                .compact();
+
+        assertThat(jwtUtil(true).parseToken(legacyToken).getSubject()).isEqualTo("jane@example.com");
+        assertThatThrownBy(() -> jwtUtil(false).parseToken(legacyToken)).isInstanceOf(SignatureException.class);
+    }
+
+    @Test
+    void refusesToSignBeforeKeysAreLoaded() {
+        assertThatThrownBy(() -> jwtUtil(false).generateToken(user)).isInstanceOf(IllegalStateException.class);
+    }
+
+    private JwtUtil jwtUtil(boolean acceptLegacyHs256) {
+        return new JwtUtil(ring, SECRET, 60_000, acceptLegacyHs256);
+    }
+}
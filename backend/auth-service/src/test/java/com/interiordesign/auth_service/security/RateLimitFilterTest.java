@@ -0,0 +1,99 @@
+package com.interiordesign.auth_service.security;
+
+import com.fasterxml.jackson.databind.ObjectMapper;
+import com.interiordesign.auth_service.config.RateLimitProperties;
+import com.interiordesign.auth_service.exception.GlobalErrorHandler;
+import io.micrometer.core.instrument.simple.SimpleMeterRegistry;
+import org.junit.jupiter.api.BeforeEach;
+import org.junit.jupiter.api.Test;
+import org.springframework.http.HttpHeaders;
+import org.springframework.http.HttpStatus;
+import org.springframework.http.MediaType;
+import org.springframework.test.web.reactive.server.WebTestClient;
+import org.springframework.web.reactive.function.server.HandlerStrategies;
+import org.springframework.web.reactive.function.server.RouterFunctions;
+import org.springframework.web.reactive.function.server.ServerResponse;
+import reactor.core.publisher.Mono;
+
+import java.time.Duration;
+import java.util.concurrent.atomic.AtomicInteger;
+
+import static org.assertj.core.api.Assertions.assertThat;
+
+class RateLimitFilterTest {
+
+    private final AtomicInteger handled = new AtomicInteger();
+    private WebTestClient client;
+
+    @BeforeEach
+    void setUp() {
+        RateLimitProperties.Endpoint login = new RateLimitProperties.Endpoint();
+        login.setPath("/api/auth/login");
+        login.setPerIp(limit(3));
+        login.setPerEmail(limit(2));
+        RateLimitProperties properties = new RateLimitProperties();
+        properties.getEndpoints().put("login", login);
+
+        ObjectMapper objectMapper = new ObjectMapper();
+        RateLimitFilter filter = new RateLimitFilter(properties, objectMapper, new SimpleMeterRegistry());
+
+        // Echoes the email so the test can check the controller still gets the body
+        client = WebTestClient.bindToRouterFunction(RouterFunctions.route()
+                        .POST("/api/auth/login", request -> request.bodyToMono(String.class)
+                                .doOnNext(body -> handled.incrementAndGet())
+                                .flatMap(body -> ServerResponse.ok().bodyValue(body)))
+                        .GET("/api/auth/user", request -> ServerResponse.ok().build())
+                        .build())
+                .webFilter(filter)
+                // Only the application's error handler, as in the running service
+                .handlerStrategies(HandlerStrategies.empty()
+                        .codecs(codecs -> codecs.registerDefaults(true))
+                        .exceptionHandler(new GlobalErrorHandler(objectMapper))
+                        .build())
+                .build();
+    }
+
+    @Test
+    void limitsByEmailBeforeTheHandlerRunsAndKeepsTheBody() {
+        login("Jane@Example.com ").expectStatus().isOk().expectBody(String.class).value(body ->
+                assertThat(body).contains("Jane@Example.com"));
+        login("jane@example.com").expectStatus().isOk();
+
+        login("JANE@example.com")
+                .expectStatus().isEqualTo(HttpStatus.TOO_MANY_REQUESTS)
+                .expectHeader().valueEquals(HttpHeaders.RETRY_AFTER, "30")
+                .expectBody().jsonPath("$.message").isEqualTo("Too many requests, please retry later");
+        assertThat(handled).hasValue(2);
+    }
+
+    @Test
+    void limitsByClientIpAcrossEmails() {
+        login("a@example.com").expectStatus().isOk();
+        login("b@example.com").expectStatus().isOk();
+        login("c@example.com").expectStatus().isOk();
+
+        login("d@example.com").expectStatus().isEqualTo(HttpStatus.TOO_MANY_REQUESTS);
+        assertThat(handled).hasValue(3);
+    }
+
+    @Test
+    void leavesOtherEndpointsAlone() {
+        for (int i = 0; i < 10; i++) {
+            client.get().uri("/api/auth/user").exchange().expectStatus().isOk();
+        }
+    }
+
+    private WebTestClient.ResponseSpec login(String email) {
+        return client.post().uri("/api/auth/login")
+                .contentType(MediaType.APPLICATION_JSON)
+                .body(Mono.just("{\"email\":\"" + email + "\",\"password\":\"secret\"}"), String.class)
+                .exchange();
+    }
+
+    private static RateLimitProperties.Limit limit(int capacity) {
+        RateLimitProperties.Limit limit = new RateLimitProperties.Limit();
+        limit.setCapacity(capacity);
+        limit.setPeriod(Duration.ofMinutes(1));
+        return limit;
+    }
+}
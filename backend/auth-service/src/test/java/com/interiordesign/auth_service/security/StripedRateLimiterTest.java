@@ -0,0 +1,53 @@
+package com.interiordesign.auth_service.security;
+
+import org.junit.jupiter.api.Test;
+
+import java.time.Duration;
+
+import static org.assertj.core.api.Assertions.assertThat;
+
+class StripedRateLimiterTest {
+
+    private static final StripedRateLimiter.Limit FIVE_PER_MINUTE =
+            new StripedRateLimiter.Limit(5, Duration.ofMinutes(1));
+    private static final long TOKEN_NANOS = Duration.ofSeconds(12).toNanos();
+
+    @Test
+    void allowsTheBurstThenRefillsOneTokenPerInterval() {
+        StripedRateLimiter limiter = new StripedRateLimiter(4, 100, Duration.ofMinutes(10));
+        long now = 0;
+
+        for (int i = 0; i < 5; i++) {
+            assertThat(limiter.tryAcquire("ip|10.0.0.1", FIVE_PER_MINUTE, now)).isZero();
+        }
+        assertThat(limiter.tryAcquire("ip|10.0.0.1", FIVE_PER_MINUTE, now)).isEqualTo(TOKEN_NANOS);
+        // Other keys have their own bucket
+        assertThat(limiter.tryAcquire("ip|10.0.0.2", FIVE_PER_MINUTE, now)).isZero();
+
+        now += TOKEN_NANOS;
+        assertThat(limiter.tryAcquire("ip|10.0.0.1", FIVE_PER_MINUTE, now)).isZero();
+        assertThat(limiter.tryAcquire("ip|10.0.0.1", FIVE_PER_MINUTE, now)).isPositive();
+    }
+
+    @Test
+    void boundsTheNumberOfTrackedKeys() {
+        StripedRateLimiter limiter = new StripedRateLimiter(4, 10, Duration.ofMinutes(10));
+
+        for (int i = 0; i < 1_000; i++) {
+            limiter.tryAcquire("email|user-" + i + "@example.com", FIVE_PER_MINUTE, 0);
+        }
+
+        assertThat(limiter.size()).isLessThanOrEqualTo(4 * 10);
+    }
+
+    @Test
+    void dropsKeysThatHaveBeenIdleForTheTimeout() {
+        StripedRateLimiter limiter = new StripedRateLimiter(1, 100, Duration.ofMinutes(10));
+        limiter.tryAcquire("ip|10.0.0.1", FIVE_PER_MINUTE, 0);
+        limiter.tryAcquire("ip|10.0.0.2", FIVE_PER_MINUTE, 0);
+
+        limiter.tryAcquire("ip|10.0.0.3", FIVE_PER_MINUTE, Duration.ofMinutes(11).toNanos());
+
+        assertThat(limiter.size()).isEqualTo(1);
+    }
+}
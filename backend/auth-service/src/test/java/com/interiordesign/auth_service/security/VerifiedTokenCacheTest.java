@@ -0,0 +1,57 @@
+package com.interiordesign.auth_service.security;
+
+import io.micrometer.core.instrument.simple.SimpleMeterRegistry;
+import org.junit.jupiter.api.Test;
+import org.springframework.security.authentication.UsernamePasswordAuthenticationToken;
+import org.springframework.security.core.Authentication;
+
+import java.time.Duration;
+import java.time.Instant;
+import java.util.List;
+
+import static org.assertj.core.api.Assertions.assertThat;
+
+class VerifiedTokenCacheTest {
+
+    @Test
+    void dropsEveryTokenOfOneUserAndNoOneElse() {
+        VerifiedTokenCache cache = cache(AuthenticationMode.CLAIMS);
+        cache.put("jane-laptop", authentication(1L));
+        cache.put("jane-phone", authentication(1L));
+        cache.put("john", authentication(2L));
+
+        cache.invalidateUser(1L);
+
+        assertThat(cache.get("jane-laptop")).isNull();
+        assertThat(cache.get("jane-phone")).isNull();
+        assertThat(cache.get("john")).isNotNull();
+
+        // Cached again after the invalidation, so dropped by the next one
+        cache.put("jane-laptop", authentication(1L));
+        cache.invalidateUser(1L);
+        assertThat(cache.get("jane-laptop")).isNull();
+    }
+
+    @Test
+    void cachesNothingInDatabaseMode() {
+        VerifiedTokenCache cache = cache(AuthenticationMode.DATABASE);
+        cache.put("jane", authentication(1L));
+
+        assertThat(cache.get("jane")).isNull();
+        assertThat(cache.size()).isZero();
+    }
+
+    private static VerifiedTokenCache cache(AuthenticationMode mode) {
+        return new VerifiedTokenCache(new SimpleMeterRegistry(), mode, true, 100, Duration.ofMinutes(1));
+    }
+
+    private static Authentication authentication(Long userId) {
+        Instant now = Instant.now();
+        TokenClaims claims = new TokenClaims("user" + userId + "@example.com", userId, "USER",
+                now, now.plusSeconds(600), "jti-" + userId, 0);
+        UsernamePasswordAuthenticationToken authentication =
+                new UsernamePasswordAuthenticationToken(claims.getSubject(), null, List.of());
+        authentication.setDetails(claims);
+        return authentication;
+    }
+}
@@ -0,0 +1,100 @@
+package com.interiordesign.auth_service.service;
+
+import com.interiordesign.auth_service.AuthServiceApplication;
+import com.interiordesign.auth_service.dto.request.RegisterRequest;
+import com.interiordesign.auth_service.model.Role;
+import com.interiordesign.auth_service.security.AccessTokenDenyList;
+import com.interiordesign.auth_service.security.AuthenticationManager;
+import com.interiordesign.auth_service.security.JwtUtil;
+import com.interiordesign.auth_service.support.PostgresIntegrationTest;
+import org.junit.jupiter.api.Test;
+import org.springframework.beans.factory.annotation.Autowired;
+import org.springframework.boot.builder.SpringApplicationBuilder;
+import org.springframework.context.ConfigurableApplicationContext;
+import org.springframework.security.authentication.UsernamePasswordAuthenticationToken;
+import org.testcontainers.containers.PostgreSQLContainer;
+
+import java.time.Duration;
+import java.util.UUID;
+import java.util.stream.Stream;
+
+import static org.assertj.core.api.Assertions.assertThat;
+import static org.awaitility.Awaitility.await;
+
+/**
+ * Runs further instances of the service against the same database, as other nodes of the cluster.
+ */
+class AccessTokenRevocationIntegrationTest extends PostgresIntegrationTest {
+
+    @Autowired
+    private AuthService authService;
+
+    @Autowired
+    private AccessTokenRevocationService accessTokenRevocationService;
+
+    @Autowired
+    private UserService userService;
+
+    @Autowired
+    private JwtUtil jwtUtil;
+
+    @Test
+    void aRevocationReachesRunningNodesAndNodesStartedLater() {
+        String token = register("revoked");
+
+        try (ConfigurableApplicationContext otherNode = startNode()) {
+            AuthenticationManager otherManager = otherNode.getBean(AuthenticationManager.class);
+            assertThat(authenticates(otherManager, token)).isTrue();
+
+            accessTokenRevocationService.revoke(jwtUtil.parseToken(token)).block();
+
+            await().atMost(Duration.ofSeconds(5)).until(() -> !authenticates(otherManager, token));
+        }
+
+        try (ConfigurableApplicationContext restartedNode = startNode()) {
+            assertThat(restartedNode.getBean(AccessTokenDenyList.class).isRevoked(jwtUtil.parseToken(token))).isTrue();
+        }
+    }
+
+    @Test
+    void aPasswordChangeEndsSessionsOnNodesThatTrustTheClaims() {
+        String token = register("password-change");
+
+        try (ConfigurableApplicationContext otherNode = startNode("--jwt.authentication-mode=claims")) {
+            AuthenticationManager otherManager = otherNode.getBean(AuthenticationManager.class);
+            assertThat(authenticates(otherManager, token)).isTrue();
+
+            userService.changePassword(jwtUtil.parseToken(token).getUserId(), "another-horse-battery").block();
+
+            await().atMost(Duration.ofSeconds(5)).until(() -> !authenticates(otherManager, token));
+        }
+    }
+
+    private String register(String prefix) {
+        return authService.register(RegisterRequest.builder()
+                        .email(prefix + "-" + UUID.randomUUID() + "@example.com")
+                        .password("correct-horse-battery")
+                        .firstName("Revoked")
+                        .lastName("Token")
+                        .role(Role.CLIENT)
+                        .build())
+                .block()
+                .getToken();
+    }
+
+    private static boolean authenticates(AuthenticationManager manager, String token) {
+        return manager.authenticate(new UsernamePasswordAuthenticationToken(token, token)).blockOptional().isPresent();
+    }
+
+    private static ConfigurableApplicationContext startNode(String... extraArgs) {
+        return new SpringApplicationBuilder(AuthServiceApplication.class).run(Stream.concat(Stream.of(
+                "--server.port=0",
+                "--spring.r2dbc.url=" + String.format("r2dbc:postgresql://%s:%d/%s", POSTGRES.getHost(),
+                        POSTGRES.getMappedPort(PostgreSQLContainer.POSTGRESQL_PORT), POSTGRES.getDatabaseName()),
+                "--spring.r2dbc.username=" + POSTGRES.getUsername(),
+                "--spring.r2dbc.password=" + POSTGRES.getPassword(),
+                "--token.cleanup.enabled=false",
+                "--email.outbox.enabled=false",
+                "--jwt.signing.scheduled-refresh=false"), Stream.of(extraArgs)).toArray(String[]::new));
+    }
+}
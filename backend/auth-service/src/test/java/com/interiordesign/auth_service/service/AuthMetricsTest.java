@@ -0,0 +1,63 @@
+package com.interiordesign.auth_service.service;
+
+import io.micrometer.core.instrument.simple.SimpleMeterRegistry;
+import org.junit.jupiter.api.BeforeEach;
+import org.junit.jupiter.api.Test;
+import reactor.core.publisher.Mono;
+import reactor.test.StepVerifier;
+
+import static org.assertj.core.api.Assertions.assertThat;
+import static org.assertj.core.api.Assertions.assertThatThrownBy;
+
+class AuthMetricsTest {
+
+    private SimpleMeterRegistry meterRegistry;
+    private AuthMetrics authMetrics;
+
+    @BeforeEach
+    void setUp() {
+        meterRegistry = new SimpleMeterRegistry();
+        authMetrics = new AuthMetrics(meterRegistry);
+    }
+
+    @Test
+    void tagsEachPhaseWithItsOutcome() {
+        StepVerifier.create(authMetrics.phase(AuthMetrics.LOGIN, AuthMetrics.USER_LOOKUP, Mono.just("user")))
+                .expectNext("user")
+                .verifyComplete();
+        StepVerifier.create(authMetrics.phase(AuthMetrics.LOGIN, AuthMetrics.PASSWORD_VERIFY, Mono.empty()))
+                .verifyComplete();
+        StepVerifier.create(authMetrics.phase(AuthMetrics.LOGIN, AuthMetrics.REFRESH_TOKEN_PERSIST,
+                        Mono.error(new IllegalStateException("database down"))))
+                .verifyError(IllegalStateException.class);
+
+        assertThat(phaseCount(AuthMetrics.USER_LOOKUP, "success")).isEqualTo(1);
+        assertThat(phaseCount(AuthMetrics.PASSWORD_VERIFY, "empty")).isEqualTo(1);
+        assertThat(phaseCount(AuthMetrics.REFRESH_TOKEN_PERSIST, "error")).isEqualTo(1);
+    }
+
+    @Test
+    void timesEverySubscriptionAndSynchronousSteps() {
+        Mono<String> lookup = authMetrics.phase(AuthMetrics.REFRESH, AuthMetrics.USER_LOOKUP, Mono.just("user"));
+        lookup.block();
+        lookup.block();
+        authMetrics.phase(AuthMetrics.REFRESH, AuthMetrics.TOKEN_SIGN, () -> "token");
+        assertThatThrownBy(() -> authMetrics.phase(AuthMetrics.REFRESH, AuthMetrics.TOKEN_SIGN, () -> {
+            throw new IllegalStateException("no key");
+        })).isInstanceOf(IllegalStateException.class);
+
+        assertThat(meterRegistry.get("auth.flow.phase").tag("flow", AuthMetrics.REFRESH)
+                .tag("phase", AuthMetrics.USER_LOOKUP).timer().count()).isEqualTo(2);
+        assertThat(meterRegistry.get("auth.flow.phase").tag("phase", AuthMetrics.TOKEN_SIGN)
+                .tag("outcome", "error").timer().count()).isEqualTo(1);
+    }
+
+    private long phaseCount(String phase, String outcome) {
+        return meterRegistry.get("auth.flow.phase")
+                .tag("flow", AuthMetrics.LOGIN)
+                .tag("phase", phase)
+                .tag("outcome", outcome)
+                .timer()
+                .count();
+    }
+}
@@ -0,0 +1,221 @@
+package com.interiordesign.auth_service.service;
+
+import com.interiordesign.auth_service.dto.request.LoginRequest;
+import com.interiordesign.auth_service.dto.request.RegisterRequest;
+import com.interiordesign.auth_service.dto.request.UpdateUserRequest;
+import com.interiordesign.auth_service.dto.response.IntrospectionResponse;
+import com.interiordesign.auth_service.dto.response.TokenResponse;
+import com.interiordesign.auth_service.model.Role;
+import com.interiordesign.auth_service.model.User;
+import com.interiordesign.auth_service.support.PostgresIntegrationTest;
+import com.interiordesign.auth_service.support.StatementCounter;
+import org.junit.jupiter.api.BeforeEach;
+import org.junit.jupiter.api.Test;
+import org.springframework.beans.factory.annotation.Autowired;
+import org.springframework.r2dbc.core.DatabaseClient;
+import org.springframework.security.crypto.bcrypt.BCryptPasswordEncoder;
+
+import java.util.List;
+import java.util.Locale;
+import java.util.UUID;
+
+import static org.assertj.core.api.Assertions.assertThat;
+
+/**
+ * Pins the number of database round trips per endpoint flow.
+ */
+class AuthRoundTripIntegrationTest extends PostgresIntegrationTest {
+
+    private static final String PASSWORD = "correct-horse-battery";
+
+    @Autowired
+    private AuthService authService;
+
+    @Autowired
+    private UserService userService;
+
+    @Autowired
+    private PasswordResetService passwordResetService;
+
+    @Autowired
+    private UserCache userCache;
+
+    @Autowired
+    private TokenIntrospectionService tokenIntrospectionService;
+
+    @Autowired
+    private DatabaseClient databaseClient;
+
+    private String email;
+
+    @BeforeEach
+    void setUp() {
+        email = "round-trip-" + UUID.randomUUID() + "@example.com";
+    }
+
+    @Test
+    void registerIsOneInsertPlusRefreshTokenIssue() {
+        StatementCounter.reset();
+        assertThat(register()).isNotNull();
+        // insert-or-skip user, revoke previous refresh tokens, insert refresh token
+        assertThat(StatementCounter.count()).isEqualTo(3);
+    }
+
+    @Test
+    void registeringATakenEmailIsASingleStatement() {
+        register();
+
+        StatementCounter.reset();
+        assertThat(register()).isNull();
+        assertThat(StatementCounter.count()).isEqualTo(1);
+    }
+
+    @Test
+    void loginLoadsTheUserOnceAndThenServesItFromCache() {
+        register();
+        userCache.invalidateAll();
+
+        StatementCounter.reset();
+        login();
+        assertThat(StatementCounter.count()).isEqualTo(3);
+
+        StatementCounter.reset();
+        login();
+        assertThat(StatementCounter.count()).isEqualTo(2);
+    }
+
+    @Test
+    void loginUpgradesAnOutdatedHashWithoutChangingThePassword() throws InterruptedException {
+        register();
+        databaseClient.sql("UPDATE users SET password = :password WHERE email = :email")
+                .bind("password", new BCryptPasswordEncoder(5).encode(PASSWORD))
+                .bind("email", email)
+                .then()
+                .block();
+        userCache.invalidateAll();
+
+        assertThat(login()).isNotNull();
+
+        // The upgrade runs after the response; tests pin the cost at 4
+        String stored = storedPassword();
+        for (int i = 0; i < 50 && !stored.startsWith("$2a$04$"); i++) {
+            Thread.sleep(100);
+            stored = storedPassword();
+        }
+        assertThat(stored).startsWith("$2a$04$");
+
+        StatementCounter.reset();
+        assertThat(login()).isNotNull();
+        assertThat(StatementCounter.count()).isEqualTo(2);
+    }
+
+    @Test
+    void initiatingAPasswordResetIsASingleStatementThatAlsoQueuesTheEmail() {
+        register();
+
+        StatementCounter.reset();
+        authService.initiatePasswordReset(email, Locale.ENGLISH).block();
+        assertThat(StatementCounter.count()).isEqualTo(1);
+
+        assertThat(databaseClient.sql("SELECT count(*) FROM email_outbox WHERE recipient = :email AND status = 'PENDING'")
+                .bind("email", email)
+                .map(row -> row.get(0, Long.class))
+                .one()
+                .block())
+                .isEqualTo(1L);
+    }
+
+    @Test
+    void completingAPasswordResetConsumesTheTokenAndUpdatesThePassword() {
+        register();
+        String token = passwordResetService.createToken(email, Locale.ENGLISH).block();
+
+        StatementCounter.reset();
+        authService.completePasswordReset(token, "another-horse-battery").block();
+        assertThat(StatementCounter.count()).isEqualTo(2);
+
+        // The token cannot be used twice
+        StatementCounter.reset();
+        authService.completePasswordReset(token, "third-horse-battery").block();
+        assertThat(StatementCounter.count()).isEqualTo(1);
+    }
+
+    @Test
+    void changingTheEmailEndsEverySessionInTheSameStatement() {
+        TokenResponse session = register();
+        Long userId = session.getUser().getId();
+
+        // A new name alone leaves the sessions alone
+        userService.updateUser(userId, UpdateUserRequest.builder().firstName("Renamed").build()).block();
+        String refreshToken = authService.refreshToken(session.getRefreshToken()).block().getRefreshToken();
+
+        StatementCounter.reset();
+        User updated = userService.updateUser(userId, UpdateUserRequest.builder()
+                .email("changed-" + email)
+                .build()).block();
+        assertThat(StatementCounter.count()).isEqualTo(1);
+
+        assertThat(updated.getTokenVersion()).isEqualTo(1);
+        assertThat(authService.refreshToken(refreshToken).blockOptional()).isEmpty();
+    }
+
+    @Test
+    void updatingTheProfileIsASingleStatement() {
+        Long userId = register().getUser().getId();
+
+        StatementCounter.reset();
+        String newEmail = "renamed-" + email;
+        assertThat(userService.updateUser(userId, UpdateUserRequest.builder()
+                        .firstName("Renamed")
+                        .email(newEmail)
+                        .build()).block().getEmail())
+                .isEqualTo(newEmail);
+        assertThat(StatementCounter.count()).isEqualTo(1);
+    }
+
+    @Test
+    void introspectingABatchIsASingleStatement() {
+        String first = register().getToken();
+        String second = register("second-" + email).getToken();
+
+        StatementCounter.reset();
+        List<IntrospectionResponse> results = tokenIntrospectionService
+                .introspect(List.of(first, "not-a-token", second, first))
+                .block();
+        assertThat(StatementCounter.count()).isEqualTo(1);
+
+        assertThat(results).extracting(IntrospectionResponse::isActive).containsExactly(true, false, true, true);
+        assertThat(results.get(2).getSub()).isEqualTo("second-" + email);
+    }
+
+    private TokenResponse register() {
+        return register(email);
+    }
+
+    private TokenResponse register(String email) {
+        return authService.register(RegisterRequest.builder()
+                        .email(email)
+                        .password(PASSWORD)
+                        .firstName("Round")
+                        .lastName("Trip")
+                        .role(Role.CLIENT)
+                        .build())
+                .block();
+    }
+
+    private String storedPassword() {
+        return databaseClient.sql("SELECT password FROM users WHERE email = :email")
+                .bind("email", email)
+                .map(row -> row.get(0, String.class))
+                .one()
+                .block();
+    }
+
+    private TokenResponse login() {
+        return authService.login(LoginRequest.builder()
+                        .email(email)
+                        .password(PASSWORD)
+                        .build())
+                .block();
+    }
+}
@@ -0,0 +1,139 @@
+package com.interiordesign.auth_service.service;
+
+import com.interiordesign.auth_service.model.EmailOutboxMessage;
+import com.interiordesign.auth_service.repository.EmailOutboxRepository;
+import io.micrometer.core.instrument.simple.SimpleMeterRegistry;
+import org.junit.jupiter.api.BeforeEach;
+import org.junit.jupiter.api.Test;
+import org.mockito.ArgumentCaptor;
+import reactor.core.publisher.Flux;
+import reactor.core.publisher.Mono;
+import reactor.test.StepVerifier;
+
+import java.time.Duration;
+import java.time.Instant;
+import java.time.temporal.ChronoUnit;
+import java.util.List;
+import java.util.Map;
+
+import static org.assertj.core.api.Assertions.assertThat;
+import static org.assertj.core.api.Assertions.within;
+import static org.mockito.ArgumentMatchers.any;
+import static org.mockito.ArgumentMatchers.anyInt;
+import static org.mockito.ArgumentMatchers.anyString;
+import static org.mockito.ArgumentMatchers.eq;
+import static org.mockito.Mockito.mock;
+import static org.mockito.Mockito.never;
+import static org.mockito.Mockito.times;
+import static org.mockito.Mockito.verify;
+import static org.mockito.Mockito.when;
+
+class EmailOutboxWorkerTest {
+
+    private static final int BATCH_SIZE = 2;
+    private static final int CONCURRENCY = 2;
+    private static final int MAX_ATTEMPTS = 3;
+    private static final Duration INITIAL_BACKOFF = Duration.ofSeconds(30);
+    private static final Duration LEASE = Duration.ofMinutes(5);
+
+    private final EmailOutboxRepository repository = mock(EmailOutboxRepository.class);
+    private final EmailService emailService = mock(EmailService.class);
+    private final SimpleMeterRegistry meterRegistry = new SimpleMeterRegistry();
+    private EmailOutboxWorker worker;
+
+    @BeforeEach
+    void setUp() {
+        worker = new EmailOutboxWorker(repository, emailService, meterRegistry, BATCH_SIZE, CONCURRENCY,
+                MAX_ATTEMPTS, INITIAL_BACKOFF, Duration.ofHours(1), LEASE);
+        when(repository.markSent(any())).thenReturn(Mono.just(1));
+        when(repository.markFailed(any(), anyString(), any(), anyString())).thenReturn(Mono.just(1));
+        when(repository.oldestPendingAgeSeconds()).thenReturn(Mono.just(42.0));
+    }
+
+    @Test
+    void leasesOneRoundOfBatchesAndMarksThemSent() {
+        when(repository.claimDue(anyInt(), any())).thenReturn(Flux.just(
+                message(1L, 1), message(2L, 1), message(3L, 1)));
+        when(emailService.sendBatch(any())).thenReturn(Map.of());
+
+        Instant started = Instant.now();
+        StepVerifier.create(worker.drain()).verifyComplete();
+
+        ArgumentCaptor<Instant> leaseUntil = ArgumentCaptor.forClass(Instant.class);
+        verify(repository).claimDue(eq(BATCH_SIZE * CONCURRENCY), leaseUntil.capture());
+        assertThat(leaseUntil.getValue()).isCloseTo(started.plus(LEASE), within(5, ChronoUnit.SECONDS));
+
+        // Three messages make a full batch and a partial one, each over its own connection
+        ArgumentCaptor<List<EmailOutboxMessage>> batches = batchCaptor();
+        verify(emailService, times(2)).sendBatch(batches.capture());
+        assertThat(batches.getAllValues()).extracting(List::size).containsExactlyInAnyOrder(2, 1);
+        verify(repository, never()).markFailed(any(), anyString(), any(), anyString());
+        assertThat(outcome("sent")).isEqualTo(3);
+        assertThat(meterRegistry.get("auth.email.outbox.lag").gauge().value()).isEqualTo(42);
+    }
+
+    @Test
+    void reschedulesAFailedMessageWithExponentialBackoff() {
+        when(repository.claimDue(anyInt(), any())).thenReturn(Flux.just(message(1L, 1), message(2L, 2)));
+        when(emailService.sendBatch(any())).thenReturn(Map.of(2L, new IllegalStateException("Connection refused")));
+
+        Instant started = Instant.now();
+        StepVerifier.create(worker.drain()).verifyComplete();
+
+        verify(repository).markSent(new Long[]{1L});
+        ArgumentCaptor<Instant> nextAttemptAt = ArgumentCaptor.forClass(Instant.class);
+        verify(repository).markFailed(eq(2L), eq(EmailOutboxMessage.PENDING), nextAttemptAt.capture(),
+                eq("Connection refused"));
+        // Second attempt: twice the initial backoff
+        assertThat(nextAttemptAt.getValue())
+                .isCloseTo(started.plus(INITIAL_BACKOFF.multipliedBy(2)), within(5, ChronoUnit.SECONDS));
+        assertThat(outcome("sent")).isEqualTo(1);
+        assertThat(outcome("retried")).isEqualTo(1);
+        assertThat(outcome("failed")).isZero();
+    }
+
+    @Test
+    void givesUpAfterTheLastAttempt() {
+        when(repository.claimDue(anyInt(), any())).thenReturn(Flux.just(message(1L, MAX_ATTEMPTS)));
+        when(emailService.sendBatch(any())).thenReturn(Map.of(1L, new IllegalStateException("Mailbox unavailable")));
+
+        StepVerifier.create(worker.drain()).verifyComplete();
+
+        verify(repository, never()).markSent(any());
+        verify(repository).markFailed(eq(1L), eq(EmailOutboxMessage.FAILED), any(), eq("Mailbox unavailable"));
+        assertThat(outcome("failed")).isEqualTo(1);
+        assertThat(outcome("retried")).isZero();
+    }
+
+    @Test
+    void survivesAFailingRepository() {
+        when(repository.claimDue(anyInt(), any())).thenReturn(Flux.error(new IllegalStateException("db down")));
+
+        StepVerifier.create(worker.drain()).verifyComplete();
+
+        verify(emailService, never()).sendBatch(any());
+    }
+
+    private double outcome(String outcome) {
+        return meterRegistry.get("auth.email.outbox.messages").tag("outcome", outcome).counter().count();
+    }
+
+    @SuppressWarnings("unchecked")
+    private static ArgumentCaptor<List<EmailOutboxMessage>> batchCaptor() {
+        return ArgumentCaptor.forClass(List.class);
+    }
+
+    // As returned by claimDue, which has already counted this attempt
+    private static EmailOutboxMessage message(Long id, int attempts) {
+        return EmailOutboxMessage.builder()
+                .id(id)
+                .recipient("user" + id + "@example.com")
+                .subject("Reset your password")
+                .template("password-reset")
+                .variables("{}")
+                .status(EmailOutboxMessage.SENDING)
+                .attempts(attempts)
+                .createdAt(Instant.now())
+                .build();
+    }
+}
@@ -0,0 +1,79 @@
+package com.interiordesign.auth_service.service;
+
+import com.fasterxml.jackson.databind.ObjectMapper;
+import com.icegreen.greenmail.junit5.GreenMailExtension;
+import com.icegreen.greenmail.util.GreenMailUtil;
+import com.icegreen.greenmail.util.ServerSetupTest;
+import com.interiordesign.auth_service.AuthServiceApplication;
+import com.interiordesign.auth_service.model.EmailOutboxMessage;
+import jakarta.mail.internet.MimeMessage;
+import org.junit.jupiter.api.BeforeEach;
+import org.junit.jupiter.api.Test;
+import org.junit.jupiter.api.extension.RegisterExtension;
+import org.springframework.mail.javamail.JavaMailSenderImpl;
+import org.springframework.test.util.ReflectionTestUtils;
+
+import java.util.List;
+import java.util.Map;
+
+import static org.assertj.core.api.Assertions.assertThat;
+
+class EmailServiceTest {
+
+    @RegisterExtension
+    static GreenMailExtension greenMail = new GreenMailExtension(ServerSetupTest.SMTP);
+
+    private EmailService emailService;
+
+    @BeforeEach
+    void setUp() {
+        JavaMailSenderImpl mailSender = new JavaMailSenderImpl();
+        mailSender.setHost("localhost");
+        mailSender.setPort(ServerSetupTest.SMTP.getPort());
+
+        EmailTemplateRenderer templateRenderer = new EmailTemplateRenderer(
+                new AuthServiceApplication().emailTemplateEngine(true, 50), true);
+        emailService = new EmailService(mailSender, templateRenderer, new ObjectMapper());
+        ReflectionTestUtils.setField(emailService, "baseUrl", "http://localhost:3000");
+        ReflectionTestUtils.setField(emailService, "fromEmail", "no-reply@example.com");
+    }
+
+    @Test
+    void sendsAWholeBatchAndRendersTheTemplate() {
+        List<EmailOutboxMessage> batch = List.of(
+                resetEmail(1L, "first@example.com", "token-1"),
+                resetEmail(2L, "second@example.com", "token-2"),
+                resetEmail(3L, "third@example.com", "token-3"));
+
+        Map<Long, Exception> failures = emailService.sendBatch(batch);
+
+        assertThat(failures).isEmpty();
+        MimeMessage[] received = greenMail.getReceivedMessages();
+        assertThat(received).hasSize(3);
+        assertThat(GreenMailUtil.getBody(received[0])).contains("reset-password?token=token-1");
+    }
+
+    @Test
+    void reportsMessagesThatCannotBeBuiltWithoutFailingTheRest() {
+        EmailOutboxMessage broken = resetEmail(2L, "broken@example.com", "token-2");
+        broken.setVariables("not json");
+
+        Map<Long, Exception> failures = emailService.sendBatch(List.of(
+                resetEmail(1L, "first@example.com", "token-1"), broken));
+
+        assertThat(failures).containsOnlyKeys(2L);
+        assertThat(greenMail.getReceivedMessages()).hasSize(1);
+    }
+
+    private EmailOutboxMessage resetEmail(Long id, String recipient, String token) {
+        return EmailOutboxMessage.builder()
+                .id(id)
+                .recipient(recipient)
+                .subject(EmailService.PASSWORD_RESET_SUBJECT)
+                .template(EmailService.PASSWORD_RESET_TEMPLATE)
+                .variables(emailService.passwordResetVariables(token))
+                .status(EmailOutboxMessage.SENDING)
+                .attempts(1)
+                .build();
+    }
+}
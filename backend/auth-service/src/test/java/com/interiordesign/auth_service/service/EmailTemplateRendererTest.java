@@ -0,0 +1,40 @@
+package com.interiordesign.auth_service.service;
+
+import com.interiordesign.auth_service.AuthServiceApplication;
+import org.junit.jupiter.api.BeforeEach;
+import org.junit.jupiter.api.Test;
+
+import java.util.Locale;
+import java.util.Map;
+
+import static org.assertj.core.api.Assertions.assertThat;
+
+class EmailTemplateRendererTest {
+
+    private static final String TEMPLATE = EmailService.PASSWORD_RESET_TEMPLATE;
+
+    private EmailTemplateRenderer renderer;
+
+    @BeforeEach
+    void setUp() {
+        renderer = new EmailTemplateRenderer(new AuthServiceApplication().emailTemplateEngine(true, 50), true);
+        renderer.warmUp();
+    }
+
+    @Test
+    void picksTheMostSpecificLocalizedVariant() {
+        assertThat(renderer.resolve(TEMPLATE, Locale.FRENCH)).isEqualTo(TEMPLATE + "_fr");
+        assertThat(renderer.resolve(TEMPLATE, Locale.CANADA_FRENCH)).isEqualTo(TEMPLATE + "_fr");
+        assertThat(renderer.resolve(TEMPLATE, Locale.GERMAN)).isEqualTo(TEMPLATE);
+        assertThat(renderer.resolve(TEMPLATE, null)).isEqualTo(TEMPLATE);
+    }
+
+    @Test
+    void reusedBuffersDoNotLeakOutputBetweenRenders() {
+        String first = renderer.render(TEMPLATE, Locale.FRENCH, Map.of("resetUrl", "http://localhost/first"));
+        String second = renderer.render(TEMPLATE, Locale.FRENCH, Map.of("resetUrl", "http://localhost/second"));
+
+        assertThat(first).contains("réinitialiser").contains("/first");
+        assertThat(second).contains("/second").doesNotContain("/first");
+    }
+}
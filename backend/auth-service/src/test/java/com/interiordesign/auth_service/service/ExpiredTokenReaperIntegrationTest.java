@@ -0,0 +1,105 @@
+package com.interiordesign.auth_service.service;
+
+import com.interiordesign.auth_service.dto.request.RegisterRequest;
+import com.interiordesign.auth_service.dto.response.TokenResponse;
+import com.interiordesign.auth_service.model.Role;
+import com.interiordesign.auth_service.support.PostgresIntegrationTest;
+import io.micrometer.core.instrument.simple.SimpleMeterRegistry;
+import org.junit.jupiter.api.Test;
+import org.springframework.beans.factory.annotation.Autowired;
+import org.springframework.r2dbc.core.DatabaseClient;
+
+import java.time.Duration;
+import java.util.List;
+import java.util.UUID;
+
+import static org.assertj.core.api.Assertions.assertThat;
+
+class ExpiredTokenReaperIntegrationTest extends PostgresIntegrationTest {
+
+    @Autowired
+    private AuthService authService;
+
+    @Autowired
+    private DatabaseClient databaseClient;
+
+    @Test
+    void keepsRevokedTokensForTheRetentionCountedFromTheirRevocation() {
+        TokenResponse session = register();
+        String original = session.getRefreshToken();
+        String rotated = authService.refreshToken(original).block().getRefreshToken();
+        // A session that started days ago and was rotated just now
+        execute("UPDATE refresh_tokens SET created_at = now() - interval '3 days' WHERE user_id = :userId",
+                session.getUser().getId());
+
+        TokenResponse stale = register();
+        execute("UPDATE refresh_tokens SET revoked = true, revoked_at = now() - interval '2 days' "
+                + "WHERE user_id = :userId", stale.getUser().getId());
+
+        reaper().purgeExpiredTokens().block(Duration.ofSeconds(10));
+
+        assertThat(countTokens(session.getUser().getId())).isEqualTo(2);
+        assertThat(countTokens(stale.getUser().getId())).isZero();
+
+        // Still on record, so replaying the rotated token is detected and revokes its successor
+        assertThat(authService.refreshToken(original).blockOptional()).isEmpty();
+        assertThat(authService.refreshToken(rotated).blockOptional()).isEmpty();
+    }
+
+    @Test
+    void purgesSentAndFailedEmailsPastTheRetentionButNotPendingOnes() {
+        String batch = UUID.randomUUID().toString();
+        for (String status : List.of("SENT", "FAILED", "PENDING")) {
+            insertEmail(batch, status, "now() - interval '2 days'");
+        }
+        insertEmail(batch, "FAILED", "now()");
+
+        reaper().purgeExpiredTokens().block(Duration.ofSeconds(10));
+
+        List<String> remaining = databaseClient.sql("SELECT status FROM email_outbox WHERE recipient = :recipient "
+                        + "ORDER BY status")
+                .bind("recipient", batch + "@example.com")
+                .map(row -> row.get(0, String.class))
+                .all()
+                .collectList()
+                .block(Duration.ofSeconds(10));
+        assertThat(remaining).containsExactly("FAILED", "PENDING");
+    }
+
+    private ExpiredTokenReaper reaper() {
+        return new ExpiredTokenReaper(databaseClient, new SimpleMeterRegistry(), 1000, 50, Duration.ofHours(24), false);
+    }
+
+    private void insertEmail(String batch, String status, String createdAt) {
+        databaseClient.sql("INSERT INTO email_outbox (recipient, subject, template, variables, status, "
+                        + "next_attempt_at, created_at, sent_at) VALUES (:recipient, 'Reset', 'password-reset', '{}', "
+                        + ":status, now(), " + createdAt + ", CASE WHEN :status = 'SENT' THEN " + createdAt + " END)")
+                .bind("recipient", batch + "@example.com")
+                .bind("status", status)
+                .then()
+                .block(Duration.ofSeconds(10));
+    }
+
+    private void execute(String sql, Long userId) {
+        databaseClient.sql(sql).bind("userId", userId).then().block(Duration.ofSeconds(10));
+    }
+
+    private long countTokens(Long userId) {
+        return databaseClient.sql("SELECT count(*) FROM refresh_tokens WHERE user_id = :userId")
+                .bind("userId", userId)
+                .map(row -> row.get(0, Long.class))
+                .one()
+                .block(Duration.ofSeconds(10));
+    }
+
+    private TokenResponse register() {
+        return authService.register(RegisterRequest.builder()
+                        .email("reaper-" + UUID.randomUUID() + "@example.com")
+                        .password("correct-horse-battery")
+                        .firstName("Reaper")
+                        .lastName("Test")
+                        .role(Role.CLIENT)
+                        .build())
+                .block(Duration.ofSeconds(10));
+    }
+}
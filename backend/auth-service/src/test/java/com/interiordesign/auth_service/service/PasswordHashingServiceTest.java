@@ -0,0 +1,88 @@
+package com.interiordesign.auth_service.service;
+
+import io.micrometer.core.instrument.simple.SimpleMeterRegistry;
+import org.junit.jupiter.api.AfterEach;
+import org.junit.jupiter.api.Test;
+import org.springframework.http.HttpStatus;
+import org.springframework.security.crypto.bcrypt.BCryptPasswordEncoder;
+import org.springframework.security.crypto.password.PasswordEncoder;
+import org.springframework.web.server.ResponseStatusException;
+import reactor.test.StepVerifier;
+
+import java.util.concurrent.CompletableFuture;
+import java.util.concurrent.CountDownLatch;
+import java.util.concurrent.TimeUnit;
+
+import static org.assertj.core.api.Assertions.assertThat;
+import static org.awaitility.Awaitility.await;
+
+class PasswordHashingServiceTest {
+
+    private final SimpleMeterRegistry meterRegistry = new SimpleMeterRegistry();
+    private final CountDownLatch release = new CountDownLatch(1);
+    private PasswordHashingService service;
+
+    @AfterEach
+    void tearDown() {
+        release.countDown();
+        service.destroy();
+    }
+
+    @Test
+    void hashesAndVerifiesOffTheCallingThread() {
+        service = new PasswordHashingService(new BCryptPasswordEncoder(4), meterRegistry, 1, 1);
+
+        String hash = service.encode("password1").block();
+
+        StepVerifier.create(service.matches("password1", hash)).expectNext(true).verifyComplete();
+        StepVerifier.create(service.matches("password2", hash)).expectNext(false).verifyComplete();
+        assertThat(meterRegistry.get("auth.password.hash").timer().count()).isEqualTo(3);
+    }
+
+    @Test
+    void rejectsWithServiceUnavailableOnceTheThreadAndQueueAreTaken() throws Exception {
+        service = new PasswordHashingService(new BlockingEncoder(release), meterRegistry, 1, 1);
+
+        CompletableFuture<String> running = service.encode("running").toFuture();
+        await().until(() -> gauge("auth.password.hash.active") == 1);
+        CompletableFuture<String> queued = service.encode("queued").toFuture();
+        assertThat(gauge("auth.password.hash.queue.depth")).isEqualTo(1);
+        assertThat(service.getQueueDepth()).isEqualTo(1);
+
+        StepVerifier.create(service.encode("rejected"))
+                .expectErrorSatisfies(e -> assertThat(((ResponseStatusException) e).getStatusCode())
+                        .isEqualTo(HttpStatus.SERVICE_UNAVAILABLE))
+                .verify();
+        assertThat(meterRegistry.get("auth.password.hash.rejected").counter().count()).isEqualTo(1);
+
+        // Nothing admitted is lost: both run once a thread frees up
+        release.countDown();
+        assertThat(running.get(5, TimeUnit.SECONDS)).isEqualTo("hash:running");
+        assertThat(queued.get(5, TimeUnit.SECONDS)).isEqualTo("hash:queued");
+        await().until(() -> gauge("auth.password.hash.active") == 0);
+        assertThat(gauge("auth.password.hash.queue.depth")).isZero();
+    }
+
+    private double gauge(String name) {
+        return meterRegistry.get(name).gauge().value();
+    }
+
+    // Holds the hashing thread until released, so the test controls when the pool is full
+    private record BlockingEncoder(CountDownLatch release) implements PasswordEncoder {
+
+        @Override
+        public String encode(CharSequence rawPassword) {
+            try {
+                release.await();
+            } catch (InterruptedException e) {
+                Thread.currentThread().interrupt();
+            }
+            return "hash:" + rawPassword;
+        }
+
+        @Override
+        public boolean matches(CharSequence rawPassword, String encodedPassword) {
+            return encode(rawPassword).equals(encodedPassword);
+        }
+    }
+}
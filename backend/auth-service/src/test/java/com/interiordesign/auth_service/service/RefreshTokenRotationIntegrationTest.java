@@ -0,0 +1,79 @@
+package com.interiordesign.auth_service.service;
+
+import com.interiordesign.auth_service.dto.request.RegisterRequest;
+import com.interiordesign.auth_service.dto.response.TokenResponse;
+import com.interiordesign.auth_service.model.Role;
+import com.interiordesign.auth_service.support.PostgresIntegrationTest;
+import com.interiordesign.auth_service.support.StatementCounter;
+import org.junit.jupiter.api.Test;
+import org.springframework.beans.factory.annotation.Autowired;
+import reactor.core.publisher.Flux;
+import reactor.core.scheduler.Schedulers;
+
+import java.time.Duration;
+import java.util.List;
+import java.util.Optional;
+import java.util.UUID;
+
+import static org.assertj.core.api.Assertions.assertThat;
+
+class RefreshTokenRotationIntegrationTest extends PostgresIntegrationTest {
+
+    private static final int PARALLEL_REFRESHES = 32;
+
+    @Autowired
+    private AuthService authService;
+
+    @Test
+    void concurrentRefreshesWithTheSameTokenRotateExactlyOnce() {
+        String refreshToken = register().getRefreshToken();
+
+        List<Optional<TokenResponse>> results = Flux.range(0, PARALLEL_REFRESHES)
+                .flatMap(i -> authService.refreshToken(refreshToken)
+                        .map(Optional::of)
+                        .defaultIfEmpty(Optional.empty())
+                        .subscribeOn(Schedulers.parallel()), PARALLEL_REFRESHES)
+                .collectList()
+                .block(Duration.ofSeconds(30));
+
+        List<TokenResponse> successes = results.stream().flatMap(Optional::stream).toList();
+        assertThat(successes).hasSize(1);
+
+        // The losing requests replayed a consumed token, which revokes the whole family
+        assertThat(authService.refreshToken(successes.get(0).getRefreshToken()).blockOptional()).isEmpty();
+    }
+
+    @Test
+    void sequentialRotationIsOneRoundTripPerRefresh() {
+        String refreshToken = register().getRefreshToken();
+        int rotations = 200;
+
+        StatementCounter.reset();
+        for (int i = 0; i < rotations; i++) {
+            refreshToken = authService.refreshToken(refreshToken).block().getRefreshToken();
+        }
+
+        // The user is served from the cache, so rotation itself is the only statement
+        assertThat(StatementCounter.count()).isEqualTo(rotations);
+    }
+
+    @Test
+    void replayingARotatedTokenRevokesItsSuccessor() {
+        String original = register().getRefreshToken();
+        String rotated = authService.refreshToken(original).block().getRefreshToken();
+
+        assertThat(authService.refreshToken(original).blockOptional()).isEmpty();
+        assertThat(authService.refreshToken(rotated).blockOptional()).isEmpty();
+    }
+
+    private TokenResponse register() {
+        return authService.register(RegisterRequest.builder()
+                        .email("rotation-" + UUID.randomUUID() + "@example.com")
+                        .password("correct-horse-battery")
+                        .firstName("Rotation")
+                        .lastName("Test")
+                        .role(Role.CLIENT)
+                        .build())
+                .block(Duration.ofSeconds(10));
+    }
+}
@@ -0,0 +1,67 @@
+package com.interiordesign.auth_service.service;
+
+import com.interiordesign.auth_service.model.RefreshToken;
+import com.interiordesign.auth_service.repository.RefreshTokenRepository;
+import com.interiordesign.auth_service.security.VerifiedTokenCache;
+import org.junit.jupiter.api.Test;
+import org.junit.jupiter.params.ParameterizedTest;
+import org.junit.jupiter.params.provider.ValueSource;
+import org.springframework.test.util.ReflectionTestUtils;
+import reactor.core.publisher.Mono;
+import reactor.test.StepVerifier;
+
+import static org.assertj.core.api.Assertions.assertThat;
+import static org.mockito.ArgumentMatchers.any;
+import static org.mockito.Mockito.mock;
+import static org.mockito.Mockito.mockingDetails;
+import static org.mockito.Mockito.times;
+import static org.mockito.Mockito.verify;
+import static org.mockito.Mockito.when;
+
+class RefreshTokenServiceTest {
+
+    @ParameterizedTest
+    @ValueSource(ints = {0, 1, 50, 1000})
+    void createRefreshTokenIssuesConstantStatementsRegardlessOfHistory(int historicalTokens) {
+        RefreshTokenRepository repository = mock(RefreshTokenRepository.class);
+        when(repository.revokeAllByUserId(7L)).thenReturn(Mono.just(historicalTokens));
+        when(repository.save(any(RefreshToken.class))).thenAnswer(invocation -> Mono.just(invocation.getArgument(0)));
+
+        RefreshTokenService service = new RefreshTokenService(repository, mock(VerifiedTokenCache.class));
+        ReflectionTestUtils.setField(service, "refreshTokenDurationMs", 604800000L);
+
+        StepVerifier.create(service.createRefreshToken(7L, "new-token"))
+                .assertNext(token -> assertThat(token.getTokenHash()).isEqualTo(RefreshTokenService.hash("new-token")))
+                .verifyComplete();
+
+        verify(repository, times(1)).revokeAllByUserId(7L);
+        verify(repository, times(1)).save(any(RefreshToken.class));
+        assertThat(mockingDetails(repository).getInvocations()).hasSize(2);
+    }
+
+    @Test
+    void deleteByTokenIsASingleStatement() {
+        RefreshTokenRepository repository = mock(RefreshTokenRepository.class);
+        VerifiedTokenCache verifiedTokenCache = mock(VerifiedTokenCache.class);
+        when(repository.revokeByTokenHash(RefreshTokenService.hash("token"))).thenReturn(Mono.just(7L));
+
+        RefreshTokenService service = new RefreshTokenService(repository, verifiedTokenCache);
+
+        StepVerifier.create(service.deleteByToken("token")).verifyComplete();
+
+        verify(verifiedTokenCache).invalidateUser(7L);
+        assertThat(mockingDetails(repository).getInvocations()).hasSize(1);
+    }
+
+    @Test
+    void generatedTokensAreOpaqueAndHashToFixedWidth() {
+        RefreshTokenService service = new RefreshTokenService(mock(RefreshTokenRepository.class),
+                mock(VerifiedTokenCache.class));
+
+        String first = service.generateToken();
+        String second = service.generateToken();
+
+        assertThat(first).hasSize(43).doesNotContain(".").isNotEqualTo(second);
+        assertThat(RefreshTokenService.hash(first)).hasSize(32);
+    }
+}
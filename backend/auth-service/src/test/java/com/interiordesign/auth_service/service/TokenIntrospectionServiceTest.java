@@ -0,0 +1,129 @@
+package com.interiordesign.auth_service.service;
+
+import com.fasterxml.jackson.databind.ObjectMapper;
+import com.interiordesign.auth_service.dto.response.IntrospectionResponse;
+import com.interiordesign.auth_service.model.Role;
+import com.interiordesign.auth_service.model.User;
+import com.interiordesign.auth_service.repository.UserQueryRepository;
+import com.interiordesign.auth_service.security.AccessTokenDenyList;
+import com.interiordesign.auth_service.security.AuthenticationMode;
+import com.interiordesign.auth_service.security.JwtUtil;
+import com.interiordesign.auth_service.security.SigningKey;
+import com.interiordesign.auth_service.security.SigningKeyRing;
+import com.interiordesign.auth_service.security.TokenClaims;
+import com.interiordesign.auth_service.security.VerifiedTokenCache;
+import io.micrometer.core.instrument.simple.SimpleMeterRegistry;
+import org.junit.jupiter.api.BeforeEach;
+import org.junit.jupiter.api.Test;
+import org.springframework.web.server.ResponseStatusException;
+import reactor.core.publisher.Flux;
+import reactor.test.StepVerifier;
+
+import java.time.Duration;
+import java.time.Instant;
+import java.util.Collections;
+import java.util.List;
+import java.util.Set;
+
+import static org.assertj.core.api.Assertions.assertThat;
+import static org.mockito.ArgumentMatchers.any;
+import static org.mockito.Mockito.mock;
+import static org.mockito.Mockito.never;
+import static org.mockito.Mockito.verify;
+import static org.mockito.Mockito.when;
+
+class TokenIntrospectionServiceTest {
+
+    private static final SigningKey KEY = SigningKey.generate(1, 2048, Instant.now());
+
+    private final UserQueryRepository userQueryRepository = mock(UserQueryRepository.class);
+    private final AccessTokenDenyList denyList = new AccessTokenDenyList(new SimpleMeterRegistry());
+    private JwtUtil jwtUtil;
+    private TokenIntrospectionService service;
+
+    @BeforeEach
+    void setUp() {
+        SigningKeyRing ring = new SigningKeyRing(new ObjectMapper());
+        ring.update(List.of(KEY));
+        jwtUtil = new JwtUtil(ring, "", 60_000, false);
+        VerifiedTokenCache cache = new VerifiedTokenCache(new SimpleMeterRegistry(), AuthenticationMode.CLAIMS,
+                true, 100, Duration.ofMinutes(1));
+        service = new TokenIntrospectionService(jwtUtil, cache, denyList, userQueryRepository,
+                new AuthMetrics(new SimpleMeterRegistry()), 5);
+    }
+
+    @Test
+    void answersInRequestOrderWithOneLookupForAllOwners() {
+        User jane = user(1L, "jane@example.com", true);
+        User john = user(2L, "john@example.com", true);
+        when(userQueryRepository.findAllById(Set.of(1L, 2L))).thenReturn(Flux.just(john, jane));
+
+        StepVerifier.create(service.introspect(List.of(
+                        jwtUtil.generateToken(jane), "garbage", jwtUtil.generateToken(john))))
+                .assertNext(results -> {
+                    assertThat(results).extracting(IntrospectionResponse::isActive).containsExactly(true, false, true);
+                    assertThat(results.get(0).getSub()).isEqualTo("jane@example.com");
+                    assertThat(results.get(0).getExp()).isNotNull();
+                    assertThat(results.get(1).getSub()).isNull();
+                    assertThat(results.get(2).getUserId()).isEqualTo(2L);
+                })
+                .verifyComplete();
+    }
+
+    @Test
+    void reportsRevokedAndOutdatedTokensAndTokensOfDisabledRenamedOrDeletedUsersAsInactive() {
+        User disabled = user(1L, "jane@example.com", false);
+        User renamed = user(2L, "john@example.com", true);
+        User loggedOut = user(5L, "out@example.com", true);
+        String disabledToken = jwtUtil.generateToken(disabled);
+        String renamedToken = jwtUtil.generateToken(renamed);
+        String deletedToken = jwtUtil.generateToken(user(3L, "gone@example.com", true));
+        String revokedToken = jwtUtil.generateToken(user(4L, "revoked@example.com", true));
+        String outdatedToken = jwtUtil.generateToken(loggedOut);
+        TokenClaims revoked = jwtUtil.parseToken(revokedToken);
+        denyList.add(revoked.getTokenId(), revoked.getExpiration());
+        renamed.setEmail("johnny@example.com");
+        loggedOut.setTokenVersion(1);
+        when(userQueryRepository.findAllById(Set.of(1L, 2L, 3L, 5L)))
+                .thenReturn(Flux.just(disabled, renamed, loggedOut));
+
+        StepVerifier.create(service.introspect(List.of(
+                        disabledToken, renamedToken, deletedToken, revokedToken, outdatedToken)))
+                .assertNext(results -> assertThat(results).extracting(IntrospectionResponse::isActive)
+                        .containsExactly(false, false, false, false, false))
+                .verifyComplete();
+    }
+
+    @Test
+    void skipsTheQueryWhenNoTokenVerifies() {
+        StepVerifier.create(service.introspect(List.of("a", "b")))
+                .assertNext(results -> assertThat(results).hasSize(2).noneMatch(IntrospectionResponse::isActive))
+                .verifyComplete();
+        verify(userQueryRepository, never()).findAllById(any());
+    }
+
+    @Test
+    void inactiveResultsCarryNothingButTheFlag() throws Exception {
+        assertThat(new ObjectMapper().writeValueAsString(IntrospectionResponse.inactive()))
+                .isEqualTo("{\"active\":false}");
+    }
+
+    @Test
+    void rejectsBatchesAboveTheLimit() {
+        StepVerifier.create(service.introspect(Collections.nCopies(6, "token")))
+                .expectError(ResponseStatusException.class)
+                .verify();
+    }
+
+    private static User user(Long id, String email, boolean enabled) {
+        return User.builder()
+                .id(id)
+                .email(email)
+                .role(Role.CLIENT)
+                .enabled(enabled)
+                .accountNonExpired(true)
+                .accountNonLocked(true)
+                .credentialsNonExpired(true)
+                .build();
+    }
+}
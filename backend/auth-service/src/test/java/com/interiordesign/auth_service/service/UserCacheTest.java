@@ -0,0 +1,102 @@
+package com.interiordesign.auth_service.service;
+
+import com.interiordesign.auth_service.model.Role;
+import com.interiordesign.auth_service.model.User;
+import io.micrometer.core.instrument.simple.SimpleMeterRegistry;
+import org.junit.jupiter.api.Test;
+import reactor.core.publisher.Mono;
+import reactor.core.publisher.Sinks;
+import reactor.test.StepVerifier;
+
+import java.time.Duration;
+import java.util.concurrent.atomic.AtomicInteger;
+
+import static org.assertj.core.api.Assertions.assertThat;
+
+class UserCacheTest {
+
+    private final UserCache cache = new UserCache(new SimpleMeterRegistry(), 100, Duration.ofMinutes(5));
+    private final AtomicInteger loads = new AtomicInteger();
+
+    @Test
+    void findsAUserOnlyUnderItsNewEmailAfterAnEmailChange() {
+        cache.put(user("jane@example.com"));
+
+        // As UserService.updateUser does once the new email is committed
+        cache.invalidate(1L, "jane@example.com");
+        cache.put(user("jane.doe@example.com"));
+
+        StepVerifier.create(cache.getByEmail("jane@example.com", this::loadNothing)).verifyComplete();
+        assertThat(loads).hasValue(1);
+        StepVerifier.create(cache.getByEmail("jane.doe@example.com", this::loadNothing))
+                .assertNext(user -> assertThat(user.getId()).isEqualTo(1L))
+                .verifyComplete();
+        assertThat(loads).hasValue(1);
+    }
+
+    @Test
+    void handsOutCopiesSoCallersCannotChangeTheCachedUser() {
+        User original = user("jane@example.com");
+        cache.put(original);
+        original.setFirstName("Changed after put");
+
+        User handedOut = cache.getById(1L, this::loadNothing).block();
+        assertThat(handedOut.getFirstName()).isEqualTo("Jane");
+        handedOut.setFirstName("Changed by a caller");
+
+        assertThat(cache.getByEmail("jane@example.com", this::loadNothing).block().getFirstName()).isEqualTo("Jane");
+        assertThat(loads).hasValue(0);
+    }
+
+    @Test
+    void droppingAUserByIdAlsoDropsItUnderItsEmail() {
+        cache.put(user("jane@example.com"));
+
+        cache.invalidateUser(1L);
+
+        StepVerifier.create(cache.getByEmail("jane@example.com", this::loadNothing)).verifyComplete();
+        assertThat(loads).hasValue(1);
+    }
+
+    @Test
+    void doesNotCacheALoadThatWasInFlightDuringAnInvalidation() {
+        Sinks.One<User> staleRow = Sinks.one();
+        StepVerifier.create(cache.getById(1L, staleRow::asMono))
+                .then(() -> {
+                    cache.invalidateUser(1L);
+                    staleRow.tryEmitValue(user("jane@example.com"));
+                })
+                .expectNextCount(1)
+                .verifyComplete();
+
+        StepVerifier.create(cache.getById(1L, this::loadNothing)).verifyComplete();
+        assertThat(loads).hasValue(1);
+
+        // Loads started after the invalidation are cached as usual
+        StepVerifier.create(cache.getById(1L, () -> Mono.just(user("jane.doe@example.com"))))
+                .expectNextCount(1)
+                .verifyComplete();
+        assertThat(cache.getById(1L, this::loadNothing).block().getEmail()).isEqualTo("jane.doe@example.com");
+        assertThat(loads).hasValue(1);
+    }
+
+    private Mono<User> loadNothing() {
+        loads.incrementAndGet();
+        return Mono.empty();
+    }
+
+    private static User user(String email) {
+        return User.builder()
+                .id(1L)
+                .email(email)
+                .password("hash")
+                .firstName("Jane")
+                .lastName("Doe")
+                .role(Role.CLIENT)
+                .enabled(true)
+                .accountNonExpired(true)
+                .accountNonLocked(true)
+                .credentialsNonExpired(true)
+                .build();
+    }
+}
@@ -0,0 +1,76 @@
+package com.interiordesign.auth_service.service;
+
+import com.fasterxml.jackson.databind.ObjectMapper;
+import com.fasterxml.jackson.datatype.jsr310.JavaTimeModule;
+import com.interiordesign.auth_service.dto.response.UserResponse;
+import com.interiordesign.auth_service.model.Role;
+import com.interiordesign.auth_service.repository.UserQueryRepository;
+import org.junit.jupiter.api.Test;
+import org.springframework.core.io.buffer.DataBufferUtils;
+import org.springframework.core.io.buffer.DefaultDataBufferFactory;
+import reactor.core.publisher.Flux;
+
+import java.nio.charset.StandardCharsets;
+import java.time.Instant;
+
+import static org.assertj.core.api.Assertions.assertThat;
+import static org.mockito.Mockito.mock;
+import static org.mockito.Mockito.when;
+
+class UserExportServiceTest {
+
+    private static final Instant CREATED = Instant.parse("2024-03-01T10:15:30Z");
+
+    private final UserQueryRepository repository = mock(UserQueryRepository.class);
+    private final UserExportService service = new UserExportService(repository,
+            new ObjectMapper().registerModule(new JavaTimeModule()), 100);
+
+    @Test
+    void writesOneJsonObjectPerLine() {
+        when(repository.streamAll(0L, 100)).thenReturn(Flux.just(user(1L, "Ann"), user(2L, "Bob")));
+
+        assertThat(export(UserExportService.Format.NDJSON, null).split("\n"))
+                .hasSize(2)
+                .allMatch(line -> line.startsWith("{\"id\":") && line.endsWith("}"));
+    }
+
+    @Test
+    void writesTheCsvHeaderOnlyForAFullExportAndQuotesWhereNeeded() {
+        when(repository.streamAll(0L, 100)).thenReturn(Flux.just(user(1L, "Lee, \"Jr.\"")));
+        when(repository.streamAll(1L, 100)).thenReturn(Flux.just(user(2L, "Bob")));
+
+        assertThat(export(UserExportService.Format.CSV, null)).isEqualTo(UserExportService.CSV_HEADER
+                + "1,user1@example.com,\"Lee, \"\"Jr.\"\"\",Smith,CLIENT,2024-03-01T10:15:30Z,\n");
+        assertThat(export(UserExportService.Format.CSV, 1L))
+                .isEqualTo("2,user2@example.com,Bob,Smith,CLIENT,2024-03-01T10:15:30Z,\n");
+        assertThat(UserImportService.parseCsvLine(UserExportService.csvField("a,\"b\"")))
+                .containsExactly("a,\"b\"");
+    }
+
+    @Test
+    void neutralisesCellsASpreadsheetWouldRunAsFormulas() {
+        assertThat(UserExportService.csvField("=HYPERLINK(\"http://evil.example\",\"x\")"))
+                .isEqualTo("\"'=HYPERLINK(\"\"http://evil.example\"\",\"\"x\"\")\"");
+        assertThat(UserExportService.csvField("+1")).isEqualTo("\"'+1\"");
+        assertThat(UserExportService.csvField("-2+3")).isEqualTo("\"'-2+3\"");
+        assertThat(UserExportService.csvField("@SUM(A1)")).isEqualTo("\"'@SUM(A1)\"");
+        assertThat(UserExportService.csvField("Anne-Marie")).isEqualTo("Anne-Marie");
+    }
+
+    private String export(UserExportService.Format format, Long afterId) {
+        return DataBufferUtils.join(service.export(format, afterId, DefaultDataBufferFactory.sharedInstance))
+                .map(buffer -> buffer.toString(StandardCharsets.UTF_8))
+                .block();
+    }
+
+    private static UserResponse user(Long id, String firstName) {
+        return UserResponse.builder()
+                .id(id)
+                .email("user" + id + "@example.com")
+                .firstName(firstName)
+                .lastName("Smith")
+                .role(Role.CLIENT)
+                .createdAt(CREATED)
+                .build();
+    }
+}
@@ -0,0 +1,136 @@
+package com.interiordesign.auth_service.service;
+
+import com.fasterxml.jackson.databind.ObjectMapper;
+import com.interiordesign.auth_service.dto.response.UserImportResult;
+import com.interiordesign.auth_service.dto.response.UserImportResult.Status;
+import com.interiordesign.auth_service.model.User;
+import com.interiordesign.auth_service.repository.UserQueryRepository;
+import io.micrometer.core.instrument.simple.SimpleMeterRegistry;
+import jakarta.validation.Validation;
+import org.junit.jupiter.api.AfterEach;
+import org.junit.jupiter.api.Test;
+import org.springframework.security.crypto.bcrypt.BCryptPasswordEncoder;
+import org.springframework.web.server.ResponseStatusException;
+import reactor.core.publisher.Flux;
+import reactor.test.StepVerifier;
+
+import java.time.Duration;
+import java.util.HashSet;
+import java.util.List;
+import java.util.Set;
+import java.util.concurrent.atomic.AtomicLong;
+import java.util.stream.IntStream;
+
+import static org.assertj.core.api.Assertions.assertThat;
+import static org.mockito.ArgumentMatchers.any;
+import static org.mockito.Mockito.doReturn;
+import static org.mockito.Mockito.mock;
+import static org.mockito.Mockito.times;
+import static org.mockito.Mockito.verify;
+import static org.mockito.Mockito.when;
+
+class UserImportServiceTest {
+
+    private final UserQueryRepository repository = mock(UserQueryRepository.class);
+    private final Set<String> existingEmails = new HashSet<>(Set.of("taken@example.com"));
+    private final AtomicLong ids = new AtomicLong();
+    private PasswordHashingService hashingService;
+
+    @AfterEach
+    void tearDown() {
+        hashingService.destroy();
+    }
+
+    @Test
+    void reportsEveryNdjsonRowInOrderAndInsertsTheValidOnesInOneStatement() {
+        UserImportService service = service(2, 2, 100, 2);
+
+        List<UserImportResult> results = service.importUsers(Flux.just(
+                json("a@example.com", "WORKER"),
+                "",
+                json("not-an-email", "CLIENT"),
+                json("boss@example.com", "ADMIN"),
+                "{broken",
+                json("taken@example.com", "CLIENT"),
+                json("b@example.com", "CLIENT"),
+                json("a@example.com", "CLIENT")), UserImportService.Format.NDJSON).collectList().block();
+
+        assertThat(results).extracting(UserImportResult::getLine).containsExactly(1L, 3L, 4L, 5L, 6L, 7L, 8L);
+        assertThat(results).extracting(UserImportResult::getStatus).containsExactly(
+                Status.CREATED, Status.INVALID, Status.INVALID, Status.INVALID, Status.DUPLICATE, Status.CREATED,
+                Status.DUPLICATE);
+        assertThat(results.get(0).getId()).isNotNull();
+        assertThat(results.get(2).getError()).isEqualTo("Admin accounts cannot be imported");
+        verify(repository, times(1)).insertAllIfAbsent(any(), any());
+    }
+
+    @Test
+    void readsCsvColumnsByHeaderAndHonoursQuotes() {
+        UserImportService service = service(2, 2, 100, 2);
+
+        StepVerifier.create(service.importUsers(Flux.just(
+                        "role,email,firstName,lastName,password",
+                        "worker,c@example.com,\"Lee, Jr.\",Smith,\"pass,\"\"word\"",
+                        "painter,d@example.com,Dee,Doe,password1"), UserImportService.Format.CSV))
+                .assertNext(result -> {
+                    assertThat(result.getLine()).isEqualTo(2);
+                    assertThat(result.getStatus()).isEqualTo(Status.CREATED);
+                })
+                .assertNext(result -> assertThat(result.getError()).isEqualTo("Unknown role painter"))
+                .verifyComplete();
+
+        assertThat(UserImportService.parseCsvLine("a,\"b,c\",\"d\"\"e\",")).containsExactly("a", "b,c", "d\"e", "");
+    }
+
+    @Test
+    void rejectsACsvWithoutTheRequiredColumns() {
+        StepVerifier.create(service(2, 2, 100, 2).importUsers(Flux.just("email,password"),
+                        UserImportService.Format.CSV))
+                .expectError(ResponseStatusException.class)
+                .verify();
+    }
+
+    @Test
+    void waitsForTheHashingPoolInsteadOfFailingRowsWhenItIsFull() {
+        // One thread and one queue slot, but four rows hashed at a time
+        UserImportService service = service(1, 1, 3, 4);
+
+        List<UserImportResult> results = service.importUsers(Flux.fromStream(IntStream.range(0, 12)
+                .mapToObj(i -> json("user" + i + "@example.com", "CLIENT"))), UserImportService.Format.NDJSON)
+                .collectList().block();
+
+        assertThat(results).hasSize(12).allMatch(result -> result.getStatus() == Status.CREATED);
+        verify(repository, times(4)).insertAllIfAbsent(any(), any());
+    }
+
+    @Test
+    void marksTheRowsOfAFailedBatchAsFailed() {
+        UserImportService service = service(2, 2, 100, 2);
+        doReturn(Flux.error(new IllegalStateException("down"))).when(repository).insertAllIfAbsent(any(), any());
+
+        StepVerifier.create(service.importUsers(Flux.just(json("a@example.com", "CLIENT"), json("x", "CLIENT")),
+                        UserImportService.Format.NDJSON))
+                .assertNext(result -> assertThat(result.getStatus()).isEqualTo(Status.FAILED))
+                .assertNext(result -> assertThat(result.getStatus()).isEqualTo(Status.INVALID))
+                .verifyComplete();
+    }
+
+    private UserImportService service(int hashThreads, int queueCapacity, int batchSize, int hashConcurrency) {
+        hashingService = new PasswordHashingService(new BCryptPasswordEncoder(4), new SimpleMeterRegistry(),
+                hashThreads, queueCapacity);
+        when(repository.insertAllIfAbsent(any(), any())).thenAnswer(invocation -> {
+            List<User> users = invocation.getArgument(0);
+            return Flux.fromIterable(users)
+                    .filter(user -> existingEmails.add(user.getEmail()))
+                    .doOnNext(user -> user.setId(ids.incrementAndGet()));
+        });
+        return new UserImportService(hashingService, repository,
+                Validation.buildDefaultValidatorFactory().getValidator(), new ObjectMapper(),
+                new SimpleMeterRegistry(), batchSize, Duration.ofSeconds(5), hashConcurrency, 10);
+    }
+
+    private static String json(String email, String role) {
+        return "{\"email\":\"" + email + "\",\"password\":\"password1\",\"firstName\":\"First\","
+                + "\"lastName\":\"Last\",\"role\":\"" + role + "\"}";
+    }
+}
@@ -0,0 +1,89 @@
+package com.interiordesign.auth_service.service;
+
+import com.interiordesign.auth_service.dto.response.UserSummary;
+import com.interiordesign.auth_service.repository.UserQueryRepository;
+import com.interiordesign.auth_service.repository.UserQueryRepository.PagePosition;
+import com.interiordesign.auth_service.repository.UserQueryRepository.UserFilter;
+import org.junit.jupiter.api.Test;
+import org.springframework.web.server.ResponseStatusException;
+import reactor.core.publisher.Flux;
+import reactor.test.StepVerifier;
+
+import java.time.Instant;
+import java.util.stream.LongStream;
+
+import static org.assertj.core.api.Assertions.assertThat;
+import static org.mockito.ArgumentMatchers.any;
+import static org.mockito.ArgumentMatchers.eq;
+import static org.mockito.ArgumentMatchers.isNull;
+import static org.mockito.Mockito.mock;
+import static org.mockito.Mockito.verify;
+import static org.mockito.Mockito.verifyNoInteractions;
+import static org.mockito.Mockito.when;
+
+class UserListingServiceTest {
+
+    private static final UserFilter NO_FILTER = new UserFilter(null, null, null, null);
+    private static final Instant T0 = Instant.parse("2024-03-01T10:15:30.123456Z");
+
+    private final UserQueryRepository repository = mock(UserQueryRepository.class);
+    private final UserListingService service = new UserListingService(repository, 2, 3);
+
+    @Test
+    void asksForOneExtraRowAndPointsTheCursorAtTheLastUserShown() {
+        when(repository.findPage(NO_FILTER, null, 3)).thenReturn(users(3));
+
+        StepVerifier.create(service.listUsers(NO_FILTER, null, null))
+                .assertNext(page -> {
+                    assertThat(page.getUsers()).extracting(UserSummary::getId).containsExactly(3L, 2L);
+                    assertThat(UserListingService.decodeCursor(page.getNextCursor()))
+                            .isEqualTo(new PagePosition(T0.minusSeconds(2), 2L));
+                })
+                .verifyComplete();
+    }
+
+    @Test
+    void resumesAfterTheCursorAndEndsWithoutOne() {
+        String cursor = UserListingService.encodeCursor(new PagePosition(T0, 42L));
+        when(repository.findPage(eq(NO_FILTER), eq(new PagePosition(T0, 42L)), eq(4))).thenReturn(users(1));
+
+        StepVerifier.create(service.listUsers(NO_FILTER, cursor, 3))
+                .assertNext(page -> {
+                    assertThat(page.getUsers()).hasSize(1);
+                    assertThat(page.getNextCursor()).isNull();
+                })
+                .verifyComplete();
+    }
+
+    @Test
+    void rejectsBadCursorsAndLimitsBeforeQuerying() {
+        StepVerifier.create(service.listUsers(NO_FILTER, "not a cursor", null))
+                .expectError(ResponseStatusException.class)
+                .verify();
+        StepVerifier.create(service.listUsers(NO_FILTER, UserListingService.encodeCursor(new PagePosition(T0, 1L))
+                        .substring(4), null))
+                .expectError(ResponseStatusException.class)
+                .verify();
+        StepVerifier.create(service.listUsers(NO_FILTER, null, 4))
+                .expectError(ResponseStatusException.class)
+                .verify();
+        verifyNoInteractions(repository);
+    }
+
+    @Test
+    void passesTheFilterThrough() {
+        UserFilter filter = new UserFilter(null, false, T0, null);
+        when(repository.findPage(any(), any(), eq(3))).thenReturn(Flux.empty());
+
+        StepVerifier.create(service.listUsers(filter, "", null))
+                .assertNext(page -> assertThat(page.getUsers()).isEmpty())
+                .verifyComplete();
+        verify(repository).findPage(eq(filter), isNull(), eq(3));
+    }
+
+    // Newest first, ids count down from n
+    private static Flux<UserSummary> users(int n) {
+        return Flux.fromStream(LongStream.rangeClosed(1, n).map(i -> n + 1 - i)
+                .mapToObj(id -> UserSummary.builder().id(id).createdAt(T0.minusSeconds(n - id + 1)).build()));
+    }
+}
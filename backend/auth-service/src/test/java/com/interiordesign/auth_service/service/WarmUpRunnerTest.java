@@ -0,0 +1,72 @@
+package com.interiordesign.auth_service.service;
+
+import com.fasterxml.jackson.databind.ObjectMapper;
+import com.interiordesign.auth_service.repository.RefreshTokenRepository;
+import com.interiordesign.auth_service.repository.UserQueryRepository;
+import com.interiordesign.auth_service.repository.UserRepository;
+import com.interiordesign.auth_service.security.JwtUtil;
+import com.interiordesign.auth_service.security.SigningKey;
+import com.interiordesign.auth_service.security.SigningKeyRing;
+import io.micrometer.core.instrument.simple.SimpleMeterRegistry;
+import io.r2dbc.spi.ConnectionFactory;
+import io.r2dbc.spi.ConnectionFactoryMetadata;
+import org.junit.jupiter.api.AfterEach;
+import org.junit.jupiter.api.Test;
+import org.springframework.boot.DefaultApplicationArguments;
+import org.springframework.boot.actuate.info.Info;
+import org.springframework.http.codec.ServerCodecConfigurer;
+import org.springframework.r2dbc.connection.R2dbcTransactionManager;
+import org.springframework.r2dbc.core.DatabaseClient;
+import org.springframework.security.crypto.bcrypt.BCryptPasswordEncoder;
+import org.springframework.transaction.reactive.TransactionalOperator;
+import reactor.core.publisher.Mono;
+
+import java.time.Duration;
+import java.time.Instant;
+import java.util.List;
+import java.util.Map;
+
+import static org.assertj.core.api.Assertions.assertThat;
+import static org.mockito.Mockito.doReturn;
+import static org.mockito.Mockito.mock;
+
+class WarmUpRunnerTest {
+
+    private final PasswordHashingService hashingService =
+            new PasswordHashingService(new BCryptPasswordEncoder(4), new SimpleMeterRegistry(), 2, 8);
+
+    @AfterEach
+    void tearDown() {
+        hashingService.destroy();
+    }
+
+    @Test
+    void startsWithoutTheDatabaseStepsWhenTheDatabaseIsDown() {
+        ConnectionFactory unreachable = mock(ConnectionFactory.class);
+        doReturn(Mono.error(new IllegalStateException("Connection refused"))).when(unreachable).create();
+        doReturn((ConnectionFactoryMetadata) () -> "PostgreSQL").when(unreachable).getMetadata();
+        SigningKeyRing ring = new SigningKeyRing(new ObjectMapper());
+        ring.update(List.of(SigningKey.generate(1, 2048, Instant.now())));
+        JwtUtil jwtUtil = new JwtUtil(ring, "", 60_000, false);
+        SimpleMeterRegistry meterRegistry = new SimpleMeterRegistry();
+
+        WarmUpRunner runner = new WarmUpRunner(DatabaseClient.create(unreachable),
+                TransactionalOperator.create(new R2dbcTransactionManager(unreachable)),
+                mock(UserRepository.class), mock(UserQueryRepository.class), mock(RefreshTokenRepository.class),
+                jwtUtil, new RefreshTokenService(mock(RefreshTokenRepository.class), null), hashingService,
+                ServerCodecConfigurer.create(), meterRegistry, true, 4, 20, 10, Duration.ofSeconds(5));
+        runner.run(new DefaultApplicationArguments());
+
+        assertThat(runner.getSteps()).extracting(WarmUpRunner.Step::name)
+                .containsExactly("connections", "tokens", "password-hashing", "json");
+        assertThat(runner.getSteps()).extracting(WarmUpRunner.Step::succeeded)
+                .containsExactly(false, true, true, true);
+        assertThat(runner.getSteps().get(1).covered()).startsWith("10 access tokens signed and verified");
+        assertThat(meterRegistry.get("auth.warmup").tag("step", "connections").tag("outcome", "failure").timer()
+                .count()).isEqualTo(1);
+
+        Info.Builder info = new Info.Builder();
+        runner.contribute(info);
+        assertThat(info.build().get("warmUp", Map.class)).containsKeys("durationMs", "steps");
+    }
+}
@@ -0,0 +1,35 @@
+package com.interiordesign.auth_service.support;
+
+import org.springframework.boot.test.context.SpringBootTest;
+import org.springframework.test.context.DynamicPropertyRegistry;
+import org.springframework.test.context.DynamicPropertySource;
+import org.testcontainers.containers.PostgreSQLContainer;
+import org.testcontainers.junit.jupiter.Testcontainers;
+
+/**
+ * Base class for tests that need a real Postgres. Skipped when Docker is not available.
+ * The container is shared by all subclasses and statements are routed through r2dbc-proxy
+ * so tests can assert round trips with {@link StatementCounter}.
+ */
+@SpringBootTest
+@Testcontainers(disabledWithoutDocker = true)
+public abstract class PostgresIntegrationTest {
+
+    protected static final PostgreSQLContainer<?> POSTGRES = new PostgreSQLContainer<>("postgres:16-alpine");
+
+    @DynamicPropertySource
+    static void postgresProperties(DynamicPropertyRegistry registry) {
+        POSTGRES.start();
+        registry.add("spring.r2dbc.url", () -> String.format("r2dbc:proxy:postgresql://%s:%d/%s?proxyListener=%s",
+                POSTGRES.getHost(), POSTGRES.getMappedPort(PostgreSQLContainer.POSTGRESQL_PORT),
+                POSTGRES.getDatabaseName(), StatementCounter.class.getName()));
+        registry.add("spring.r2dbc.username", POSTGRES::getUsername);
+        registry.add("spring.r2dbc.password", POSTGRES::getPassword);
+        registry.add("spring.sql.init.mode", () -> "always");
+        // Background jobs would add statements to the counts asserted by tests
+        registry.add("token.cleanup.enabled", () -> "false");
+        registry.add("email.outbox.enabled", () -> "false");
+        registry.add("jwt.signing.scheduled-refresh", () -> "false");
+        registry.add("password.bcrypt.strength", () -> "4");
+    }
+}
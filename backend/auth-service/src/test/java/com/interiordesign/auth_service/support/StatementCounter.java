@@ -0,0 +1,27 @@
+package com.interiordesign.auth_service.support;
+
+import io.r2dbc.proxy.core.QueryExecutionInfo;
+import io.r2dbc.proxy.listener.ProxyExecutionListener;
+
+import java.util.concurrent.atomic.AtomicInteger;
+
+/**
+ * Counts statements sent to the database; registered through the r2dbc-proxy URL option.
+ */
+public class StatementCounter implements ProxyExecutionListener {
+
+    private static final AtomicInteger EXECUTIONS = new AtomicInteger();
+
+    @Override
+    public void afterQuery(QueryExecutionInfo execInfo) {
+        EXECUTIONS.incrementAndGet();
+    }
+
+    public static void reset() {
+        EXECUTIONS.set(0);
+    }
+
+    public static int count() {
+        return EXECUTIONS.get();
+    }
+}